@@ -0,0 +1,132 @@
+package fr.iut.blankproject.benchmark;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import fr.iut.blankproject.perf.PerfApplication;
+import fr.iut.blankproject.perf.PerfData;
+import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.UserService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Mesure le débit des mises à jour concurrentes (lecture puis remplacement) d'un petit nombre d'articles très
+ * modifiés. Les mises à jour optimistes envoient la version lue et recommencent lorsqu'un autre thread a modifié
+ * l'article entre temps. Les mises à jour pessimistes prennent un verrou par article autour de la lecture et d'un
+ * remplacement inconditionnel (sans version attendue), comme avant l'ajout des écritures conditionnelles. Le cache est
+ * désactivé afin que chaque lecture retourne la version en base.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+
+    @Param({"1", "16"})
+    private int hotArticles;
+
+    private ConfigurableApplicationContext context;
+    private ArticleService articleService;
+    private MongoTemplate mongoTemplate;
+    private PerfData data;
+    private List<String> articleIds;
+    private List<ReentrantLock> locks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PerfApplication.run(WebApplicationType.NONE, "spring.cache.type=none");
+        articleService = context.getBean(ArticleService.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+        data = new PerfData(42);
+
+        final User user = context.getBean(UserService.class).save(data.user(0));
+        final List<AuthorRef> authors = List.of(new AuthorRef(user.getId(), user.getPseudo()));
+        articleIds = new ArrayList<>();
+        locks = new ArrayList<>();
+        for (int i = 0; i < hotArticles; i++) {
+            articleIds.add(articleService.save(data.article(authors.get(0), 300, 20, authors)).getId());
+            locks.add(new ReentrantLock());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Nombre de mises à jour optimistes recommencées, rapporté par JMH à côté du débit
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retries {
+        public long retries;
+    }
+
+    @Benchmark
+    public Article optimisticUpdate(Retries counters) {
+        final String id = randomId();
+        while (true) {
+            final Article article = articleService.findById(id);
+            article.setTitre(data.word());
+            try {
+                return articleService.update(id, article, article.getVersion());
+            } catch (VersionMismatchException exception) {
+                counters.retries++;
+            }
+        }
+    }
+
+    @Benchmark
+    public Article pessimisticUpdate() {
+        final int index = ThreadLocalRandom.current().nextInt(articleIds.size());
+        final String id = articleIds.get(index);
+        final ReentrantLock lock = locks.get(index);
+        lock.lock();
+        try {
+            final Article article = articleService.findById(id);
+            article.setTitre(data.word());
+            article.setVersion(article.getVersion() + 1);
+
+            return mongoTemplate.findAndReplace(new Query(where("_id").is(id)), article,
+                    FindAndReplaceOptions.options().returnNew());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String randomId() {
+        return articleIds.get(ThreadLocalRandom.current().nextInt(articleIds.size()));
+    }
+}
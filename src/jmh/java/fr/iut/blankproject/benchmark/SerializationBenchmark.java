@@ -0,0 +1,86 @@
+package fr.iut.blankproject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.perf.PerfData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure la sérialisation et la désérialisation JSON d'un article (selon son nombre de commentaires) et d'un
+ * utilisateur avec ses articles, avec un ObjectMapper configuré comme celui de Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"0", "20", "200"})
+    private int commentaires;
+
+    private ObjectMapper objectMapper;
+    private Article article;
+    private byte[] articleJson;
+    private User user;
+    private byte[] userJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        final PerfData data = new PerfData(42);
+        final List<AuthorRef> authors = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            authors.add(new AuthorRef(String.valueOf(i), data.user(i).getPseudo()));
+        }
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        article = data.article(authors.get(0), 300, commentaires, authors);
+        articleJson = objectMapper.writeValueAsBytes(article);
+
+        final List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            articles.add(data.article(authors.get(0), 300, commentaires, authors));
+        }
+        user = data.user(0);
+        user.setArticles(articles);
+        userJson = objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeArticle() throws IOException {
+        return objectMapper.writeValueAsBytes(article);
+    }
+
+    @Benchmark
+    public Article readArticle() throws IOException {
+        return objectMapper.readValue(articleJson, Article.class);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws IOException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User readUser() throws IOException {
+        return objectMapper.readValue(userJson, User.class);
+    }
+}
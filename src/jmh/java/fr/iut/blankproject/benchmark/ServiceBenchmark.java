@@ -0,0 +1,185 @@
+package fr.iut.blankproject.benchmark;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.perf.PerfApplication;
+import fr.iut.blankproject.perf.PerfData;
+import fr.iut.blankproject.repository.ArticleRepository;
+import fr.iut.blankproject.repository.UserRepository;
+import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure les opérations CRUD d'ArticleServiceImpl et d'UserServiceImpl sur une base MongoDB embarquée, avec et sans
+ * cache, afin d'isoler le coût du service et du driver de celui de la couche web.
+ * <p>
+ * Les benchmarks suffixés par "Baseline" rejouent, directement sur les repositories, les allers-retours des mises à
+ * jour et suppressions d'avant les écritures conditionnelles: lecture de l'existence du document, remplacement puis
+ * relecture pour la mise à jour, lecture puis suppression pour la suppression. Ils sont à comparer avec updateArticle,
+ * saveAndDeleteArticle et saveAndDeleteUser, qui n'effectuent qu'un aller-retour par écriture.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private static final int USERS = 100;
+    private static final int ARTICLES = 1000;
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private ArticleService articleService;
+    private UserService userService;
+    private ArticleRepository articleRepository;
+    private UserRepository userRepository;
+    private PerfData data;
+    private List<AuthorRef> authors;
+    private List<String> articleIds;
+    private List<String> userIds;
+    private Map<String, Long> articleVersions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PerfApplication.run(WebApplicationType.NONE, "spring.cache.type=" + cacheType);
+        articleService = context.getBean(ArticleService.class);
+        userService = context.getBean(UserService.class);
+        articleRepository = context.getBean(ArticleRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        data = new PerfData(42);
+
+        authors = new ArrayList<>();
+        userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            final User user = userService.save(data.user(i));
+            userIds.add(user.getId());
+            authors.add(new AuthorRef(user.getId(), user.getPseudo()));
+        }
+        articleIds = new ArrayList<>();
+        articleVersions = new ConcurrentHashMap<>();
+        for (int i = 0; i < ARTICLES; i++) {
+            final Article article = articleService.save(data.article(randomElement(authors), 300, 20, authors));
+            articleIds.add(article.getId());
+            articleVersions.put(article.getId(), article.getVersion());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Article findArticleById() {
+        return articleService.findById(randomElement(articleIds));
+    }
+
+    @Benchmark
+    public Article saveAndDeleteArticle() {
+        final Article article = articleService.save(data.article(randomElement(authors), 300, 20, authors));
+        articleService.deleteById(article.getId());
+
+        return article;
+    }
+
+    @Benchmark
+    public Article saveAndDeleteArticleBaseline() {
+        final Article article = articleService.save(data.article(randomElement(authors), 300, 20, authors));
+        articleRepository.findById(article.getId()).orElseThrow();
+        articleRepository.deleteById(article.getId());
+
+        return article;
+    }
+
+    @Benchmark
+    public Article updateArticle() {
+        final String id = randomElement(articleIds);
+        final Article article = data.article(randomElement(authors), 300, 20, authors);
+        article.setVersion(articleVersions.get(id));
+
+        final Article updated = articleService.update(id, article, null);
+        articleVersions.put(id, updated.getVersion());
+
+        return updated;
+    }
+
+    @Benchmark
+    public Article updateArticleBaseline() {
+        final String id = randomElement(articleIds);
+        articleRepository.findById(id).orElseThrow();
+        final Article article = data.article(randomElement(authors), 300, 20, authors);
+        article.setId(id);
+        article.setVersion(articleVersions.get(id));
+        articleRepository.save(article);
+
+        final Article updated = articleRepository.findById(id).orElseThrow();
+        articleVersions.put(id, updated.getVersion());
+
+        return updated;
+    }
+
+    @Benchmark
+    public Article patchArticle() {
+        return articleService.patch(randomElement(articleIds), Collections.singletonMap("titre", data.word()), null);
+    }
+
+    @Benchmark
+    public User findUserById() {
+        return userService.findById(randomElement(userIds));
+    }
+
+    @Benchmark
+    public User saveAndDeleteUser() {
+        final User user = userService.save(data.user(USERS + ThreadLocalRandom.current().nextInt(1_000_000)));
+        userService.deleteById(user.getId());
+
+        return user;
+    }
+
+    @Benchmark
+    public User saveAndDeleteUserBaseline() {
+        final User user = userService.save(data.user(USERS + ThreadLocalRandom.current().nextInt(1_000_000)));
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.deleteById(user.getId());
+
+        return user;
+    }
+
+    @Benchmark
+    public User patchUser() {
+        final Map<String, Object> patch = Collections.singletonMap("password", data.word());
+
+        return userService.patch(randomElement(userIds), patch, null);
+    }
+
+    private static <T> T randomElement(List<T> list) {
+        return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+    }
+}
@@ -0,0 +1,98 @@
+package fr.iut.blankproject.benchmark;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.perf.PerfApplication;
+import fr.iut.blankproject.perf.PerfData;
+import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare la recherche d'un terme par expression régulière sur le titre (requête $regex, sans index utilisable) et par
+ * l'index texte sur le titre et le contenu ($text, trié par score), sur une collection d'un million d'articles. Les
+ * deux recherches passent par ArticleService et retournent une page de 20 articles. Le terme fréquent figure dans
+ * environ un titre sur trois, le terme rare dans un titre sur 10 000: la recherche par expression régulière s'arrête
+ * dès 20 articles trouvés pour le premier mais parcourt toute la collection pour le second, alors que la recherche
+ * texte doit trier par score tous les articles contenant le premier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextSearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int RARE_EVERY = 10_000;
+    private static final String RARE_TERM = "sharding";
+
+    @Param({"1000000"})
+    private int articles;
+
+    @Param({"mongo", RARE_TERM})
+    private String term;
+
+    private ConfigurableApplicationContext context;
+    private ArticleService articleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PerfApplication.run(WebApplicationType.NONE,
+                "spring.cache.type=none", "search.index.max-results=" + PAGE_SIZE);
+        articleService = context.getBean(ArticleService.class);
+        final MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        final PerfData data = new PerfData(42);
+
+        final User user = context.getBean(UserService.class).save(data.user(0));
+        final List<AuthorRef> authors = List.of(new AuthorRef(user.getId(), user.getPseudo()));
+        final List<Article> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < articles; i++) {
+            final Article article = data.article(authors.get(0), 30, 0, authors);
+            if (i % RARE_EVERY == 0) {
+                article.setTitre(article.getTitre() + " " + RARE_TERM);
+            }
+            batch.add(article);
+            if (batch.size() == BATCH_SIZE || i == articles - 1) {
+                mongoTemplate.insert(batch, Article.class);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Article> regex() {
+        return articleService.findByTitreContaining(term);
+    }
+
+    @Benchmark
+    public List<Article> text() {
+        return articleService.searchText(term, 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,80 @@
+package fr.iut.blankproject.benchmark;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.perf.PerfData;
+import fr.iut.blankproject.service.validation.ArticleValidator;
+import fr.iut.blankproject.service.validation.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure les vérifications effectuées avant l'enregistrement d'un article et d'un utilisateur, pour un objet valide et
+ * pour un objet invalide (construction du message et levée de l'exception).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    private Article validArticle;
+    private Article invalidArticle;
+    private User validUser;
+    private User invalidUser;
+
+    @Setup
+    public void setUp() {
+        final PerfData data = new PerfData(42);
+        final AuthorRef author = new AuthorRef("1", "auteur");
+        validArticle = data.article(author, 300, 0, Collections.singletonList(author));
+        invalidArticle = Article.builder().contenu(validArticle.getContenu()).build();
+        validUser = data.user(0);
+        invalidUser = User.builder().pseudo(validUser.getPseudo()).build();
+    }
+
+    @Benchmark
+    public Article checkValidArticle() {
+        ArticleValidator.checkArticleToSave(validArticle);
+        return validArticle;
+    }
+
+    @Benchmark
+    public RuntimeException checkInvalidArticle() {
+        try {
+            ArticleValidator.checkArticleToSave(invalidArticle);
+            return null;
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public User checkValidUser() {
+        UserValidator.checkUserToSave(validUser);
+        return validUser;
+    }
+
+    @Benchmark
+    public RuntimeException checkInvalidUser() {
+        try {
+            UserValidator.checkUserToSave(invalidUser);
+            return null;
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+}
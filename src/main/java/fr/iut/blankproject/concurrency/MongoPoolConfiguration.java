@@ -0,0 +1,30 @@
+package fr.iut.blankproject.concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Dimensionnement du pool de connexions du driver MongoDB. Le pool borne le nombre de commandes envoyées en parallèle
+ * à la base: avec les threads virtuels, il remplace le pool de threads de Tomcat comme limite de concurrence, et le
+ * délai d'attente d'une connexion détermine combien de temps une requête peut patienter avant d'échouer.
+ */
+@Configuration
+public class MongoPoolConfiguration {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            @Value("${mongodb.pool.max-size:100}") int maxSize,
+            @Value("${mongodb.pool.min-size:0}") int minSize,
+            @Value("${mongodb.pool.max-wait-time:2m}") Duration maxWaitTime) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,45 @@
+package fr.iut.blankproject.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Mode d'exécution sur threads virtuels, activé par la propriété threads.virtual.enabled: chaque requête reçue
+ * par Tomcat est traitée sur son propre thread virtuel, qui libère son thread porteur pendant les appels bloquants à
+ * MongoDB. Le nombre de requêtes traitées simultanément n'est alors plus borné par server.tomcat.threads.max mais par
+ * server.tomcat.max-connections, et c'est le pool de connexions MongoDB (mongodb.pool.max-size) qui limite le nombre
+ * de requêtes envoyées en parallèle à la base. Si la JVM ne fournit pas les threads virtuels, le pool de threads
+ * habituel de Tomcat est conservé.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> VirtualThreads.newVirtualThreadPerTaskExecutor()
+                .ifPresentOrElse(executor -> {
+                    protocolHandler.setExecutor(executor);
+                    LOGGER.info("Les requêtes HTTP sont traitées sur des threads virtuels.");
+                }, () -> LOGGER.warn("Threads virtuels indisponibles sur Java {}, le pool de threads de Tomcat est "
+                        + "conservé.", Runtime.version().feature()));
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${threads.virtual.pinned-threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(meterRegistry, threshold);
+    }
+}
@@ -0,0 +1,93 @@
+package fr.iut.blankproject.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Détecteur d'épinglage des threads virtuels: un thread virtuel qui bloque à l'intérieur d'un bloc synchronized (ou
+ * d'un appel natif) ne peut pas libérer son thread porteur. Les événements JFR jdk.VirtualThreadPinned plus longs que
+ * le seuil (propriété threads.virtual.pinned-threshold) sont comptés dans la métrique
+ * jvm.threads.virtual.pinned, étiquetée par la première méthode de l'application dans la pile d'appels, et la pile
+ * complète est journalisée à la première occurrence de chaque méthode.
+ */
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "fr.iut.blankproject.";
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (Runtime.version().feature() < VIRTUAL_THREADS_VERSION) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        final List<RecordedFrame> frames = event.getStackTrace() == null
+                ? List.of()
+                : event.getStackTrace().getFrames();
+        final String site = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("inconnu");
+
+        Counter.builder("jvm.threads.virtual.pinned")
+                .description("Nombre de fois où un thread virtuel a bloqué son thread porteur au-delà du seuil")
+                .tag("site", site)
+                .register(meterRegistry)
+                .increment();
+        if (reportedSites.add(site)) {
+            LOGGER.warn("Thread virtuel épinglé pendant {} ms dans {}:\n{}", event.getDuration().toMillis(), site,
+                    stackTrace(event.getStackTrace()));
+        }
+    }
+
+    private static String stackTrace(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? "" : stackTrace.getFrames().stream()
+                .map(frame -> "\tat " + format(frame) + "(" + frame.getLineNumber() + ")")
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
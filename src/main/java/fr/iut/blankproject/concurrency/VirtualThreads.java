@@ -0,0 +1,31 @@
+package fr.iut.blankproject.concurrency;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Accès aux threads virtuels (Java 21 et plus) sans dépendre de leur API à la compilation: le projet est compilé pour
+ * Java 15, les threads virtuels ne sont utilisés que lorsque la JVM d'exécution les fournit.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Crée un exécuteur démarrant un thread virtuel par tâche
+     *
+     * @return l'exécuteur, ou vide si la JVM ne fournit pas les threads virtuels
+     */
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,17 +1,45 @@
 package fr.iut.blankproject.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import fr.iut.blankproject.domain.Article;
 import fr.iut.blankproject.domain.ArticleAggregate;
 import fr.iut.blankproject.domain.ArticleCountAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.utils.BulkUtils;
+import fr.iut.blankproject.utils.ETagUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import static fr.iut.blankproject.utils.MediaTypeUtils.APPLICATION_MERGE_PATCH_JSON_VALUE;
+import static fr.iut.blankproject.utils.MediaTypeUtils.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -21,34 +49,130 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
  * Controller qui permet de gérer les méthodes CRUD sur les articles
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1.0/articles")
 @RequiredArgsConstructor
 public class ArticleController {
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final ArticleService articleService;
+    private final ObjectMapper objectMapper;
+    @Value("${http.cache.aggregates.max-age:30s}")
+    private Duration aggregatesMaxAge;
 
     /**
-     * Retourne la liste de tous les articles
+     * Retourne une page d'articles, triée par id. Le champ "next" de la réponse contient le curseur à
+     * fournir pour obtenir la page suivante. Lorsque des champs sont fournis, seuls ces champs (et l'id) sont lus en
+     * base et retournés. L'ETag de la réponse est calculé à partir des articles de la page: une requête conditionnelle
+     * (If-None-Match) sur une page inchangée reçoit une réponse 304 sans corps.
      *
-     * @return une liste d'articles
+     * @param cursor le curseur de la page précédente (absent pour la première page)
+     * @param size   la taille de page (bornée à 100)
+     * @param fields les champs à retourner, séparés par des virgules (optionnel)
+     * @return une page d'articles
      */
     @GetMapping(produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Article>> findAll() {
-        final List<Article> articles = articleService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "20") int size,
+                                     @RequestParam(required = false) Set<String> fields) {
+        if (Objects.nonNull(fields)) {
+            final CursorPage<Map<String, Object>> articles = articleService.findAll(cursor, size, fields);
+
+            return ResponseEntity.ok()
+                    .eTag(ETagUtils.of(articles.getContent(), Map::toString, articles.getNext()))
+                    .body(articles);
+        }
+        final CursorPage<Article> articles = articleService.findAll(cursor, size);
+
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(articles.getContent(),
+                        article -> article.getId() + ":" + article.getVersion(), articles.getNext()))
+                .body(articles);
+    }
+
+    /**
+     * Retourne une page de résumés d'articles (id, titre et date de publication), triée par id. La lecture est
+     * couverte par un index, sans lire les documents complets. L'ETag de la réponse est calculé à partir des résumés
+     * de la page.
+     *
+     * @param cursor le curseur de la page précédente (absent pour la première page)
+     * @param size   la taille de page (bornée à 100)
+     * @return une page de résumés d'articles
+     */
+    @GetMapping(path = "/summaries", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<CursorPage<ArticleSummary>> findSummaries(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        final CursorPage<ArticleSummary> summaries = articleService.findSummaries(cursor, size);
+
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(summaries.getContent(), ArticleSummary::toString, summaries.getNext()))
+                .body(summaries);
+    }
+
+    /**
+     * Exporte tous les articles au format NDJSON (un article JSON par ligne). Les articles sont lus depuis un curseur
+     * Mongo et écrits au fur et à mesure dans la réponse, par blocs de {@value EXPORT_FLUSH_SIZE} articles, afin que la
+     * mémoire utilisée ne dépende pas de la taille de la collection.
+     *
+     * @return le flux NDJSON des articles
+     */
+    @GetMapping(path = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        final ObjectWriter writer = objectMapper.writerFor(Article.class);
+        final StreamingResponseBody body = outputStream -> {
+            try (Stream<Article> articles = articleService.streamAll()) {
+                writeNdjson(articles, writer, outputStream);
+            }
+        };
+
+        return ResponseEntity.ok(body);
+    }
 
-        return ResponseEntity.ok(articles);
+    /**
+     * Ecrit les articles du flux dans la sortie fournie, une ligne JSON par article. La sortie est vidée tous les
+     * {@value EXPORT_FLUSH_SIZE} articles, l'écriture bloquante sur la socket régulant la lecture du curseur.
+     *
+     * @param articles     le flux des articles
+     * @param writer       le writer Jackson des articles
+     * @param outputStream la sortie de la réponse
+     */
+    private void writeNdjson(Stream<Article> articles, ObjectWriter writer, OutputStream outputStream)
+            throws IOException {
+        final BufferedOutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+        final Iterator<Article> iterator = articles.iterator();
+        int written = 0;
+
+        while (iterator.hasNext()) {
+            out.write(writer.writeValueAsBytes(iterator.next()));
+            out.write('\n');
+            if (++written % EXPORT_FLUSH_SIZE == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
     }
 
     /**
-     * Retourne l'article correspondant à l'ID fourni en paramètre
+     * Retourne l'article correspondant à l'ID fourni en paramètre, avec sa version pour ETag. Lorsque la requête est
+     * conditionnelle (If-None-Match), seule la version de l'article est lue en base: si elle correspond à l'ETag
+     * fourni, une réponse 304 sans corps est retournée sans lire l'article.
      *
-     * @param id l'id de l'article
+     * @param id      l'id de l'article
+     * @param request la requête, pour vérifier l'en-tête If-None-Match
      * @return L'article correspondant à l'ID fourni
      */
     @GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<Article> findById(@PathVariable String id) {
+    public ResponseEntity<Article> findById(@PathVariable String id, WebRequest request) {
+        if (Objects.nonNull(request.getHeader(IF_NONE_MATCH))) {
+            final Optional<Long> version = articleService.findVersion(id);
+            if (version.isPresent() && request.checkNotModified(ETagUtils.of(version.get()))) {
+                return null;
+            }
+        }
         final Article articleFound = articleService.findById(id);
 
-        return ResponseEntity.ok(articleFound);
+        return ResponseEntity.ok().eTag(ETagUtils.of(articleFound.getVersion())).body(articleFound);
     }
 
     /**
@@ -64,6 +188,36 @@ public class ArticleController {
         return ResponseEntity.status(CREATED).body(articleSaved);
     }
 
+    /**
+     * Ajoute le commentaire fourni dans le corps de la requête à l'article correspondant à l'ID fourni en paramètre
+     *
+     * @param id          l'id de l'article
+     * @param commentaire le commentaire à ajouter
+     * @return le commentaire ajouté
+     */
+    @PostMapping(path = "/{id}/commentaires", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Commentaire> addCommentaire(@PathVariable String id, @RequestBody Commentaire commentaire) {
+        final Commentaire commentaireSaved = articleService.addCommentaire(id, commentaire);
+
+        return ResponseEntity.status(CREATED).body(commentaireSaved);
+    }
+
+    /**
+     * Enregistre en masse les articles fournis dans le corps de la requête, sous forme de tableau JSON ou de flux
+     * NDJSON. Chaque élément est vérifié et enregistré indépendamment des autres.
+     *
+     * @param content le corps de la requête
+     * @return le résultat de l'enregistrement de chaque élément
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> saveAll(InputStream content) {
+        final List<BulkItemResult> results = articleService.saveAll(BulkUtils.readItems(content, objectMapper));
+
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Supprime l'article correspondant à l'ID fourni en paramètre
      *
@@ -80,16 +234,44 @@ public class ArticleController {
     /**
      * Met à jour l'article correspondant à l'ID fourni en paramètre. Les données mises à jour sont celles fournies
      * dans le corps de la requête.
+     * Lorsque l'en-tête If-Match est fourni, la mise à jour n'est appliquée que si l'article est encore dans la version
+     * correspondante (412 sinon). Sans cet en-tête, la version portée par l'article fourni est attendue de la même
+     * manière (409 sinon). Lorsqu'aucune version n'est fournie, la mise à jour est refusée (428).
      *
      * @param id      l'id de l'article
      * @param article l'article à mettre à jour
+     * @param ifMatch l'ETag de la version attendue (optionnel)
      * @return l'article mis à jour
      */
     @PutMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<Article> update(@PathVariable String id, @RequestBody Article article) {
-        final Article articleUpdated = articleService.update(id, article);
+    public ResponseEntity<Article> update(@PathVariable String id,
+                                          @RequestBody Article article,
+                                          @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final Article articleUpdated = articleService.update(id, article, ETagUtils.parseVersion(ifMatch));
+
+        return ResponseEntity.ok().eTag(ETagUtils.of(articleUpdated.getVersion())).body(articleUpdated);
+    }
+
+    /**
+     * Modifie partiellement l'article correspondant à l'ID fourni en paramètre. Le corps de la requête est un JSON Merge
+     * Patch (RFC 7386): seuls les champs présents sont modifiés, un champ à null est supprimé.
+     * Lorsque l'en-tête If-Match est fourni, la modification n'est appliquée que si l'article est encore dans la
+     * version correspondante (412 sinon).
+     *
+     * @param id      l'id de l'article
+     * @param patch   le JSON Merge Patch à appliquer
+     * @param ifMatch l'ETag de la version attendue (optionnel)
+     * @return l'article modifié
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, APPLICATION_JSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Article> patch(@PathVariable String id,
+                                         @RequestBody Map<String, Object> patch,
+                                         @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final Article articlePatched = articleService.patch(id, patch, ETagUtils.parseVersion(ifMatch));
 
-        return ResponseEntity.ok(articleUpdated);
+        return ResponseEntity.ok().eTag(ETagUtils.of(articlePatched.getVersion())).body(articlePatched);
     }
 
     /**
@@ -109,6 +291,24 @@ public class ArticleController {
                 : ResponseEntity.ok(articlesFound);
     }
 
+    /**
+     * Permet de chercher les articles correspondant au texte fourni dans leur titre ou leur contenu, triés par
+     * pertinence
+     *
+     * @param q    le texte à rechercher
+     * @param page le numéro de page, à partir de 0
+     * @param size la taille de page (bornée à 100)
+     * @return la page d'articles correspondants
+     */
+    @GetMapping(path = "/search/text", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Article>> searchText(@RequestParam String q,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        final List<Article> articlesFound = articleService.searchText(q, page, size);
+
+        return ResponseEntity.ok(articlesFound);
+    }
+
     /**
      * Permet de chercher les articles dont le titre contient le critère de recherche passé en query param de la
      * requête. La recherche n'est pas sensible à la casse
@@ -174,7 +374,7 @@ public class ArticleController {
     public ResponseEntity<ArticleCountAggregate> countBy() {
         final ArticleCountAggregate count = articleService.countArticle();
 
-        return ResponseEntity.ok(count);
+        return ResponseEntity.ok().cacheControl(aggregatesCacheControl()).body(count);
     }
 
     /**
@@ -188,6 +388,59 @@ public class ArticleController {
         return articles.size() == 0
                 ? ResponseEntity.status(NOT_FOUND)
                 .body("Aucun article n'est présent en base de données.")
-                : ResponseEntity.ok(articles);
+                : ResponseEntity.ok().cacheControl(aggregatesCacheControl()).body(articles);
+    }
+
+    /**
+     * Permet d'obtenir une page du nombre de commentaires par article, triée par id
+     *
+     * @param cursor       le curseur de la page précédente (absent pour la première page)
+     * @param size         la taille de page (bornée à 100)
+     * @param from         la date de publication minimale (optionnelle)
+     * @param to           la date de publication maximale (optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque
+     * @return une page du nombre de commentaires par article
+     */
+    @GetMapping(path = "/commentary/count/page", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<CursorPage<ArticleAggregate>> countCommentaryByArticle(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to,
+            @RequestParam(defaultValue = "false") boolean allowDiskUse) {
+        final CursorPage<ArticleAggregate> articles =
+                articleService.countCommentaryByArticle(cursor, size, from, to, allowDiskUse);
+
+        return ResponseEntity.ok().cacheControl(aggregatesCacheControl()).body(articles);
+    }
+
+    /**
+     * Permet d'obtenir les articles les plus commentés
+     *
+     * @param limit        le nombre d'articles à retourner (borné à 100)
+     * @param from         la date de publication minimale (optionnelle)
+     * @param to           la date de publication maximale (optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque
+     * @return les articles les plus commentés
+     */
+    @GetMapping(path = "/commentary/count/top", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ArticleAggregate>> findTopCommented(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to,
+            @RequestParam(defaultValue = "false") boolean allowDiskUse) {
+        final List<ArticleAggregate> articles = articleService.findTopCommented(limit, from, to, allowDiskUse);
+
+        return ResponseEntity.ok().cacheControl(aggregatesCacheControl()).body(articles);
+    }
+
+    /**
+     * Les comptages et agrégations étant coûteux et pouvant être légèrement décalés, leurs réponses peuvent être
+     * conservées par les clients et les caches partagés pendant la durée configurée (http.cache.aggregates.max-age).
+     *
+     * @return la politique de cache des comptages et agrégations
+     */
+    private CacheControl aggregatesCacheControl() {
+        return CacheControl.maxAge(aggregatesMaxAge).cachePublic();
     }
 }
@@ -1,13 +1,22 @@
 package fr.iut.blankproject.controller;
 
 import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.utils.ETagUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
+import static fr.iut.blankproject.utils.MediaTypeUtils.APPLICATION_MERGE_PATCH_JSON_VALUE;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -16,34 +25,48 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
  * Controller qui permet de gérer les méthodes CRUD sur les commentaires
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1.0/commentaires")
 @RequiredArgsConstructor
 public class CommentaireController {
     private final CommentaireService commentaireService;
 
     /**
-     * Retourne la liste de tous les commentaires
+     * Retourne une page de commentaires, triée par id. Le champ "next" de la réponse contient le curseur à
+     * fournir pour obtenir la page suivante.
      *
-     * @return une liste de commentaires
+     * @param cursor le curseur de la page précédente (absent pour la première page)
+     * @param size   la taille de page (bornée à 100)
+     * @return une page de commentaires
      */
     @GetMapping(produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Commentaire>> findAll() {
-        final List<Commentaire> commentaires = commentaireService.findAll();
+    public ResponseEntity<CursorPage<Commentaire>> findAll(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        final CursorPage<Commentaire> commentaires = commentaireService.findAll(cursor, size);
 
         return ResponseEntity.ok(commentaires);
     }
 
     /**
-     * Retourne le commentaire correspondant à l'ID fourni en paramètre
+     * Retourne le commentaire correspondant à l'ID fourni en paramètre, avec sa version pour ETag. Lorsque la requête
+     * est conditionnelle (If-None-Match) et que la version du commentaire correspond à l'ETag fourni, une réponse 304
+     * sans corps est retournée sans lire le commentaire.
      *
-     * @param id l'id du commentaire
+     * @param id      l'id du commentaire
+     * @param request la requête, pour vérifier l'en-tête If-None-Match
      * @return Le commentaire correspondant à l'ID fourni
      */
     @GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<Commentaire> findById(@PathVariable String id) {
+    public ResponseEntity<Commentaire> findById(@PathVariable String id, WebRequest request) {
+        if (Objects.nonNull(request.getHeader(IF_NONE_MATCH))) {
+            final Optional<Long> version = commentaireService.findVersion(id);
+            if (version.isPresent() && request.checkNotModified(ETagUtils.of(version.get()))) {
+                return null;
+            }
+        }
         final Commentaire commentaire = commentaireService.findById(id);
 
-        return ResponseEntity.ok(commentaire);
+        return ResponseEntity.ok().eTag(ETagUtils.of(commentaire.getVersion())).body(commentaire);
     }
 
     /**
@@ -75,15 +98,44 @@ public class CommentaireController {
     /**
      * Met à jour le commentaire correspondant à l'ID fourni en paramètre. Les données mises à jour sont celles fournies
      * dans le corps de la requête.
+     * Lorsque l'en-tête If-Match est fourni, la mise à jour n'est appliquée que si le commentaire est encore dans la
+     * version correspondante (412 sinon). Sans cet en-tête, la version portée par le commentaire fourni est attendue
+     * de la même manière (409 sinon). Lorsqu'aucune version n'est fournie, la mise à jour est refusée (428).
      *
-     * @param id      l'id de le commentaire
+     * @param id          l'id de le commentaire
      * @param commentaire le commentaire mis à jour
+     * @param ifMatch     l'ETag de la version attendue (optionnel)
      * @return le commentaire mis à jour
      */
     @PutMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<Commentaire> update(@PathVariable String id, @RequestBody Commentaire commentaire) {
-        final Commentaire commentaireUpdated = commentaireService.update(id, commentaire);
+    public ResponseEntity<Commentaire> update(@PathVariable String id,
+                                              @RequestBody Commentaire commentaire,
+                                              @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final Commentaire commentaireUpdated =
+                commentaireService.update(id, commentaire, ETagUtils.parseVersion(ifMatch));
 
-        return ResponseEntity.ok(commentaireUpdated);
+        return ResponseEntity.ok().eTag(ETagUtils.of(commentaireUpdated.getVersion())).body(commentaireUpdated);
+    }
+
+    /**
+     * Modifie partiellement le commentaire correspondant à l'ID fourni en paramètre. Le corps de la requête est un JSON Merge
+     * Patch (RFC 7386): seuls les champs présents sont modifiés, un champ à null est supprimé.
+     * Lorsque l'en-tête If-Match est fourni, la modification n'est appliquée que si le commentaire est encore dans la
+     * version correspondante (412 sinon).
+     *
+     * @param id      l'id du commentaire
+     * @param patch   le JSON Merge Patch à appliquer
+     * @param ifMatch l'ETag de la version attendue (optionnel)
+     * @return le commentaire modifié
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, APPLICATION_JSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Commentaire> patch(@PathVariable String id,
+                                             @RequestBody Map<String, Object> patch,
+                                             @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final Commentaire commentairePatched = commentaireService.patch(id, patch, ETagUtils.parseVersion(ifMatch));
+
+        return ResponseEntity.ok().eTag(ETagUtils.of(commentairePatched.getVersion())).body(commentairePatched);
     }
 }
@@ -0,0 +1,28 @@
+package fr.iut.blankproject.controller;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Configuration des ETags des listes d'utilisateurs. Un utilisateur embarque ses articles et ses commentaires
+ * référencés, dont les modifications ne changent pas sa version: l'ETag de ces listes est donc calculé à partir du
+ * contenu de la réponse (ShallowEtagHeaderFilter). Une requête conditionnelle (If-None-Match) sur un contenu inchangé
+ * reçoit une réponse 304 sans corps.
+ */
+@Configuration
+@Profile("!reactive")
+public class HttpCacheConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> userEtagFilter() {
+        final FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/v1.0/users", "/api/v1.0/users/search/*");
+
+        return registration;
+    }
+}
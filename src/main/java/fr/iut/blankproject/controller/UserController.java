@@ -1,13 +1,28 @@
 package fr.iut.blankproject.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
 import fr.iut.blankproject.service.UserService;
+import fr.iut.blankproject.utils.BulkUtils;
+import fr.iut.blankproject.utils.ETagUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
+import static fr.iut.blankproject.utils.MediaTypeUtils.APPLICATION_MERGE_PATCH_JSON_VALUE;
+import static fr.iut.blankproject.utils.MediaTypeUtils.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -17,25 +32,35 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
  * Controller qui permet de gérer les méthodes CRUD sur les utilisateurs
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1.0/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Retourne la liste de tous les utilisateurs
+     * Retourne une page d'utilisateurs, triée par id. Le champ "next" de la réponse contient le curseur à
+     * fournir pour obtenir la page suivante.
      *
-     * @return une liste d'utilisateurs
+     * @param cursor     le curseur de la page précédente (absent pour la première page)
+     * @param size       la taille de page (bornée à 100)
+     * @param references false pour ne pas lire les articles et les commentaires des utilisateurs
+     * @return une page d'utilisateurs
      */
     @GetMapping(produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<User>> findAll() {
-        final List<User> users = userService.findAll();
+    public ResponseEntity<CursorPage<User>> findAll(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(defaultValue = "true") boolean references) {
+        final CursorPage<User> users = userService.findAll(cursor, size, references);
 
         return ResponseEntity.ok(users);
     }
 
     /**
-     * Retourne l'utilisateur correspondant à l'ID fourni en paramètre
+     * Retourne l'utilisateur correspondant à l'ID fourni en paramètre. Son ETag est calculé à partir de sa version et
+     * de celles de ses articles et commentaires référencés: une requête conditionnelle (If-None-Match) sur un
+     * utilisateur inchangé reçoit une réponse 304 sans corps.
      *
      * @param id l'id de l'utilisateur
      * @return L'utilisateur correspondant à l'ID fourni
@@ -44,7 +69,7 @@ public class UserController {
     public ResponseEntity<User> findById(@PathVariable String id) {
         final User user = userService.findById(id);
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(eTag(user)).body(user);
     }
 
     /**
@@ -60,6 +85,22 @@ public class UserController {
         return ResponseEntity.status(CREATED).body(userSaved);
     }
 
+    /**
+     * Enregistre en masse les utilisateurs fournis dans le corps de la requête, sous forme de tableau JSON ou de flux
+     * NDJSON. Chaque élément est vérifié et enregistré indépendamment des autres.
+     *
+     * @param content le corps de la requête
+     * @return le résultat de l'enregistrement de chaque élément
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> saveAll(InputStream content) {
+        final List<BulkItemResult> results = userService.saveAll(BulkUtils.readItems(content, objectMapper));
+
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Supprime l'utilisateur correspondant à l'ID fourni en paramètre
      *
@@ -76,16 +117,88 @@ public class UserController {
     /**
      * Met à jour l'utilisateur correspondant à l'ID fourni en paramètre. Les données mises à jour sont celles fournies
      * dans le corps de la requête.
+     * Lorsque l'en-tête If-Match est fourni, la mise à jour n'est appliquée que si l'utilisateur correspond encore à
+     * cet ETag (412 sinon). Sans cet en-tête, la version portée par l'utilisateur fourni est attendue (409 sinon).
+     * Lorsqu'aucune version n'est fournie, la mise à jour est refusée (428).
      *
      * @param id      l'id de l'utilisateur
-     * @param user l'utilisateur à mettre à jour
+     * @param user    l'utilisateur à mettre à jour
+     * @param ifMatch l'ETag attendu de l'utilisateur (optionnel)
      * @return l'utilisateur mis à jour
      */
     @PutMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<User> update(@PathVariable String id, @RequestBody User user) {
-        final User userUpdated = userService.update(id, user);
+    public ResponseEntity<User> update(@PathVariable String id,
+                                       @RequestBody User user,
+                                       @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final User userUpdated = userService.update(id, user, expectedVersion(id, ifMatch));
+
+        return ResponseEntity.ok().eTag(eTag(userUpdated)).body(userUpdated);
+    }
 
-        return ResponseEntity.ok(userUpdated);
+    /**
+     * Modifie partiellement l'utilisateur correspondant à l'ID fourni en paramètre. Le corps de la requête est un JSON Merge
+     * Patch (RFC 7386): seuls les champs présents sont modifiés, un champ à null est supprimé.
+     * Lorsque l'en-tête If-Match est fourni, la modification n'est appliquée que si l'utilisateur correspond encore à
+     * cet ETag (412 sinon).
+     *
+     * @param id      l'id de l'utilisateur
+     * @param patch   le JSON Merge Patch à appliquer
+     * @param ifMatch l'ETag attendu de l'utilisateur (optionnel)
+     * @return l'utilisateur modifié
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, APPLICATION_JSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<User> patch(@PathVariable String id,
+                                      @RequestBody Map<String, Object> patch,
+                                      @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        final User userPatched = userService.patch(id, patch, expectedVersion(id, ifMatch));
+
+        return ResponseEntity.ok().eTag(eTag(userPatched)).body(userPatched);
+    }
+
+    /**
+     * Retourne la version attendue de l'utilisateur à partir de l'en-tête If-Match. L'ETag d'un utilisateur ne
+     * dépendant pas que de sa version, l'utilisateur est lu pour comparer son ETag à celui fourni, puis sa version est
+     * utilisée pour n'appliquer l'écriture que s'il n'a pas été modifié entre temps.
+     *
+     * @param id      l'id de l'utilisateur
+     * @param ifMatch la valeur de l'en-tête If-Match (optionnelle)
+     * @return la version attendue, null si aucune version n'est attendue
+     */
+    private Long expectedVersion(String id, String ifMatch) {
+        if (Objects.isNull(ifMatch) || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final User user = userService.findById(id);
+        if (!eTag(user).equals(ifMatch.trim())) {
+            throw new VersionMismatchException(String.format(
+                    "Impossible de modifier l'utilisateur avec l'id %s car il ne correspond pas à l'ETag %s.",
+                    id, ifMatch.trim()));
+        }
+
+        return Objects.isNull(user.getVersion()) ? 0L : user.getVersion();
+    }
+
+    /**
+     * Construit l'ETag d'un utilisateur à partir de sa version et des versions de ses articles et commentaires
+     * référencés, qui font partie de sa représentation sans que leurs modifications ne changent sa version.
+     *
+     * @param user l'utilisateur
+     * @return l'ETag de l'utilisateur
+     */
+    private static String eTag(User user) {
+        final List<String> keys = new ArrayList<>();
+        keys.add(user.getId() + ":" + user.getVersion());
+        if (Objects.nonNull(user.getArticles())) {
+            user.getArticles().forEach(article -> keys.add(article.getId() + ":" + article.getVersion()));
+        }
+        if (Objects.nonNull(user.getCommentaires())) {
+            user.getCommentaires()
+                    .forEach(commentaire -> keys.add(commentaire.getId() + ":" + commentaire.getVersion()));
+        }
+
+        return ETagUtils.of(keys, Function.identity());
     }
 
     /**
@@ -121,4 +234,21 @@ public class UserController {
                 .body("Aucun utilisateur correspondant au pseudo recherché n'a été trouvé.")
                 : ResponseEntity.ok(usersFound);
     }
+
+    /**
+     * Permet d'obtenir en une seule requête les utilisateurs correspondant aux ids fournis en query param de la
+     * requête, par exemple pour résoudre à la demande les auteurs d'une page d'articles ou de commentaires.
+     *
+     * @param ids les ids des utilisateurs
+     * @return la liste des utilisateurs correspondants
+     */
+    @GetMapping(path = "/search/ids", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> findAllById(@RequestParam List<String> ids) {
+        final List<User> usersFound = userService.findAllById(ids);
+
+        return usersFound.size() == 0
+                ? ResponseEntity.status(NOT_FOUND)
+                .body("Aucun utilisateur correspondant aux ids recherchés n'a été trouvé.")
+                : ResponseEntity.ok(usersFound);
+    }
 }
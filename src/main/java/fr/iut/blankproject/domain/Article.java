@@ -1,22 +1,36 @@
 package fr.iut.blankproject.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.util.Date;
 import java.util.List;
 
 /**
  * @author florian935, NathanRenaud1997
- * Classe entité qui correpond aux articles.
+ * Classe entité qui correpond aux articles. Le titre et le contenu font partie d'un index texte (le titre ayant un
+ * poids plus important), le champ "score" n'est renseigné que par les recherches textuelles.
+ * L'index composé sur la date de publication puis le titre permet de chercher par plage de dates, ainsi que par titre
+ * et plage de dates en filtrant le titre directement dans l'index. L'index composé sur l'id, le titre et la date de
+ * publication permet de lire les pages de résumés d'articles uniquement à partir de l'index.
  */
-@Document(collection = "Article")
+@Document(collection = "Article", language = "french")
+@CompoundIndexes({
+        @CompoundIndex(name = "publishedDate_titre", def = "{ 'publishedDate': 1, 'titre': 1 }"),
+        @CompoundIndex(name = "id_titre_publishedDate", def = "{ '_id': 1, 'titre': 1, 'publishedDate': 1 }")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -24,14 +38,19 @@ import java.util.List;
 public class Article {
     @Id
     private String id;
+    @Version
+    private Long version;
     @Indexed
+    @TextIndexed(weight = 3)
     private String titre;
+    @TextIndexed
     private String contenu;
-    @Indexed
-    private User utilisateur;
+    private AuthorRef utilisateur;
     @CreatedDate
-    @Indexed
     private Date publishedDate;
     private List<Categorie> categories;
     private List<Commentaire> commentaires;
+    @TextScore
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float score;
 }
@@ -0,0 +1,23 @@
+package fr.iut.blankproject.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.util.Date;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe POJO qui correpond au résumé d'un article retourné par les listes d'articles. Les champs du résumé faisant
+ * tous partie de l'index id_titre_publishedDate, la lecture d'une page de résumés est couverte par l'index.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ArticleSummary {
+    @Id
+    private String id;
+    private String titre;
+    private Date publishedDate;
+}
@@ -0,0 +1,30 @@
+package fr.iut.blankproject.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe POJO qui correspond à la référence vers l'utilisateur auteur d'un article ou d'un commentaire. Seuls l'id et
+ * le pseudo sont dénormalisés, l'utilisateur complet pouvant être obtenu à la demande à partir de l'id.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class AuthorRef {
+    private String id;
+    private String pseudo;
+
+    /**
+     * Construit la référence correspondant à l'utilisateur fourni
+     *
+     * @param user l'utilisateur
+     * @return la référence vers l'utilisateur
+     */
+    public static AuthorRef of(User user) {
+        return new AuthorRef(user.getId(), user.getPseudo());
+    }
+}
@@ -0,0 +1,32 @@
+package fr.iut.blankproject.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe POJO qui correspond au résultat de l'enregistrement d'un élément d'un envoi en masse. L'index correspond à la
+ * position de l'élément dans le corps de la requête, le champ "error" n'est renseigné qu'en cas d'échec.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;
+    private String id;
+    private boolean success;
+    private String error;
+
+    public static BulkItemResult success(int index, String id) {
+        return new BulkItemResult(index, id, true, null);
+    }
+
+    public static BulkItemResult failure(int index, String id, String error) {
+        return new BulkItemResult(index, id, false, error);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -19,6 +20,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class Commentaire {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String contenu;
-    private User utilisateur;
+    private AuthorRef utilisateur;
 }
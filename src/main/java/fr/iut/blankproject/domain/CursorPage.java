@@ -0,0 +1,20 @@
+package fr.iut.blankproject.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe POJO qui correspond à une page de résultats paginée par curseur. Le champ "next" contient le curseur opaque
+ * à fournir pour obtenir la page suivante, il est null lorsqu'il n'y a plus de résultats.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class CursorPage<T> {
+    private List<T> content;
+    private String next;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -23,12 +24,14 @@ import java.util.List;
 public class User {
     @Id
     private String id;
+    @Version
+    private Long version;
     @Indexed
     private String pseudo;
     private String password;
-    @DBRef
+    @DBRef(lazy = true)
     private List<Commentaire> commentaires;
-    @DBRef
+    @DBRef(lazy = true)
     private List<Article> articles;
     private Adresse adresse;
 }
@@ -2,16 +2,28 @@ package fr.iut.blankproject.exception;
 
 import fr.iut.blankproject.exception.article.ArticleNotFoundException;
 import fr.iut.blankproject.exception.article.ArticleSaveException;
+import fr.iut.blankproject.exception.bulk.InvalidBulkContentException;
 import fr.iut.blankproject.exception.commentaire.CommentaireNotFoundException;
 import fr.iut.blankproject.exception.commentaire.CommentaireSaveException;
+import fr.iut.blankproject.exception.pagination.InvalidCursorException;
+import fr.iut.blankproject.exception.projection.InvalidProjectionException;
+import fr.iut.blankproject.exception.search.SearchTimeoutException;
 import fr.iut.blankproject.exception.user.UserNotFoundException;
 import fr.iut.blankproject.exception.user.UserSaveException;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.PRECONDITION_REQUIRED;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 /**
@@ -42,4 +54,66 @@ public class CustomExceptionAdvisor {
     @ExceptionHandler({ArticleSaveException.class, UserSaveException.class, CommentaireSaveException.class})
     @ResponseStatus(UNPROCESSABLE_ENTITY)
     protected String saveExceptionHandler(Exception exception) { return exception.getMessage(); }
+
+    /**
+     * Retourne un code HTTP 400 lorsque les exceptions ci-dessous sont levées.
+     * @param exception exception levée
+     * @return le message de l'exception
+     */
+    @ResponseBody
+    @ExceptionHandler({InvalidCursorException.class, InvalidBulkContentException.class, InvalidProjectionException.class})
+    @ResponseStatus(BAD_REQUEST)
+    protected String badRequestExceptionHandler(Exception exception) {
+        return exception.getMessage();
+    }
+
+    /**
+     * Retourne un code HTTP 504 lorsque les exceptions ci-dessous sont levées.
+     * @param exception exception levée
+     * @return le message de l'exception
+     */
+    @ResponseBody
+    @ExceptionHandler(SearchTimeoutException.class)
+    @ResponseStatus(GATEWAY_TIMEOUT)
+    protected String timeoutExceptionHandler(Exception exception) {
+        return exception.getMessage();
+    }
+
+    /**
+     * Retourne un code HTTP 412 lorsque la version d'un document ne correspond pas à celle attendue par l'en-tête
+     * If-Match.
+     * @param exception exception levée
+     * @return le message de l'exception
+     */
+    @ResponseBody
+    @ExceptionHandler(VersionMismatchException.class)
+    @ResponseStatus(PRECONDITION_FAILED)
+    protected String preconditionFailedExceptionHandler(Exception exception) {
+        return exception.getMessage();
+    }
+
+    /**
+     * Retourne un code HTTP 428 lorsqu'un document est remplacé sans version attendue (ni en-tête If-Match, ni version
+     * dans le corps de la requête).
+     * @param exception exception levée
+     * @return le message de l'exception
+     */
+    @ResponseBody
+    @ExceptionHandler(VersionRequiredException.class)
+    @ResponseStatus(PRECONDITION_REQUIRED)
+    protected String preconditionRequiredExceptionHandler(Exception exception) {
+        return exception.getMessage();
+    }
+
+    /**
+     * Retourne un code HTTP 409 lorsqu'un document n'a pas pu être enregistré car il a été modifié en parallèle.
+     * @param exception exception levée
+     * @return le message de l'exception
+     */
+    @ResponseBody
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(CONFLICT)
+    protected String conflictExceptionHandler(Exception exception) {
+        return exception.getMessage();
+    }
 }
@@ -0,0 +1,11 @@
+package fr.iut.blankproject.exception.bulk;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand le corps d'un envoi en masse n'est ni un tableau JSON ni un flux NDJSON.
+ */
+public class InvalidBulkContentException extends RuntimeException {
+    public InvalidBulkContentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package fr.iut.blankproject.exception.pagination;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand le curseur de pagination fourni n'est pas valide.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
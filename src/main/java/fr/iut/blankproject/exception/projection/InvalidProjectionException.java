@@ -0,0 +1,11 @@
+package fr.iut.blankproject.exception.projection;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand un des champs demandés dans une projection n'existe pas.
+ */
+public class InvalidProjectionException extends RuntimeException {
+    public InvalidProjectionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package fr.iut.blankproject.exception.search;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand une recherche n'a pas pu être terminée dans le délai imparti.
+ */
+public class SearchTimeoutException extends RuntimeException {
+    public SearchTimeoutException(String message) {
+        super(message);
+    }
+}
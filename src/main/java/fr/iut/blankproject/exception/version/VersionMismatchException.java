@@ -0,0 +1,14 @@
+package fr.iut.blankproject.exception.version;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand un document ne peut pas être modifié car sa version ne correspond pas à la
+ * version attendue (en-tête If-Match).
+ */
+public class VersionMismatchException extends OptimisticLockingFailureException {
+    public VersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package fr.iut.blankproject.exception.version;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe représentant une exception quand un document ne peut pas être remplacé car aucune version n'est attendue
+ * (ni en-tête If-Match, ni version dans le document fourni).
+ */
+public class VersionRequiredException extends RuntimeException {
+    public VersionRequiredException(String message) {
+        super(message);
+    }
+}
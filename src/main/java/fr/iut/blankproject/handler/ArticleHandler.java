@@ -0,0 +1,103 @@
+package fr.iut.blankproject.handler;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.service.reactive.ReactiveArticleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Handler réactif qui permet de gérer les méthodes CRUD sur les articles (profil "reactive"). Les routes sont les
+ * mêmes que celles de {@link fr.iut.blankproject.controller.ArticleController}.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ArticleHandler {
+    private final ReactiveArticleService articleService;
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return Mono.defer(() -> articleService.findAll(RequestParams.cursor(request), RequestParams.size(request)))
+                .flatMap(articles -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(articles));
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return articleService.findById(request.pathVariable("id"))
+                .flatMap(article -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(article));
+    }
+
+    public Mono<ServerResponse> save(ServerRequest request) {
+        return request.bodyToMono(Article.class)
+                .flatMap(articleService::save)
+                .flatMap(article -> ServerResponse.status(CREATED).contentType(APPLICATION_JSON).bodyValue(article));
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return articleService.deleteById(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return request.bodyToMono(Article.class)
+                .flatMap(article -> articleService.update(request.pathVariable("id"), article))
+                .flatMap(article -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(article));
+    }
+
+    public Mono<ServerResponse> findByTitre(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                articleService.findByTitre(RequestParams.required(request, "titre")),
+                "Aucun article correspondant au titre recherché n'a été trouvé."));
+    }
+
+    public Mono<ServerResponse> findByTitreContaining(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                articleService.findByTitreContaining(RequestParams.required(request, "titre")),
+                "Aucun article correspondant au titre recherché n'a été trouvé."));
+    }
+
+    public Mono<ServerResponse> findByPublishedDateBetween(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                articleService.findByPublishedDateBetween(
+                        RequestParams.date(request, "from"), RequestParams.date(request, "to")),
+                "Aucun article correspondant à la plage de date fournie n'a été trouvé."));
+    }
+
+    public Mono<ServerResponse> findByMultipleCriteria(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                articleService.findByTitreContainingAndPublishedDateBetween(
+                        RequestParams.required(request, "titre"),
+                        RequestParams.date(request, "from"),
+                        RequestParams.date(request, "to")),
+                "Aucun article correspondant aux critères de recherches fournis n'a été trouvé."));
+    }
+
+    public Mono<ServerResponse> countBy(ServerRequest request) {
+        return articleService.countArticle()
+                .flatMap(count -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(count));
+    }
+
+    public Mono<ServerResponse> countByCommentaryByArticle(ServerRequest request) {
+        return okOrNotFound(articleService.countCommentaryByArticle(),
+                "Aucun article n'est présent en base de données.");
+    }
+
+    /**
+     * Retourne un code HTTP 200 avec les éléments trouvés, ou un code HTTP 404 avec le message fourni lorsqu'aucun
+     * élément n'a été trouvé.
+     */
+    static <T> Mono<ServerResponse> okOrNotFound(Flux<T> elements, String notFoundMessage) {
+        return elements.collectList()
+                .flatMap(list -> list.isEmpty()
+                        ? ServerResponse.status(NOT_FOUND).bodyValue(notFoundMessage)
+                        : ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(list));
+    }
+}
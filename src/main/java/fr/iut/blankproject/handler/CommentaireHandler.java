@@ -0,0 +1,54 @@
+package fr.iut.blankproject.handler;
+
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.service.reactive.ReactiveCommentaireService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Handler réactif qui permet de gérer les méthodes CRUD sur les commentaires (profil "reactive"). Les routes sont
+ * les mêmes que celles de {@link fr.iut.blankproject.controller.CommentaireController}.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class CommentaireHandler {
+    private final ReactiveCommentaireService commentaireService;
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return Mono.defer(() -> commentaireService.findAll(RequestParams.cursor(request), RequestParams.size(request)))
+                .flatMap(commentaires -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(commentaires));
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return commentaireService.findById(request.pathVariable("id"))
+                .flatMap(commentaire -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(commentaire));
+    }
+
+    public Mono<ServerResponse> save(ServerRequest request) {
+        return request.bodyToMono(Commentaire.class)
+                .flatMap(commentaireService::save)
+                .flatMap(commentaire -> ServerResponse.status(CREATED)
+                        .contentType(APPLICATION_JSON)
+                        .bodyValue(commentaire));
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return commentaireService.deleteById(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return request.bodyToMono(Commentaire.class)
+                .flatMap(commentaire -> commentaireService.update(request.pathVariable("id"), commentaire))
+                .flatMap(commentaire -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(commentaire));
+    }
+}
@@ -0,0 +1,99 @@
+package fr.iut.blankproject.handler;
+
+import fr.iut.blankproject.exception.article.ArticleNotFoundException;
+import fr.iut.blankproject.exception.article.ArticleSaveException;
+import fr.iut.blankproject.exception.commentaire.CommentaireNotFoundException;
+import fr.iut.blankproject.exception.commentaire.CommentaireSaveException;
+import fr.iut.blankproject.exception.pagination.InvalidCursorException;
+import fr.iut.blankproject.exception.user.UserNotFoundException;
+import fr.iut.blankproject.exception.user.UserSaveException;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_REQUIRED;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Configuration du mode d'exécution réactif (profil "reactive"): serveur Netty et routes fonctionnelles exposant les
+ * mêmes endpoints que les contrôleurs. Les exceptions métiers sont associées aux mêmes codes HTTP que dans
+ * {@link fr.iut.blankproject.exception.CustomExceptionAdvisor}.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveRouterConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveRoutes(ArticleHandler articleHandler,
+                                                         UserHandler userHandler,
+                                                         CommentaireHandler commentaireHandler) {
+        return route()
+                .nest(path("/api/v1.0/articles"), builder -> builder
+                        .GET("/search/titre/exact-matching", articleHandler::findByTitre)
+                        .GET("/search/titre/containing", articleHandler::findByTitreContaining)
+                        .GET("/search/published-date/between", articleHandler::findByPublishedDateBetween)
+                        .GET("/search", articleHandler::findByMultipleCriteria)
+                        .GET("/count", articleHandler::countBy)
+                        .GET("/commentary/count", articleHandler::countByCommentaryByArticle)
+                        .GET("/{id}", articleHandler::findById)
+                        .GET("", articleHandler::findAll)
+                        .POST("", articleHandler::save)
+                        .PUT("/{id}", articleHandler::update)
+                        .DELETE("/{id}", articleHandler::deleteById))
+                .nest(path("/api/v1.0/users"), builder -> builder
+                        .GET("/search/pseudo/exact-matching", userHandler::findByPseudo)
+                        .GET("/search/pseudo/containing", userHandler::findByPseudoContaining)
+                        .GET("/{id}", userHandler::findById)
+                        .GET("", userHandler::findAll)
+                        .POST("", userHandler::save)
+                        .PUT("/{id}", userHandler::update)
+                        .DELETE("/{id}", userHandler::deleteById))
+                .nest(path("/api/v1.0/commentaires"), builder -> builder
+                        .GET("/{id}", commentaireHandler::findById)
+                        .GET("", commentaireHandler::findAll)
+                        .POST("", commentaireHandler::save)
+                        .PUT("/{id}", commentaireHandler::update)
+                        .DELETE("/{id}", commentaireHandler::deleteById))
+                .onError(this::isNotFound, (exception, request) -> status(NOT_FOUND, exception))
+                .onError(this::isSaveError, (exception, request) -> status(UNPROCESSABLE_ENTITY, exception))
+                .onError(InvalidCursorException.class, (exception, request) -> status(BAD_REQUEST, exception))
+                .onError(VersionRequiredException.class,
+                        (exception, request) -> status(PRECONDITION_REQUIRED, exception))
+                .onError(OptimisticLockingFailureException.class, (exception, request) -> status(CONFLICT, exception))
+                .build();
+    }
+
+    private boolean isNotFound(Throwable exception) {
+        return exception instanceof ArticleNotFoundException
+                || exception instanceof UserNotFoundException
+                || exception instanceof CommentaireNotFoundException;
+    }
+
+    private boolean isSaveError(Throwable exception) {
+        return exception instanceof ArticleSaveException
+                || exception instanceof UserSaveException
+                || exception instanceof CommentaireSaveException;
+    }
+
+    private Mono<ServerResponse> status(HttpStatus status, Throwable exception) {
+        return ServerResponse.status(status).bodyValue(exception.getMessage());
+    }
+}
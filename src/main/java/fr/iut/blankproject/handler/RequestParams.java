@@ -0,0 +1,50 @@
+package fr.iut.blankproject.handler;
+
+import fr.iut.blankproject.utils.CursorUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire permettant de lire les paramètres des requêtes reçues par les handlers réactifs, avec les mêmes
+ * règles que les contrôleurs (paramètres obligatoires, dates au format yyyy-MM-dd).
+ */
+final class RequestParams {
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private RequestParams() {
+    }
+
+    static String required(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .orElseThrow(() -> new ResponseStatusException(
+                        BAD_REQUEST, String.format("Le paramètre %s est obligatoire.", name)));
+    }
+
+    static String cursor(ServerRequest request) {
+        return request.queryParam("cursor").orElse(null);
+    }
+
+    static int size(ServerRequest request) {
+        try {
+            return request.queryParam("size").map(Integer::parseInt).orElse(CursorUtils.DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException exception) {
+            throw new ResponseStatusException(BAD_REQUEST, "Le paramètre size doit être un entier.");
+        }
+    }
+
+    static Date date(ServerRequest request, String name) {
+        try {
+            return new SimpleDateFormat(DATE_PATTERN).parse(required(request, name));
+        } catch (ParseException exception) {
+            throw new ResponseStatusException(
+                    BAD_REQUEST, String.format("Le paramètre %s doit avoir le format %s.", name, DATE_PATTERN));
+        }
+    }
+}
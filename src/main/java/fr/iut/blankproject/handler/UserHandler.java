@@ -0,0 +1,65 @@
+package fr.iut.blankproject.handler;
+
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.service.reactive.ReactiveUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static fr.iut.blankproject.handler.ArticleHandler.okOrNotFound;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Handler réactif qui permet de gérer les méthodes CRUD sur les utilisateurs (profil "reactive"). Les routes sont
+ * les mêmes que celles de {@link fr.iut.blankproject.controller.UserController}.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class UserHandler {
+    private final ReactiveUserService userService;
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return Mono.defer(() -> userService.findAll(RequestParams.cursor(request), RequestParams.size(request)))
+                .flatMap(users -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(users));
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return userService.findById(request.pathVariable("id"))
+                .flatMap(user -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(user));
+    }
+
+    public Mono<ServerResponse> save(ServerRequest request) {
+        return request.bodyToMono(User.class)
+                .flatMap(userService::save)
+                .flatMap(user -> ServerResponse.status(CREATED).contentType(APPLICATION_JSON).bodyValue(user));
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return userService.deleteById(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return request.bodyToMono(User.class)
+                .flatMap(user -> userService.update(request.pathVariable("id"), user))
+                .flatMap(user -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(user));
+    }
+
+    public Mono<ServerResponse> findByPseudo(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                userService.findByPseudo(RequestParams.required(request, "pseudo")),
+                "Aucun utilisateur correspondant au pseudo recherché n'a été trouvé."));
+    }
+
+    public Mono<ServerResponse> findByPseudoContaining(ServerRequest request) {
+        return Mono.defer(() -> okOrNotFound(
+                userService.findByPseudoContaining(RequestParams.required(request, "pseudo")),
+                "Aucun utilisateur correspondant au pseudo recherché n'a été trouvé."));
+    }
+}
@@ -0,0 +1,45 @@
+package fr.iut.blankproject.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Mesure la durée de chaque appel de méthode dans un timer étiqueté par l'interface, la méthode, le résultat
+ * (SUCCESS ou ERROR) et le nom de l'exception levée. Pour les méthodes renvoyant un Stream, seule l'ouverture du
+ * curseur est mesurée, la lecture des documents étant faite par l'appelant.
+ */
+public class MethodMetricsInterceptor implements MethodInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final String metricName;
+    private final String typeTag;
+    private final String typeName;
+
+    public MethodMetricsInterceptor(MeterRegistry meterRegistry, String metricName, String typeTag, String typeName) {
+        this.meterRegistry = meterRegistry;
+        this.metricName = metricName;
+        this.typeTag = typeTag;
+        this.typeName = typeName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "None";
+        try {
+            return invocation.proceed();
+        } catch (Throwable throwable) {
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            sample.stop(Timer.builder(metricName)
+                    .tag(typeTag, typeName)
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("outcome", "None".equals(exception) ? "SUCCESS" : "ERROR")
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package fr.iut.blankproject.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Entoure d'un {@link MethodMetricsInterceptor} chaque bean implémentant une interface du package fourni qui étend le
+ * type de base fourni (par exemple les repositories ou les services). Le bean n'est alors plus exposé que sous cette
+ * interface. Les sous-packages ne sont pas concernés, ce qui exclut les repositories et les services réactifs, dont les
+ * méthodes rendent la main avant l'exécution de la requête.
+ */
+public class MethodMetricsPostProcessor implements BeanPostProcessor {
+    private final ObjectFactory<MeterRegistry> meterRegistry;
+    private final String metricName;
+    private final String typeTag;
+    private final String packageName;
+    private final Class<?> baseType;
+
+    /**
+     * @param meterRegistry le registre des métriques, résolu à la création du premier bean concerné afin de ne pas
+     *                      être instancié avant les autres post-processeurs
+     * @param metricName    le nom du timer
+     * @param typeTag       le nom de l'étiquette portant le nom de l'interface
+     * @param packageName   le package des interfaces à mesurer
+     * @param baseType      le type que doivent étendre les interfaces à mesurer
+     */
+    public MethodMetricsPostProcessor(ObjectFactory<MeterRegistry> meterRegistry, String metricName, String typeTag,
+                                      String packageName, Class<?> baseType) {
+        this.meterRegistry = meterRegistry;
+        this.metricName = metricName;
+        this.typeTag = typeTag;
+        this.packageName = packageName;
+        this.baseType = baseType;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return instrumentedInterface(bean)
+                .map(type -> {
+                    final ProxyFactory proxyFactory = new ProxyFactory();
+                    proxyFactory.setTarget(bean);
+                    proxyFactory.addInterface(type);
+                    proxyFactory.addAdvice(new MethodMetricsInterceptor(meterRegistry.getObject(), metricName, typeTag,
+                            type.getSimpleName()));
+
+                    return proxyFactory.getProxy(bean.getClass().getClassLoader());
+                })
+                .orElse(bean);
+    }
+
+    private Optional<Class<?>> instrumentedInterface(Object bean) {
+        return Arrays.stream(ClassUtils.getAllInterfaces(bean))
+                .filter(type -> packageName.equals(type.getPackageName()) && baseType.isAssignableFrom(type))
+                .findFirst();
+    }
+}
@@ -0,0 +1,47 @@
+package fr.iut.blankproject.metrics;
+
+import fr.iut.blankproject.service.CrudService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Configuration des métriques applicatives, en plus de celles fournies par l'actuator (dont http.server.requests pour
+ * les routes des contrôleurs):
+ * <ul>
+ *     <li>repository.invocations: durée de chaque appel aux méthodes des repositories (requêtes dérivées, @Query,
+ *     @Aggregation et fragments personnalisés)</li>
+ *     <li>service.invocations: durée de chaque appel aux méthodes des services</li>
+ *     <li>mongodb.driver.commands: durée de chaque commande envoyée par le driver MongoDB</li>
+ *     <li>mongodb.driver.pool.*: taille et occupation du pool de connexions du driver</li>
+ * </ul>
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public static MethodMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new MethodMetricsPostProcessor(registry, "repository.invocations", "repository",
+                "fr.iut.blankproject.repository", Repository.class);
+    }
+
+    @Bean
+    public static MethodMetricsPostProcessor serviceMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new MethodMetricsPostProcessor(registry, "service.invocations", "service",
+                "fr.iut.blankproject.service", CrudService.class);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoMetricsCustomizer(MeterRegistry meterRegistry) {
+        return builder -> builder
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)));
+    }
+}
@@ -0,0 +1,73 @@
+package fr.iut.blankproject.migration;
+
+import com.mongodb.client.result.UpdateResult;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Commentaire;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Migration permettant de remplacer les utilisateurs complets dénormalisés dans les articles et les commentaires par
+ * une {@link fr.iut.blankproject.domain.AuthorRef} (id et pseudo). Les champs superflus de l'utilisateur sont
+ * supprimés ($unset) uniquement sur les documents qui les contiennent encore, la migration peut donc être rejouée.
+ * Elle est exécutée au démarrage lorsque la propriété migration.author-ref.enabled vaut true.
+ */
+@Component
+@ConditionalOnProperty(name = "migration.author-ref.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AuthorRefMigration implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorRefMigration.class);
+    private static final List<String> USER_FIELDS_TO_REMOVE = Arrays.asList(
+            "password", "commentaires", "articles", "adresse");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        final UpdateResult articles = unsetUserFields(Article.class, "utilisateur");
+        final UpdateResult commentairesOfArticles = unsetUserFields(Article.class, "commentaires.utilisateur");
+        final UpdateResult commentaires = unsetUserFields(Commentaire.class, "utilisateur");
+
+        LOGGER.info("Migration des auteurs terminée: {} article(s), {} article(s) avec commentaires et {} commentaire(s) "
+                        + "mis à jour.",
+                articles.getModifiedCount(),
+                commentairesOfArticles.getModifiedCount(),
+                commentaires.getModifiedCount());
+    }
+
+    /**
+     * Supprime les champs superflus de l'utilisateur présent au chemin fourni, dans tous les documents de la collection
+     * qui contiennent encore au moins un de ces champs.
+     *
+     * @param entityClass la classe correspondant à la collection
+     * @param path        le chemin de l'utilisateur dans le document
+     * @return le résultat de la mise à jour
+     */
+    private UpdateResult unsetUserFields(Class<?> entityClass, String path) {
+        final String updatePath = path.startsWith("commentaires.")
+                ? path.replace("commentaires.", "commentaires.$[].")
+                : path;
+        final Criteria[] criteria = USER_FIELDS_TO_REMOVE.stream()
+                .map(field -> where(path + "." + field).exists(true))
+                .toArray(Criteria[]::new);
+        final Update update = new Update();
+        USER_FIELDS_TO_REMOVE.forEach(field -> update.unset(updatePath + "." + field));
+
+        return mongoTemplate.updateMulti(new Query(new Criteria().orOperator(criteria)), update, entityClass);
+    }
+}
@@ -0,0 +1,118 @@
+package fr.iut.blankproject.migration;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Migration permettant de réconcilier les index présents en base avec les index déclarés sur les entités (@Indexed,
+ * @CompoundIndex, @TextIndexed...). Les index déclarés absents de la base sont créés. Les index présents en base dont
+ * les clés ou les options ne correspondent plus à la déclaration, ainsi que les index qui ne sont plus déclarés, sont
+ * uniquement signalés: leur suppression reste une opération manuelle. La création automatique des index étant
+ * désactivée par défaut, la migration est exécutée au démarrage lorsque la propriété migration.indexes.enabled vaut
+ * true.
+ */
+@Component
+@ConditionalOnProperty(name = "migration.indexes.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class IndexMigration implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexMigration.class);
+    private static final List<Class<?>> ENTITIES = Arrays.asList(Article.class, User.class, Commentaire.class);
+    private static final String ID_INDEX = "_id_";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        final IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (Class<?> entityClass : ENTITIES) {
+            final IndexOperations indexOperations = mongoTemplate.indexOps(entityClass);
+            final Map<String, IndexInfo> existingIndexes = indexOperations.getIndexInfo().stream()
+                    .collect(Collectors.toMap(IndexInfo::getName, Function.identity(), (first, second) -> first,
+                            LinkedHashMap::new));
+
+            for (IndexDefinition index : indexResolver.resolveIndexFor(entityClass)) {
+                final String name = nameOf(index);
+                final IndexInfo existingIndex = existingIndexes.remove(name);
+                if (Objects.isNull(existingIndex)) {
+                    indexOperations.ensureIndex(index);
+                    LOGGER.info("Index {} créé sur la collection de {}.", name, entityClass.getSimpleName());
+                } else if (hasDrifted(index, existingIndex)) {
+                    LOGGER.warn("L'index {} de la collection de {} ne correspond plus à sa déclaration: {} en base, "
+                                    + "{} {} déclaré.",
+                            name, entityClass.getSimpleName(), existingIndex, index.getIndexKeys(),
+                            index.getIndexOptions());
+                }
+            }
+
+            existingIndexes.keySet().stream()
+                    .filter(name -> !ID_INDEX.equals(name))
+                    .forEach(name -> LOGGER.warn("L'index {} de la collection de {} n'est plus déclaré.",
+                            name, entityClass.getSimpleName()));
+        }
+    }
+
+    /**
+     * Retourne le nom de l'index déclaré, ou à défaut le nom que MongoDB lui attribue (clés et sens séparés par "_")
+     */
+    private static String nameOf(IndexDefinition index) {
+        final Object name = index.getIndexOptions().get("name");
+        if (Objects.nonNull(name)) {
+            return name.toString();
+        }
+        return index.getIndexKeys().entrySet().stream()
+                .map(key -> key.getKey() + "_" + key.getValue())
+                .collect(Collectors.joining("_"));
+    }
+
+    /**
+     * Indique si l'index présent en base ne correspond plus à l'index déclaré: clés (hors index texte, dont les clés
+     * sont transformées par MongoDB), unicité ou caractère creux différents
+     */
+    private static boolean hasDrifted(IndexDefinition index, IndexInfo existingIndex) {
+        final Document options = index.getIndexOptions();
+        if (Boolean.TRUE.equals(options.get("unique")) != existingIndex.isUnique()
+                || Boolean.TRUE.equals(options.get("sparse")) != existingIndex.isSparse()) {
+            return true;
+        }
+        if (existingIndex.getIndexFields().stream().anyMatch(IndexField::isText)) {
+            return false;
+        }
+        final List<String> existingKeys = existingIndex.getIndexFields().stream()
+                .map(field -> field.getKey() + "_" + (field.getDirection() == Sort.Direction.DESC ? -1 : 1))
+                .collect(Collectors.toList());
+        final List<String> declaredKeys = index.getIndexKeys().entrySet().stream()
+                .map(key -> key.getKey() + "_" + key.getValue())
+                .collect(Collectors.toList());
+
+        return !declaredKeys.equals(existingKeys);
+    }
+}
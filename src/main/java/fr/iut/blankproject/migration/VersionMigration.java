@@ -0,0 +1,52 @@
+package fr.iut.blankproject.migration;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Migration permettant d'initialiser à 0 le champ "version" des articles, des utilisateurs et des commentaires
+ * enregistrés avant son ajout. Seuls les documents qui n'ont pas encore de version sont modifiés, la migration peut
+ * donc être rejouée. Elle est exécutée au démarrage lorsque la propriété migration.versions.enabled vaut true.
+ */
+@Component
+@ConditionalOnProperty(name = "migration.versions.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class VersionMigration implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VersionMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        LOGGER.info("Migration des versions terminée: {} article(s), {} utilisateur(s) et {} commentaire(s) mis à jour.",
+                initVersion(Article.class),
+                initVersion(User.class),
+                initVersion(Commentaire.class));
+    }
+
+    /**
+     * Initialise à 0 la version des documents de la collection qui n'en ont pas
+     *
+     * @param entityClass la classe correspondant à la collection
+     * @return le nombre de documents modifiés
+     */
+    private long initVersion(Class<?> entityClass) {
+        return mongoTemplate.updateMulti(
+                new Query(where("version").exists(false)), new Update().set("version", 0L), entityClass)
+                .getModifiedCount();
+    }
+}
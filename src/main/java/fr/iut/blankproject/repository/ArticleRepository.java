@@ -4,25 +4,40 @@ import fr.iut.blankproject.domain.Article;
 import fr.iut.blankproject.domain.ArticleAggregate;
 import fr.iut.blankproject.domain.ArticleCountAggregate;
 import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ArticleRepository extends MongoRepository<Article, String> {
+public interface ArticleRepository extends MongoRepository<Article, String>, ArticleRepositoryCustom {
+    List<Article> findAllBy(Pageable pageable);
+
+    List<Article> findByIdGreaterThan(String id, Pageable pageable);
+
+    Stream<Article> streamAllBy();
+
     List<Article> findByTitre(String titre);
 
+    List<Article> findAllBy(TextCriteria criteria, Pageable pageable);
+
     @Query("{ titre: { $regex: ?0, $options: i } }")
-    List<Article> findByTitreContaining(String titre);
+    List<Article> findByTitreContaining(String titre, Pageable pageable);
 
     List<Article> findByPublishedDateBetween(Date from, Date to);
 
     @Query("{ titre: { $regex: ?0, $options: i }, publishedDate : { $gte: ?1, $lte: ?2 } }")
     List<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to);
 
+    @Query(value = "{ _id: { $in: ?0 }, publishedDate : { $gte: ?1, $lte: ?2 } }", sort = "{ publishedDate: 1 }")
+    List<Article> findByIdInAndPublishedDateBetween(Collection<String> ids, Date from, Date to);
+
     @Aggregation("{ $group: { _id : null, countArticle: { $sum: 1 } } } ")
     ArticleCountAggregate countArticle();
 
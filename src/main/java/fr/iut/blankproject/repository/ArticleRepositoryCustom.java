@@ -0,0 +1,38 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ArticleRepositoryCustom {
+    Optional<Long> findVersion(String id);
+
+    Optional<Article> replace(String id, Article replacement, Long expectedVersion);
+
+    Optional<Article> patch(String id, Update update, Long expectedVersion);
+
+    long removeById(String id);
+
+    Map<Integer, String> bulkSave(List<Article> documents);
+
+    Optional<Article> pushCommentaire(String id, Commentaire commentaire, int maxCommentaires);
+
+    List<ArticleAggregate> countCommentaryPage(String afterId, int limit, Date from, Date to, boolean allowDiskUse);
+
+    List<ArticleAggregate> findTopCommented(int limit, Date from, Date to, boolean allowDiskUse);
+
+    List<Article> findPage(String afterId, int limit, Collection<String> fields);
+
+    List<ArticleSummary> findSummaryPage(String afterId, int limit);
+
+    List<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to, Duration maxTime);
+}
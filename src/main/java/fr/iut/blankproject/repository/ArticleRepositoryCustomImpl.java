@@ -0,0 +1,215 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Implémentation des requêtes personnalisées sur les articles.
+ */
+public class ArticleRepositoryCustomImpl extends CustomRepositorySupport<Article> implements ArticleRepositoryCustom {
+    private static final List<String> SUMMARY_FIELDS = Arrays.asList("id", "titre", "publishedDate");
+    public ArticleRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        super(mongoTemplate, Article.class);
+    }
+
+    /**
+     * Ajoute de manière atomique ($push) le commentaire fourni à la fin des commentaires de l'article, sans réécrire
+     * le reste du tableau. Lorsqu'un nombre maximum est fourni, seuls les derniers commentaires sont conservés ($slice).
+     * L'article modifié est retourné par la même commande (findAndModify), en ne lisant que sa version et l'id de ses
+     * commentaires, afin que l'appelant connaisse le nombre de commentaires correspondant à la nouvelle version.
+     *
+     * @param id              l'id de l'article
+     * @param commentaire     le commentaire à ajouter
+     * @param maxCommentaires le nombre maximum de commentaires conservés (0 pour ne pas limiter)
+     * @return l'article après l'ajout (id, version et id des commentaires), vide si l'article n'existe pas
+     */
+    @Override
+    public Optional<Article> pushCommentaire(String id, Commentaire commentaire, int maxCommentaires) {
+        final Update update = new Update();
+        final Update.PushOperatorBuilder push = update.push("commentaires");
+        if (maxCommentaires > 0) {
+            push.slice(-maxCommentaires);
+        }
+        push.each(commentaire);
+        update.inc(VERSION, 1);
+        final Query query = byId(id);
+        query.fields().include(VERSION).include("commentaires._id");
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), entityClass));
+    }
+
+    /**
+     * Compte le nombre de commentaires des articles, page par page, dans l'ordre des ids. Les filtres (plage de dates
+     * de publication et id du dernier article de la page précédente) sont appliqués dans un $match placé en tête du
+     * pipeline afin de pouvoir utiliser les index, et seuls les articles de la page sont projetés.
+     *
+     * @param afterId      l'id du dernier article de la page précédente (null pour la première page)
+     * @param limit        le nombre maximum d'articles à retourner
+     * @param from         la date de publication minimale (incluse, optionnelle)
+     * @param to           la date de publication maximale (incluse, optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque pour les étapes volumineuses
+     * @return le nombre de commentaires des articles de la page
+     */
+    @Override
+    public List<ArticleAggregate> countCommentaryPage(String afterId,
+                                                      int limit,
+                                                      Date from,
+                                                      Date to,
+                                                      boolean allowDiskUse) {
+        final List<AggregationOperation> operations = new ArrayList<>();
+        final Criteria criteria = publishedDateCriteria(from, to);
+        if (Objects.nonNull(afterId)) {
+            criteria.and("_id").gt(toId(afterId));
+        }
+        operations.add(Aggregation.match(criteria));
+        operations.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+        operations.add(Aggregation.limit(limit));
+        operations.add(countCommentaryProjection());
+
+        return aggregate(operations, allowDiskUse);
+    }
+
+    /**
+     * Retourne les articles les plus commentés. Le tri suivi de la limite ($sort + $limit) permet à la base de ne
+     * conserver que les N premiers articles pendant le tri.
+     *
+     * @param limit        le nombre d'articles à retourner
+     * @param from         la date de publication minimale (incluse, optionnelle)
+     * @param to           la date de publication maximale (incluse, optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque pour les étapes volumineuses
+     * @return les articles les plus commentés, du plus commenté au moins commenté
+     */
+    @Override
+    public List<ArticleAggregate> findTopCommented(int limit, Date from, Date to, boolean allowDiskUse) {
+        final List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(publishedDateCriteria(from, to)));
+        operations.add(countCommentaryProjection());
+        operations.add(Aggregation.sort(Sort.by(Sort.Order.desc("countCommentary"), Sort.Order.asc("_id"))));
+        operations.add(Aggregation.limit(limit));
+
+        return aggregate(operations, allowDiskUse);
+    }
+
+    /**
+     * Retourne une page d'articles triés par id, dont seuls les champs fournis sont lus (projection). Lorsque tous
+     * les champs demandés font partie de l'index id_titre_publishedDate, la requête peut être résolue uniquement à
+     * partir de cet index, sans lire les documents.
+     *
+     * @param afterId l'id du dernier article de la page précédente (null pour la première page)
+     * @param limit   le nombre maximum d'articles à retourner
+     * @param fields  les champs à lire (l'id est toujours lu)
+     * @return la page d'articles, dont seuls les champs demandés sont renseignés
+     */
+    @Override
+    public List<Article> findPage(String afterId, int limit, Collection<String> fields) {
+        return mongoTemplate.find(pageQuery(afterId, limit, fields), entityClass);
+    }
+
+    /**
+     * Retourne une page de résumés d'articles triés par id. Les champs du résumé faisant tous partie de l'index
+     * id_titre_publishedDate, la requête peut être résolue uniquement à partir de cet index.
+     *
+     * @param afterId l'id du dernier article de la page précédente (null pour la première page)
+     * @param limit   le nombre maximum de résumés à retourner
+     * @return la page de résumés d'articles
+     */
+    @Override
+    public List<ArticleSummary> findSummaryPage(String afterId, int limit) {
+        return mongoTemplate.find(pageQuery(afterId, limit, SUMMARY_FIELDS), ArticleSummary.class,
+                mongoTemplate.getCollectionName(entityClass));
+    }
+
+    /**
+     * Retourne les articles dont le titre correspond à l'expression fournie (insensible à la casse) et publiés entre
+     * les deux dates, triés par date de publication. La requête est interrompue par MongoDB au-delà de la durée
+     * fournie, afin qu'une recherche abandonnée par l'appelant ne continue pas d'occuper la base.
+     *
+     * @param titre   l'expression recherchée dans le titre
+     * @param from    la date de publication minimale (incluse)
+     * @param to      la date de publication maximale (incluse)
+     * @param maxTime la durée maximale d'exécution de la requête
+     * @return les articles correspondants, triés par date de publication
+     */
+    @Override
+    public List<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to,
+                                                                      Duration maxTime) {
+        final Query query = new Query(where("titre").regex(titre, "i").and("publishedDate").gte(from).lte(to))
+                .with(Sort.by("publishedDate"))
+                .maxTime(maxTime);
+
+        return mongoTemplate.find(query, entityClass);
+    }
+
+    private Query pageQuery(String afterId, int limit, Collection<String> fields) {
+        final Query query = new Query().with(Sort.by("_id")).limit(limit);
+        if (Objects.nonNull(afterId)) {
+            query.addCriteria(where("_id").gt(toId(afterId)));
+        }
+        fields.stream()
+                .filter(field -> !"id".equals(field))
+                .forEach(field -> query.fields().include(field));
+        return query;
+    }
+
+    private Criteria publishedDateCriteria(Date from, Date to) {
+        if (Objects.isNull(from) && Objects.isNull(to)) {
+            return new Criteria();
+        }
+        final Criteria criteria = where("publishedDate");
+        if (Objects.nonNull(from)) {
+            criteria.gte(from);
+        }
+        if (Objects.nonNull(to)) {
+            criteria.lte(to);
+        }
+        return criteria;
+    }
+
+    private ProjectionOperation countCommentaryProjection() {
+        return Aggregation.project("_id", "titre")
+                .and(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("commentaires").then(Collections.emptyList())))
+                .as("countCommentary");
+    }
+
+    /**
+     * Exécute le pipeline sur la collection des articles. Le pipeline désigne les champs par leur nom en base (_id,
+     * countCommentary): il est donc exécuté sur le nom de la collection et non sur la classe Article, dont le contexte
+     * rejetterait ces noms qui ne sont pas des propriétés de la classe.
+     */
+    private List<ArticleAggregate> aggregate(List<AggregationOperation> operations, boolean allowDiskUse) {
+        final Aggregation aggregation = Aggregation.newAggregation(operations)
+                .withOptions(AggregationOptions.builder().allowDiskUse(allowDiskUse).build());
+
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(entityClass),
+                ArticleAggregate.class).getMappedResults();
+    }
+}
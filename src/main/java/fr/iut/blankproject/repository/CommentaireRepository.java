@@ -1,9 +1,15 @@
 package fr.iut.blankproject.repository;
 
 import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface CommentaireRepository extends MongoRepository<Commentaire, String> {
+public interface CommentaireRepository extends MongoRepository<Commentaire, String>, CommentaireRepositoryCustom {
+    List<Commentaire> findAllBy(Pageable pageable);
+
+    List<Commentaire> findByIdGreaterThan(String id, Pageable pageable);
 }
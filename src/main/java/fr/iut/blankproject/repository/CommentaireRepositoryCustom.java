@@ -0,0 +1,19 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CommentaireRepositoryCustom {
+    Optional<Long> findVersion(String id);
+
+    Optional<Commentaire> replace(String id, Commentaire replacement, Long expectedVersion);
+
+    Optional<Commentaire> patch(String id, Update update, Long expectedVersion);
+
+    long removeById(String id);
+
+    void insertAll(List<Commentaire> commentaires);
+}
@@ -0,0 +1,43 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.ErrorCategory;
+import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Implémentation des requêtes personnalisées sur les commentaires.
+ */
+public class CommentaireRepositoryCustomImpl extends CustomRepositorySupport<Commentaire>
+        implements CommentaireRepositoryCustom {
+    public CommentaireRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        super(mongoTemplate, Commentaire.class);
+    }
+
+    /**
+     * Insère les commentaires fournis, qui doivent déjà avoir un id, en un seul envoi non ordonné (insert de plusieurs
+     * documents). Les commentaires déjà présents en base sont ignorés: un même lot peut ainsi être inséré de nouveau,
+     * par exemple lorsqu'il est relu depuis un journal après un arrêt brutal.
+     *
+     * @param commentaires les commentaires à insérer
+     */
+    @Override
+    public void insertAll(List<Commentaire> commentaires) {
+        if (commentaires.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass).insert(commentaires).execute();
+        } catch (BulkOperationException exception) {
+            final boolean onlyDuplicates = exception.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe de base des implémentations des requêtes personnalisées. Elle regroupe les écritures qui ne peuvent pas être
+ * exprimées avec les méthodes dérivées des repositories et qui doivent être réalisées en un seul aller-retour avec la
+ * base.
+ * Toutes ces écritures incrémentent le champ "version" des documents (annoté {@link
+ * org.springframework.data.annotation.Version} sur les entités), qui sert d'ETag aux réponses HTTP. Un document
+ * antérieur à ce champ est considéré en version 0.
+ */
+public abstract class CustomRepositorySupport<T> {
+    protected static final String VERSION = "version";
+
+    protected final MongoTemplate mongoTemplate;
+    protected final Class<T> entityClass;
+
+    protected CustomRepositorySupport(MongoTemplate mongoTemplate, Class<T> entityClass) {
+        this.mongoTemplate = mongoTemplate;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Retourne la version du document correspondant à l'id fourni. Seul le champ "version" est lu en base, le document
+     * n'est pas converti en entité.
+     *
+     * @param id l'id du document
+     * @return la version du document, vide si aucun document ne correspond à l'id
+     */
+    public Optional<Long> findVersion(String id) {
+        return findVersionDocument(id).map(CustomRepositorySupport::versionOf);
+    }
+
+    /**
+     * Remplace le document correspondant à l'id fourni (findAndReplace) et retourne le document remplacé. Le
+     * remplacement n'est appliqué que si le document est encore dans la version attendue, la version du nouveau
+     * document étant la version attendue incrémentée. Sans version attendue, la version portée par le nouveau document
+     * est attendue de la même manière. Lorsqu'aucune des deux n'est fournie, le remplacement est refusé: il écraserait
+     * sans le savoir les modifications faites depuis la lecture du document.
+     *
+     * @param id              l'id du document
+     * @param replacement     le nouveau document
+     * @param expectedVersion la version attendue du document (null pour utiliser celle du nouveau document)
+     * @return le document après remplacement, vide si aucun document ne correspond à l'id
+     * @throws VersionMismatchException          si le document n'est pas dans la version attendue
+     * @throws OptimisticLockingFailureException si le document n'est pas dans la version portée par le nouveau
+     *                                           document
+     * @throws VersionRequiredException          si aucune version n'est attendue ni portée par le nouveau document
+     */
+    public Optional<T> replace(String id, T replacement, Long expectedVersion) {
+        final MongoPersistentEntity<?> entity = persistentEntity();
+        final MongoPersistentProperty versionProperty = entity.getRequiredVersionProperty();
+        final PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(replacement);
+
+        if (expectedVersion != null) {
+            accessor.setProperty(versionProperty, expectedVersion + 1);
+            final T replaced = mongoTemplate.findAndReplace(
+                    byIdAndVersion(id, expectedVersion), replacement, FindAndReplaceOptions.options().returnNew());
+
+            return replaced != null ? Optional.of(replaced) : versionMismatch(id, expectedVersion);
+        }
+        final Long providedVersion = (Long) accessor.getProperty(versionProperty);
+        if (providedVersion == null) {
+            throw new VersionRequiredException(String.format(
+                    "Impossible de remplacer le document avec l'id %s sans connaître la version modifiée: fournir "
+                            + "l'en-tête If-Match ou la version du document.", id));
+        }
+        accessor.setProperty(versionProperty, providedVersion + 1);
+        final T replaced = mongoTemplate.findAndReplace(
+                byIdAndVersion(id, providedVersion), replacement, FindAndReplaceOptions.options().returnNew());
+
+        return replaced != null ? Optional.of(replaced) : versionConflict(id, providedVersion);
+    }
+
+    /**
+     * Applique la mise à jour partielle fournie au document correspondant à l'id (findAndModify) et retourne le
+     * document modifié. Lorsqu'une version est attendue, la mise à jour n'est appliquée que si le document est encore
+     * dans cette version.
+     *
+     * @param id              l'id du document
+     * @param update          la mise à jour ($set / $unset) à appliquer, à laquelle est ajoutée l'incrémentation de
+     *                        la version
+     * @param expectedVersion la version attendue du document (null pour modifier la version courante)
+     * @return le document après modification, vide si aucun document ne correspond à l'id
+     * @throws VersionMismatchException si le document n'est pas dans la version attendue
+     */
+    public Optional<T> patch(String id, Update update, Long expectedVersion) {
+        final Query query = expectedVersion != null ? byIdAndVersion(id, expectedVersion) : byId(id);
+        final T patched = mongoTemplate.findAndModify(
+                query, update.inc(VERSION, 1), FindAndModifyOptions.options().returnNew(true), entityClass);
+
+        if (patched == null && expectedVersion != null) {
+            return versionMismatch(id, expectedVersion);
+        }
+
+        return Optional.ofNullable(patched);
+    }
+
+    /**
+     * Supprime le document correspondant à l'id fourni
+     *
+     * @param id l'id du document
+     * @return le nombre de documents supprimés
+     */
+    public long removeById(String id) {
+        return mongoTemplate.remove(byId(id), entityClass).getDeletedCount();
+    }
+
+    /**
+     * Enregistre les documents fournis en un seul envoi non ordonné (bulkWrite): un document sans id est inséré après
+     * s'être vu attribuer un nouvel id, un document avec id remplace le document existant ou est créé s'il n'existe
+     * pas (upsert). Les versions des documents existants sont lues en une seule requête: un document existant n'est
+     * remplacé que s'il est encore dans la version portée par le document fourni (ou, à défaut, dans la version lue),
+     * sans upsert. Un document dont la version ne correspond pas n'est pas envoyé et est signalé en erreur, de même
+     * qu'un document modifié en parallèle entre la lecture des versions et l'envoi. Un id présent plusieurs fois dans
+     * l'envoi n'est enregistré qu'à sa première occurrence, les suivantes étant signalées en erreur: elles porteraient
+     * sinon la même version attendue et une seule serait appliquée, sans erreur. Un document en erreur n'empêche pas
+     * l'enregistrement des autres.
+     * Les champs d'audit (@CreatedDate) ne sont pas renseignés: un document inséré reçoit son id et sa version avant
+     * l'envoi et n'est donc pas considéré comme nouveau, ils doivent être renseignés par l'appelant.
+     *
+     * @param documents les documents à enregistrer
+     * @return les messages d'erreur des documents qui n'ont pas pu être enregistrés, indexés par leur position dans
+     * la liste fournie
+     */
+    public Map<Integer, String> bulkSave(List<T> documents) {
+        if (documents.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final MongoPersistentEntity<?> entity = persistentEntity();
+        final MongoPersistentProperty idProperty = entity.getRequiredIdProperty();
+        final MongoPersistentProperty versionProperty = entity.getRequiredVersionProperty();
+        final Map<Object, Document> currentVersions = findVersionDocuments(documents.stream()
+                .map(document -> entity.getPropertyAccessor(document).getProperty(idProperty))
+                .filter(Objects::nonNull)
+                .map(id -> toId(id.toString()))
+                .collect(Collectors.toList()));
+        final BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        final Map<Integer, String> errors = new HashMap<>();
+        final List<Integer> positions = new ArrayList<>(documents.size());
+        final Map<Integer, Long> expectedVersions = new HashMap<>();
+        final Set<Object> batchIds = new HashSet<>();
+
+        for (int index = 0; index < documents.size(); index++) {
+            final PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(documents.get(index));
+            final Object id = accessor.getProperty(idProperty);
+            if (id == null) {
+                accessor.setProperty(idProperty, new ObjectId().toHexString());
+                accessor.setProperty(versionProperty, 0L);
+                bulkOperations.insert(accessor.getBean());
+                positions.add(index);
+                continue;
+            }
+            if (!batchIds.add(toId(id.toString()))) {
+                errors.put(index, String.format("Impossible d'enregistrer le document avec l'id %s car il figure "
+                        + "plusieurs fois dans l'envoi: seule sa première occurrence est enregistrée.", id));
+                continue;
+            }
+            final Document current = currentVersions.get(toId(id.toString()));
+            if (current == null) {
+                accessor.setProperty(versionProperty, 0L);
+                bulkOperations.replaceOne(byId(id.toString()), accessor.getBean(),
+                        FindAndReplaceOptions.options().upsert());
+                positions.add(index);
+                continue;
+            }
+            final long currentVersion = versionOf(current);
+            final Long providedVersion = (Long) accessor.getProperty(versionProperty);
+            final long expectedVersion = providedVersion != null ? providedVersion : currentVersion;
+            if (expectedVersion != currentVersion) {
+                errors.put(index, versionMismatchMessage(id.toString(), currentVersion, expectedVersion));
+                continue;
+            }
+            accessor.setProperty(versionProperty, expectedVersion + 1);
+            bulkOperations.replaceOne(byIdAndVersion(id.toString(), expectedVersion), accessor.getBean());
+            positions.add(index);
+            expectedVersions.put(index, expectedVersion);
+        }
+        if (positions.isEmpty()) {
+            return errors;
+        }
+
+        BulkWriteResult result;
+        try {
+            result = bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            result = exception.getResult();
+            exception.getErrors().forEach(error -> errors.put(positions.get(error.getIndex()), error.getMessage()));
+        }
+        // Seul un remplacement conditionnel dont le document a changé de version depuis la lecture peut n'avoir ni
+        // modifié, ni créé, ni inséré de document sans lever d'erreur.
+        final int written = result.getInsertedCount() + result.getMatchedCount() + result.getUpserts().size();
+        if (written + errors.size() < documents.size()) {
+            reportConcurrentReplacements(documents, entity, expectedVersions, errors);
+        }
+
+        return errors;
+    }
+
+    protected Query byId(String id) {
+        return new Query(where("_id").is(toId(id)));
+    }
+
+    /**
+     * Construit la requête ne correspondant au document que s'il est encore dans la version fournie (la version 0
+     * correspondant aussi à un document antérieur au champ "version")
+     *
+     * @param id      l'id du document
+     * @param version la version attendue
+     * @return la requête
+     */
+    protected Query byIdAndVersion(String id, long version) {
+        final Criteria criteria = where("_id").is(toId(id));
+
+        return new Query(version == 0 ? criteria.and(VERSION).in(0L, null) : criteria.and(VERSION).is(version));
+    }
+
+    /**
+     * Lève l'exception correspondant à une écriture conditionnelle qui n'a pas été appliquée, si le document existe
+     *
+     * @param id              l'id du document
+     * @param expectedVersion la version attendue du document
+     * @return vide si aucun document ne correspond à l'id
+     * @throws VersionMismatchException si le document existe dans une autre version
+     */
+    private Optional<T> versionMismatch(String id, long expectedVersion) {
+        final Optional<Long> current = findVersion(id);
+        if (current.isPresent()) {
+            throw new VersionMismatchException(versionMismatchMessage(id, current.get(), expectedVersion));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Lève l'exception correspondant à un remplacement qui n'a pas été appliqué car la version portée par le nouveau
+     * document n'est plus celle en base, si le document existe
+     *
+     * @param id              l'id du document
+     * @param providedVersion la version portée par le nouveau document
+     * @return vide si aucun document ne correspond à l'id
+     * @throws OptimisticLockingFailureException si le document existe dans une autre version
+     */
+    private Optional<T> versionConflict(String id, long providedVersion) {
+        final Optional<Long> current = findVersion(id);
+        if (current.isPresent()) {
+            throw new OptimisticLockingFailureException(versionMismatchMessage(id, current.get(), providedVersion));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Signale en erreur les remplacements de l'envoi en masse qui n'ont pas été appliqués, le document ayant été
+     * modifié ou supprimé entre la lecture des versions et l'envoi
+     */
+    private void reportConcurrentReplacements(List<T> documents,
+                                              MongoPersistentEntity<?> entity,
+                                              Map<Integer, Long> expectedVersions,
+                                              Map<Integer, String> errors) {
+        final MongoPersistentProperty idProperty = entity.getRequiredIdProperty();
+        final Map<Integer, String> ids = expectedVersions.keySet().stream()
+                .filter(index -> !errors.containsKey(index))
+                .collect(Collectors.toMap(index -> index,
+                        index -> entity.getPropertyAccessor(documents.get(index)).getProperty(idProperty).toString()));
+        final Map<Object, Document> currentVersions = findVersionDocuments(ids.values().stream()
+                .map(this::toId)
+                .collect(Collectors.toList()));
+
+        ids.forEach((index, id) -> {
+            final long expectedVersion = expectedVersions.get(index);
+            final Document current = currentVersions.get(toId(id));
+            if (current == null) {
+                errors.put(index, String.format(
+                        "Impossible de modifier le document avec l'id %s car il a été supprimé.", id));
+            } else if (versionOf(current) != expectedVersion + 1) {
+                errors.put(index, versionMismatchMessage(id, versionOf(current), expectedVersion));
+            }
+        });
+    }
+
+    private static String versionMismatchMessage(String id, long currentVersion, long expectedVersion) {
+        return String.format("Impossible de modifier le document avec l'id %s car sa version (%d) ne correspond pas "
+                + "à la version attendue (%d).", id, currentVersion, expectedVersion);
+    }
+
+    private Optional<Document> findVersionDocument(String id) {
+        final Query query = byId(id);
+        query.fields().include(VERSION);
+
+        return Optional.ofNullable(mongoTemplate.findOne(query, Document.class, collectionName()));
+    }
+
+    private Map<Object, Document> findVersionDocuments(List<Object> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Query query = new Query(where("_id").in(ids));
+        query.fields().include(VERSION);
+
+        return mongoTemplate.find(query, Document.class, collectionName()).stream()
+                .collect(Collectors.toMap(document -> document.get("_id"), document -> document));
+    }
+
+    private static long versionOf(Document document) {
+        final Number version = document.get(VERSION, Number.class);
+
+        return version == null ? 0L : version.longValue();
+    }
+
+    private MongoPersistentEntity<?> persistentEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+    }
+
+    private String collectionName() {
+        return mongoTemplate.getCollectionName(entityClass);
+    }
+
+    protected Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
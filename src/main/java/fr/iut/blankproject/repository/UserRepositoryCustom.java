@@ -0,0 +1,22 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.User;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    List<User> findPage(String afterId, int limit, boolean withReferences);
+
+    Optional<Long> findVersion(String id);
+
+    Optional<User> replace(String id, User replacement, Long expectedVersion);
+
+    Optional<User> patch(String id, Update update, Long expectedVersion);
+
+    long removeById(String id);
+
+    Map<Integer, String> bulkSave(List<User> documents);
+}
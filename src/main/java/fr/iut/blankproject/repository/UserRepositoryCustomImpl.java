@@ -0,0 +1,131 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.DBRef;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Implémentation des requêtes personnalisées sur les utilisateurs. Les références (@DBRef) vers les articles et les
+ * commentaires d'une page d'utilisateurs sont résolues en lot: tous les ids référencés par la page sont collectés
+ * puis lus avec une seule requête $in par collection, au lieu d'une requête par utilisateur et par liste.
+ */
+public class UserRepositoryCustomImpl extends CustomRepositorySupport<User> implements UserRepositoryCustom {
+    private static final String ARTICLES = "articles";
+    private static final String COMMENTAIRES = "commentaires";
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        super(mongoTemplate, User.class);
+    }
+
+    /**
+     * Retourne une page d'utilisateurs triés par id, dont l'id est strictement supérieur à l'id fourni
+     *
+     * @param afterId        l'id du dernier utilisateur de la page précédente (null pour la première page)
+     * @param limit          le nombre maximum d'utilisateurs à retourner
+     * @param withReferences true pour résoudre les articles et les commentaires des utilisateurs, false pour ne pas
+     *                       les lire du tout
+     * @return la page d'utilisateurs
+     */
+    @Override
+    public List<User> findPage(String afterId, int limit, boolean withReferences) {
+        final Query query = new Query().with(Sort.by("_id")).limit(limit);
+        if (Objects.nonNull(afterId)) {
+            query.addCriteria(where("_id").gt(toId(afterId)));
+        }
+        if (!withReferences) {
+            query.fields().exclude(ARTICLES).exclude(COMMENTAIRES);
+        }
+        final List<Document> documents = mongoTemplate.find(
+                query, Document.class, mongoTemplate.getCollectionName(User.class));
+
+        return withReferences ? readWithReferences(documents) : read(documents);
+    }
+
+    private List<User> read(List<Document> documents) {
+        return documents.stream()
+                .map(document -> mongoTemplate.getConverter().read(User.class, document))
+                .collect(Collectors.toList());
+    }
+
+    private List<User> readWithReferences(List<Document> documents) {
+        final List<List<Object>> articleIds = new ArrayList<>(documents.size());
+        final List<List<Object>> commentaireIds = new ArrayList<>(documents.size());
+        documents.forEach(document -> {
+            articleIds.add(referencedIds(document.remove(ARTICLES)));
+            commentaireIds.add(referencedIds(document.remove(COMMENTAIRES)));
+        });
+
+        final Map<Object, Article> articles = findAllByIds(articleIds, Article.class, Article::getId);
+        final Map<Object, Commentaire> commentaires = findAllByIds(commentaireIds, Commentaire.class, Commentaire::getId);
+
+        final List<User> users = read(documents);
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setArticles(resolve(articleIds.get(i), articles));
+            users.get(i).setCommentaires(resolve(commentaireIds.get(i), commentaires));
+        }
+
+        return users;
+    }
+
+    /**
+     * Retourne les ids contenus dans la liste de références lue en base (DBRef ou document { $ref, $id })
+     */
+    private List<Object> referencedIds(Object references) {
+        if (!(references instanceof Collection)) {
+            return null;
+        }
+
+        return ((Collection<?>) references).stream()
+                .map(reference -> reference instanceof DBRef
+                        ? ((DBRef) reference).getId()
+                        : reference instanceof Document ? ((Document) reference).get("$id") : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lit en une seule requête $in tous les documents référencés par la page, indexés par leur id
+     */
+    private <E> Map<Object, E> findAllByIds(List<List<Object>> ids, Class<E> type, Function<E, String> idGetter) {
+        final Set<Object> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return mongoTemplate.find(new Query(where("_id").in(distinctIds)), type).stream()
+                .collect(Collectors.toMap(entity -> toId(idGetter.apply(entity)), Function.identity()));
+    }
+
+    private <E> List<E> resolve(List<Object> ids, Map<Object, E> entities) {
+        if (Objects.isNull(ids)) {
+            return null;
+        }
+
+        return ids.stream()
+                .map(entities::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
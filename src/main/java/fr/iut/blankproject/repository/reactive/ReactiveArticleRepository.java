@@ -0,0 +1,44 @@
+package fr.iut.blankproject.repository.reactive;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleCountAggregate;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+@Repository
+@Profile("reactive")
+public interface ReactiveArticleRepository extends ReactiveMongoRepository<Article, String> {
+    Flux<Article> findAllBy(Pageable pageable);
+
+    Flux<Article> findByIdGreaterThan(String id, Pageable pageable);
+
+    Flux<Article> findByTitre(String titre);
+
+    @Query("{ titre: { $regex: ?0, $options: i } }")
+    Flux<Article> findByTitreContaining(String titre);
+
+    Flux<Article> findByPublishedDateBetween(Date from, Date to);
+
+    @Query("{ titre: { $regex: ?0, $options: i }, publishedDate : { $gte: ?1, $lte: ?2 } }")
+    Flux<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to);
+
+    @Aggregation("{ $group: { _id : null, countArticle: { $sum: 1 } } } ")
+    Mono<ArticleCountAggregate> countArticle();
+
+    @Aggregation("{ $project:\n" +
+            "    {\n" +
+            "        \"titre\": 1,\n" +
+            "        \"countCommentary\": { $cond: { if: { $ifNull: [ \"$commentaires\", 0 ] }, then: { $size: \"$commentaires\" }, else: 0 } }\n" +
+            "    }\n" +
+            "    }")
+    Flux<ArticleAggregate> countCommentaryByArticle();
+}
@@ -0,0 +1,16 @@
+package fr.iut.blankproject.repository.reactive;
+
+import fr.iut.blankproject.domain.Commentaire;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+@Profile("reactive")
+public interface ReactiveCommentaireRepository extends ReactiveMongoRepository<Commentaire, String> {
+    Flux<Commentaire> findAllBy(Pageable pageable);
+
+    Flux<Commentaire> findByIdGreaterThan(String id, Pageable pageable);
+}
@@ -0,0 +1,35 @@
+package fr.iut.blankproject.repository.reactive;
+
+import fr.iut.blankproject.domain.User;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Le driver réactif ne permet pas de résoudre les @DBRef: les articles et les commentaires des utilisateurs ne sont
+ * donc pas lus par les requêtes ci-dessous.
+ */
+@Repository
+@Profile("reactive")
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+    String WITHOUT_REFERENCES = "{ articles: 0, commentaires: 0 }";
+
+    @Query(value = "{}", fields = WITHOUT_REFERENCES)
+    Flux<User> findAllBy(Pageable pageable);
+
+    @Query(value = "{ _id: { $gt: ?0 } }", fields = WITHOUT_REFERENCES)
+    Flux<User> findByIdGreaterThan(String id, Pageable pageable);
+
+    @Query(value = "{ _id: ?0 }", fields = WITHOUT_REFERENCES)
+    Mono<User> findWithoutReferencesById(String id);
+
+    @Query(value = "{ pseudo: ?0 }", fields = WITHOUT_REFERENCES)
+    Flux<User> findByPseudo(String pseudo);
+
+    @Query(value = "{ pseudo: { $regex: ?0, $options: i } }", fields = WITHOUT_REFERENCES)
+    Flux<User> findByPseudoContaining(String pseudo);
+}
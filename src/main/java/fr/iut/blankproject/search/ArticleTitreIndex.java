@@ -0,0 +1,11 @@
+package fr.iut.blankproject.search;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Index en mémoire des titres des articles, utilisé pour la recherche des articles dont le titre contient un texte.
+ */
+@Component
+public class ArticleTitreIndex extends TrigramIndex {
+}
@@ -0,0 +1,57 @@
+package fr.iut.blankproject.search;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.User;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Charge au démarrage les index en mémoire des titres d'articles et des pseudos d'utilisateurs. Les collections sont
+ * lues avec un curseur, en ne projetant que l'id et le champ indexé. Le chargement est exécuté lorsque la propriété
+ * search.index.enabled vaut true, les recherches interrogeant la base tant que les index ne sont pas chargés.
+ */
+@Component
+@ConditionalOnProperty(name = "search.index.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SearchIndexLoader implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ArticleTitreIndex articleTitreIndex;
+    private final UserPseudoIndex userPseudoIndex;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        load(articleTitreIndex, Article.class, "titre", Article::getId, Article::getTitre);
+        load(userPseudoIndex, User.class, "pseudo", User::getId, User::getPseudo);
+    }
+
+    private <T> void load(TrigramIndex index,
+                          Class<T> entityClass,
+                          String field,
+                          Function<T, String> idGetter,
+                          Function<T, String> valueGetter) {
+        final Query query = new Query();
+        query.fields().include(field);
+
+        index.startLoading();
+        try (CloseableIterator<T> documents = mongoTemplate.stream(query, entityClass)) {
+            documents.forEachRemaining(document -> index.load(idGetter.apply(document), valueGetter.apply(document)));
+        }
+        index.finishLoading();
+
+        LOGGER.info("Index en mémoire du champ {} de {} chargé: {} document(s).",
+                field, entityClass.getSimpleName(), index.size());
+    }
+}
@@ -0,0 +1,299 @@
+package fr.iut.blankproject.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Index inversé en mémoire permettant de chercher, sans interroger la base, les documents dont une valeur textuelle
+ * contient une chaîne donnée (recherche insensible à la casse). Chaque valeur est découpée en trigrammes (suites de 3
+ * caractères) et chaque trigramme référence la liste triée des numéros internes des documents qui le contiennent,
+ * stockée dans un tableau d'entiers. Une recherche intersecte les listes des trigrammes de la chaîne recherchée puis
+ * vérifie les candidats.
+ * <p>
+ * L'index est d'abord chargé à partir d'une lecture complète de la collection ({@link #startLoading()},
+ * {@link #load(String, String)}, {@link #finishLoading()}), puis maintenu à jour à chaque écriture
+ * ({@link #put(String, String)}, {@link #remove(String)}). Tant que le chargement n'est pas terminé, il ne doit pas
+ * être utilisé pour répondre aux recherches ({@link #isReady()}).
+ */
+public class TrigramIndex {
+    private static final int GRAM = 3;
+    /**
+     * Nombre minimal de numéros supprimés avant de compacter les listes, afin qu'un petit index ne soit pas reconstruit
+     * à chaque modification
+     */
+    private static final int MIN_REMOVED_BEFORE_COMPACTION = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Set<String> writtenWhileLoading = new HashSet<>();
+    private int removedCount;
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    /**
+     * Indique si l'index est chargé et peut répondre aux recherches
+     *
+     * @return true si l'index est prêt
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Démarre le chargement de l'index: à partir de cet instant, les écritures sont prises en compte
+     */
+    public void startLoading() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute une valeur lue lors du chargement. La valeur est ignorée si le document a été écrit ou supprimé depuis le
+     * début du chargement, la valeur écrite étant plus récente que la valeur lue.
+     *
+     * @param id    l'id du document
+     * @param value la valeur à indexer
+     */
+    public void load(String id, String value) {
+        lock.writeLock().lock();
+        try {
+            if (!writtenWhileLoading.contains(id)) {
+                index(id, value);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Termine le chargement: l'index peut désormais répondre aux recherches
+     */
+    public void finishLoading() {
+        lock.writeLock().lock();
+        try {
+            writtenWhileLoading.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute ou remplace la valeur indexée pour le document fourni. Sans effet si l'index n'est pas utilisé.
+     *
+     * @param id    l'id du document
+     * @param value la valeur à indexer (null pour ne plus indexer le document)
+     */
+    public void put(String id, String value) {
+        if (!loading || Objects.isNull(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                writtenWhileLoading.add(id);
+            }
+            index(id, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire le document fourni de l'index. Sans effet si l'index n'est pas utilisé.
+     *
+     * @param id l'id du document
+     */
+    public void remove(String id) {
+        put(id, null);
+    }
+
+    /**
+     * Retourne les ids des documents dont la valeur contient la chaîne fournie, sans tenir compte de la casse
+     *
+     * @param text la chaîne recherchée
+     * @return les ids des documents correspondant, dans l'ordre d'indexation
+     */
+    public List<String> search(String text) {
+        return search(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retourne au plus limit ids de documents dont la valeur contient la chaîne fournie, sans tenir compte de la casse.
+     * La recherche s'arrête dès que limit documents ont été trouvés.
+     *
+     * @param text  la chaîne recherchée
+     * @param limit le nombre maximum d'ids à retourner
+     * @return les ids des premiers documents correspondant, dans l'ordre d'indexation
+     */
+    public List<String> search(String text, int limit) {
+        final String normalized = normalize(text);
+        lock.readLock().lock();
+        try {
+            final List<String> found = new ArrayList<>();
+            if (normalized.length() < GRAM) {
+                for (int ordinal = 0; ordinal < values.size() && found.size() < limit; ordinal++) {
+                    addIfMatches(ordinal, normalized, found);
+                }
+                return found;
+            }
+
+            final PostingList[] lists = new LinkedHashSet<>(grams(normalized)).stream()
+                    .map(postings::get)
+                    .toArray(PostingList[]::new);
+            if (Arrays.stream(lists).anyMatch(Objects::isNull)) {
+                return found;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            final PostingList smallest = lists[0];
+            for (int i = 0; i < smallest.size && found.size() < limit; i++) {
+                final int ordinal = smallest.ordinals[i];
+                boolean inAll = true;
+                for (int j = 1; j < lists.length && inAll; j++) {
+                    inAll = lists[j].contains(ordinal);
+                }
+                if (inAll) {
+                    addIfMatches(ordinal, normalized, found);
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne le nombre de documents indexés
+     *
+     * @return le nombre de documents indexés
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addIfMatches(int ordinal, String normalized, List<String> found) {
+        final String value = values.get(ordinal);
+        if (Objects.nonNull(value) && value.contains(normalized)) {
+            found.add(ids.get(ordinal));
+        }
+    }
+
+    /**
+     * Indexe la valeur du document sous un nouveau numéro interne, toujours croissant afin que les listes restent
+     * triées sans insertion. L'ancien numéro du document est simplement marqué comme supprimé, les listes étant
+     * compactées lorsque les numéros supprimés deviennent majoritaires.
+     */
+    private void index(String id, String value) {
+        final Integer previous = ordinals.remove(id);
+        if (Objects.nonNull(previous)) {
+            ids.set(previous, null);
+            values.set(previous, null);
+            removedCount++;
+        }
+        if (Objects.nonNull(value)) {
+            final String normalized = normalize(value);
+            final int ordinal = ids.size();
+            ids.add(id);
+            values.add(normalized);
+            ordinals.put(id, ordinal);
+            for (String gram : new LinkedHashSet<>(grams(normalized))) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).add(ordinal);
+            }
+        }
+        if (removedCount > MIN_REMOVED_BEFORE_COMPACTION && removedCount > ordinals.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        final int[] remapped = new int[ids.size()];
+        final List<String> liveIds = new ArrayList<>(ordinals.size());
+        final List<String> liveValues = new ArrayList<>(ordinals.size());
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+            if (Objects.nonNull(ids.get(ordinal))) {
+                remapped[ordinal] = liveIds.size();
+                ordinals.put(ids.get(ordinal), liveIds.size());
+                liveIds.add(ids.get(ordinal));
+                liveValues.add(values.get(ordinal));
+            } else {
+                remapped[ordinal] = -1;
+            }
+        }
+        ids.clear();
+        ids.addAll(liveIds);
+        values.clear();
+        values.addAll(liveValues);
+        postings.values().forEach(list -> list.remap(remapped));
+        postings.values().removeIf(list -> list.size == 0);
+        removedCount = 0;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> grams(String value) {
+        final List<String> grams = new ArrayList<>(Math.max(0, value.length() - GRAM + 1));
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Liste triée de numéros internes de documents, stockée dans un tableau d'entiers agrandi au besoin
+     */
+    private static final class PostingList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        private boolean contains(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+        }
+
+        private void remap(int[] remapped) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                final int ordinal = remapped[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept++] = ordinal;
+                }
+            }
+            size = kept;
+            if (size < ordinals.length / 4) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(4, size));
+            }
+        }
+    }
+}
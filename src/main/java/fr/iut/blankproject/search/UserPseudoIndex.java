@@ -0,0 +1,12 @@
+package fr.iut.blankproject.search;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Index en mémoire des pseudos des utilisateurs, utilisé pour la recherche des utilisateurs dont le pseudo contient
+ * un texte.
+ */
+@Component
+public class UserPseudoIndex extends TrigramIndex {
+}
@@ -1,17 +1,34 @@
 package fr.iut.blankproject.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import fr.iut.blankproject.domain.Article;
 import fr.iut.blankproject.domain.ArticleAggregate;
 import fr.iut.blankproject.domain.ArticleCountAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface ArticleService extends CrudService<String, Article> {
+    CursorPage<Map<String, Object>> findAll(String cursor, int size, Set<String> fields);
+
+    CursorPage<ArticleSummary> findSummaries(String cursor, int size);
+
+    Stream<Article> streamAll();
+
     List<Article> findByTitre(String titre);
 
     List<Article> findByTitreContaining(String titre);
 
+    List<Article> searchText(String text, int page, int size);
+
     List<Article> findByPublishedDateBetween(Date from, Date to);
 
     List<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to);
@@ -19,4 +36,16 @@ public interface ArticleService extends CrudService<String, Article> {
     ArticleCountAggregate countArticle();
 
     List<ArticleAggregate> countCommentaryByArticle();
+
+    CursorPage<ArticleAggregate> countCommentaryByArticle(String cursor,
+                                                          int size,
+                                                          Date from,
+                                                          Date to,
+                                                          boolean allowDiskUse);
+
+    List<ArticleAggregate> findTopCommented(int limit, Date from, Date to, boolean allowDiskUse);
+
+    Commentaire addCommentaire(String id, Commentaire commentaire);
+
+    List<BulkItemResult> saveAll(Iterator<JsonNode> articles);
 }
@@ -1,15 +1,25 @@
 package fr.iut.blankproject.service;
 
+import fr.iut.blankproject.domain.CursorPage;
+
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface CrudService<ID, T>  {
     List<T> findAll();
 
+    CursorPage<T> findAll(String cursor, int size);
+
     T findById(ID id);
 
+    Optional<Long> findVersion(ID id);
+
     T save(T toSave);
 
     void deleteById(ID id);
 
-    T update(ID id, T toUpdate);
+    T update(ID id, T toUpdate, Long expectedVersion);
+
+    T patch(ID id, Map<String, Object> patch, Long expectedVersion);
 }
@@ -1,11 +1,22 @@
 package fr.iut.blankproject.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.domain.User;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 public interface UserService extends CrudService<String, User> {
+    CursorPage<User> findAll(String cursor, int size, boolean withReferences);
+
     List<User> findByPseudo(String pseudo);
 
     List<User> findByPseudoContaining(String pseudo);
+
+    List<User> findAllById(Collection<String> ids);
+
+    List<BulkItemResult> saveAll(Iterator<JsonNode> users);
 }
@@ -0,0 +1,160 @@
+package fr.iut.blankproject.service.fanout;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import fr.iut.blankproject.exception.search.SearchTimeoutException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Exécute une requête portant sur une période en la découpant en sous-périodes contiguës (shards), interrogées en
+ * parallèle sur un pool de threads borné. Chaque shard renvoyant ses résultats triés par date, la fusion consiste à
+ * concaténer les résultats dans l'ordre des shards, sans tri supplémentaire.
+ * <p>
+ * Configuration:
+ * <ul>
+ *     <li>search.fan-out.shards: nombre maximum de shards (1 pour ne pas découper)</li>
+ *     <li>search.fan-out.min-shard-range: durée minimale d'un shard, une période courte n'est pas découpée</li>
+ *     <li>search.fan-out.threads: nombre de threads du pool, lorsque sa file est pleine le shard est exécuté par le
+ *     thread appelant</li>
+ *     <li>search.fan-out.shard-timeout: délai accordé à la recherche, compté dès son appel: le temps restant est
+ *     transmis à MongoDB (maxTimeMS) par chaque shard</li>
+ * </ul>
+ */
+@Component
+public class FanOutQueryExecutor implements DisposableBean {
+    private final int shards;
+    private final long minShardMillis;
+    private final Duration shardTimeout;
+    private final ThreadPoolExecutor executor;
+
+    public FanOutQueryExecutor(@Value("${search.fan-out.shards:4}") int shards,
+                               @Value("${search.fan-out.min-shard-range:7d}") Duration minShardRange,
+                               @Value("${search.fan-out.threads:8}") int threads,
+                               @Value("${search.fan-out.shard-timeout:5s}") Duration shardTimeout) {
+        this.shards = Math.max(1, shards);
+        this.minShardMillis = Math.max(1, minShardRange.toMillis());
+        this.shardTimeout = shardTimeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * this.shards), new CustomizableThreadFactory("search-fan-out-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Exécute la requête sur la période fournie, découpée en shards interrogés en parallèle
+     *
+     * @param from       le début de la période (inclus)
+     * @param to         la fin de la période (incluse)
+     * @param shardQuery la requête d'un shard, qui doit renvoyer ses résultats triés par date
+     * @param <T>        le type des résultats
+     * @return les résultats de tous les shards, triés par date
+     */
+    public <T> List<T> query(Date from, Date to, ShardQuery<T> shardQuery) {
+        final long deadline = System.nanoTime() + shardTimeout.toNanos();
+        final List<Date[]> ranges = split(from, to);
+        if (ranges.size() == 1) {
+            return find(shardQuery, from, to, deadline);
+        }
+
+        final List<Future<List<T>>> futures = new ArrayList<>(ranges.size());
+        final List<T> results = new ArrayList<>();
+        try {
+            for (Date[] range : ranges) {
+                futures.add(executor.submit(() -> find(shardQuery, range[0], range[1], deadline)));
+            }
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException e) {
+            throw timeout();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchTimeoutException("La recherche a été interrompue.");
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        return results;
+    }
+
+    /**
+     * Interroge un shard avec le temps restant avant l'échéance de la recherche, transmis à MongoDB (maxTimeMS). Un
+     * shard qui démarre après l'échéance (file d'attente, exécution par le thread appelant) n'est pas interrogé, et
+     * l'interruption d'une requête par MongoDB est signalée comme un dépassement du délai de la recherche.
+     */
+    private <T> List<T> find(ShardQuery<T> shardQuery, Date from, Date to, long deadline) {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw timeout();
+        }
+        try {
+            return shardQuery.find(from, to, Duration.ofMillis(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))));
+        } catch (RuntimeException exception) {
+            if (NestedExceptionUtils.getMostSpecificCause(exception) instanceof MongoExecutionTimeoutException) {
+                throw timeout();
+            }
+            throw exception;
+        }
+    }
+
+    private SearchTimeoutException timeout() {
+        return new SearchTimeoutException(String.format(
+                "La recherche n'a pas pu être terminée en moins de %d ms.", shardTimeout.toMillis()));
+    }
+
+    /**
+     * Découpe la période en sous-périodes contiguës et disjointes (à la milliseconde près), d'une durée au moins égale
+     * à la durée minimale d'un shard
+     *
+     * @param from le début de la période (inclus)
+     * @param to   la fin de la période (incluse)
+     * @return les sous-périodes, dans l'ordre chronologique
+     */
+    List<Date[]> split(Date from, Date to) {
+        final long start = from.getTime();
+        final long range = to.getTime() - start + 1;
+        final int count = (int) Math.max(1, Math.min(shards, range / minShardMillis));
+        final List<Date[]> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long shardStart = start + range * i / count;
+            final long shardEnd = start + range * (i + 1) / count - 1;
+            ranges.add(new Date[]{new Date(shardStart), new Date(shardEnd)});
+        }
+
+        return ranges;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Requête portant sur une sous-période
+     *
+     * @param <T> le type des résultats
+     */
+    @FunctionalInterface
+    public interface ShardQuery<T> {
+        List<T> find(Date from, Date to, Duration maxTime);
+    }
+}
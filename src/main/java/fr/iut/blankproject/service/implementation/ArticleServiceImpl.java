@@ -1,19 +1,56 @@
 package fr.iut.blankproject.service.implementation;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.iut.blankproject.domain.Article;
 import fr.iut.blankproject.domain.ArticleAggregate;
 import fr.iut.blankproject.domain.ArticleCountAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.exception.article.ArticleNotFoundException;
 import fr.iut.blankproject.exception.article.ArticleSaveException;
+import fr.iut.blankproject.exception.projection.InvalidProjectionException;
 import fr.iut.blankproject.repository.ArticleRepository;
+import fr.iut.blankproject.search.ArticleTitreIndex;
 import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.service.fanout.FanOutQueryExecutor;
+import fr.iut.blankproject.service.validation.ArticleValidator;
+import fr.iut.blankproject.statistics.ArticleStatistics;
+import fr.iut.blankproject.utils.BulkUtils;
+import fr.iut.blankproject.utils.CursorUtils;
+import fr.iut.blankproject.utils.MergePatchUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static fr.iut.blankproject.service.validation.ArticleValidator.checkArticleToPatch;
+import static fr.iut.blankproject.service.validation.ArticleValidator.checkArticleToSave;
 
 /**
  * @author florian935, NathanRenaud1997
@@ -22,7 +59,28 @@ import java.util.Objects;
 @Service
 @RequiredArgsConstructor
 public class ArticleServiceImpl implements ArticleService {
+    private static final TypeReference<Map<String, Object>> FIELDS_TYPE = new TypeReference<>() {
+    };
+    private static final Set<String> NOT_PROJECTABLE_FIELDS = Set.of("score");
+
     private final ArticleRepository articleRepository;
+    private final CommentaireService commentaireService;
+    private final ArticleTitreIndex articleTitreIndex;
+    private final ArticleStatistics articleStatistics;
+    private final FanOutQueryExecutor fanOutQueryExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Value("${article.commentaires.max:0}")
+    private int maxCommentaires;
+
+    @Value("${bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
+    @Value("${search.index.max-results:1000}")
+    private int searchMaxResults;
+
+    @Value("${search.index.ids-per-query:1000}")
+    private int searchIdsPerQuery;
 
     /**
      * Retourne la liste de tous les articles
@@ -35,12 +93,89 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     /**
-     * Retourne l'article correspondant à l'ID fourni en parmamètre
+     * Retourne une page d'articles triés par id, à partir du curseur fourni (pagination keyset)
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page d'articles
+     */
+    @Override
+    public CursorPage<Article> findAll(String cursor, int size) {
+        final int pageSize = CursorUtils.boundSize(size);
+        final PageRequest pageRequest = CursorUtils.pageRequest(pageSize);
+        final List<Article> articles = Objects.isNull(cursor)
+                ? articleRepository.findAllBy(pageRequest)
+                : articleRepository.findByIdGreaterThan(CursorUtils.decode(cursor), pageRequest);
+
+        return CursorUtils.toPage(articles, pageSize, Article::getId);
+    }
+
+    /**
+     * Retourne une page d'articles triée par id, dont seuls les champs fournis sont lus en base et retournés
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page (bornée à 100)
+     * @param fields les champs à retourner (l'id est toujours retourné)
+     * @return une page d'articles réduits aux champs demandés
+     */
+    @Override
+    public CursorPage<Map<String, Object>> findAll(String cursor, int size, Set<String> fields) {
+        checkProjection(fields);
+        final int pageSize = CursorUtils.boundSize(size);
+        final String afterId = Objects.isNull(cursor) ? null : CursorUtils.decode(cursor);
+        final List<Article> articles = articleRepository.findPage(afterId, pageSize + 1, fields);
+        final CursorPage<Article> page = CursorUtils.toPage(articles, pageSize, Article::getId);
+
+        final Set<String> fieldsWithId = new HashSet<>(fields);
+        fieldsWithId.add("id");
+        final List<Map<String, Object>> content = page.getContent().stream()
+                .map(article -> {
+                    final Map<String, Object> values = objectMapper.convertValue(article, FIELDS_TYPE);
+                    values.keySet().retainAll(fieldsWithId);
+                    return values;
+                })
+                .collect(Collectors.toList());
+
+        return new CursorPage<>(content, page.getNext());
+    }
+
+    /**
+     * Retourne une page de résumés d'articles (id, titre et date de publication), triée par id
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page (bornée à 100)
+     * @return une page de résumés d'articles
+     */
+    @Override
+    public CursorPage<ArticleSummary> findSummaries(String cursor, int size) {
+        final int pageSize = CursorUtils.boundSize(size);
+        final String afterId = Objects.isNull(cursor) ? null : CursorUtils.decode(cursor);
+        final List<ArticleSummary> summaries = articleRepository.findSummaryPage(afterId, pageSize + 1);
+
+        return CursorUtils.toPage(summaries, pageSize, ArticleSummary::getId);
+    }
+
+    /**
+     * Retourne un flux de tous les articles, lus au fur et à mesure depuis un curseur Mongo. Le flux doit être fermé
+     * par l'appelant afin de libérer le curseur.
+     *
+     * @return le flux des articles
+     */
+    @Override
+    public Stream<Article> streamAll() {
+        return articleRepository.streamAllBy();
+    }
+
+    /**
+     * Retourne l'article correspondant à l'ID fourni en parmamètre.
+     * Le résultat est conservé dans le cache "articles", invalidé à chaque enregistrement, mise à jour ou
+     * suppression de l'article.
      *
      * @param id id de l'article
      * @return l'article
      */
     @Override
+    @Cacheable(cacheNames = "articles", key = "#id")
     public Article findById(String id) {
         return articleRepository
                 .findById(id)
@@ -50,37 +185,32 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     /**
-     * Enregistre en base l'article fourni en paramètre
+     * Retourne la version de l'article correspondant à l'ID fourni en paramètre, sans lire le reste du document.
+     * Elle permet de répondre aux requêtes conditionnelles (If-None-Match).
      *
-     * @param article l'article à enregistrer
-     * @return l'article sauvegardé
+     * @param id l'id de l'article
+     * @return la version de l'article, vide s'il n'existe pas
      */
     @Override
-    public Article save(Article article) {
-        checkArticleToSave(article);
-        return articleRepository.save(article);
+    public Optional<Long> findVersion(String id) {
+        return articleRepository.findVersion(id);
     }
 
     /**
-     * Permet de vérifier que tous les attributs requis de l'article qui va être enregistré sont présents
+     * Enregistre en base l'article fourni en paramètre
      *
-     * @param article l'article à vérifier
+     * @param article l'article à enregistrer
+     * @return l'article sauvegardé
      */
-    private void checkArticleToSave(Article article) {
-        StringBuilder errorMessage = new StringBuilder();
-        boolean thereIsAProblem = false;
-        if (!StringUtils.hasText(article.getTitre())) {
-            errorMessage.append("Impossible d'enregistrer cette article car le titre est manquant. \n");
-            thereIsAProblem = true;
-        }
-        if (Objects.isNull(article.getUtilisateur())) {
-            errorMessage.append("Impossible d'enregistrer cette article car aucun utilisateur n'y est rattaché.");
-            thereIsAProblem = true;
-        }
+    @Override
+    @CacheEvict(cacheNames = "articles", key = "#result.id")
+    public Article save(Article article) {
+        checkArticleToSave(article);
+        final Article articleSaved = articleRepository.save(article);
+        articleTitreIndex.put(articleSaved.getId(), articleSaved.getTitre());
+        articleStatistics.put(articleSaved);
 
-        if (thereIsAProblem) {
-            throw new ArticleSaveException(errorMessage.toString());
-        }
+        return articleSaved;
     }
 
     /**
@@ -89,36 +219,65 @@ public class ArticleServiceImpl implements ArticleService {
      * @param id l'id de l'article
      */
     @Override
+    @CacheEvict(cacheNames = "articles", key = "#id")
     public void deleteById(String id) {
-        articleRepository.findById(id).ifPresentOrElse(
-                article -> articleRepository.deleteById(id),
-                () -> {
-                    throw new ArticleNotFoundException(
-                            String.format("Impossible de supprimer l'article avec l'id %s car il n'existe pas.", id));
-                });
+        if (articleRepository.removeById(id) == 0) {
+            throw new ArticleNotFoundException(
+                    String.format("Impossible de supprimer l'article avec l'id %s car il n'existe pas.", id));
+        }
+        articleTitreIndex.remove(id);
+        articleStatistics.remove(id);
     }
 
     /**
      * Permet de mettre à jour en base l'article fourni en paramètre
      *
-     * @param id      l'id de l'article
-     * @param article l'article à mettre à jour
+     * @param id              l'id de l'article
+     * @param article         l'article à mettre à jour
+     * @param expectedVersion la version attendue (If-Match), null pour utiliser la version portée par le document
      * @return l'article mis à jour
      */
     @Override
-    public Article update(String id, Article article) {
+    @CacheEvict(cacheNames = "articles", key = "#id")
+    public Article update(String id, Article article, Long expectedVersion) {
         article.setId(id);
+        checkArticleToSave(article);
+
+        final Article articleUpdated = articleRepository.replace(id, article, expectedVersion)
+                .orElseThrow(() -> new ArticleSaveException(
+                        String.format("Impossible de mettre à jour l'article avec l'id %s car il n'existe pas.", id)));
+        articleTitreIndex.put(id, articleUpdated.getTitre());
+        articleStatistics.put(articleUpdated);
+
+        return articleUpdated;
+    }
 
-        articleRepository.findById(id).ifPresentOrElse(
-                a -> {
-                    checkArticleToSave(article);
-                    articleRepository.save(article);
-                }, () -> {
-                    throw new ArticleSaveException(String.format("Impossible de mettre à jour l'article avec l'id %s car il n'existe pas.", id));
-                }
-        );
+    /**
+     * Permet de modifier partiellement en base l'article correspondant à l'ID fourni, à partir d'un JSON Merge Patch.
+     * Seuls les champs présents dans le patch sont vérifiés et envoyés à la base ($set / $unset).
+     * Un patch vide accompagné d'une version attendue est tout de même envoyé à la base pour vérifier la version.
+     *
+     * @param id              l'id de l'article
+     * @param patch           le JSON Merge Patch à appliquer
+     * @param expectedVersion la version attendue (If-Match), null pour modifier la version courante
+     * @return l'article modifié
+     */
+    @Override
+    @CacheEvict(cacheNames = "articles", key = "#id")
+    public Article patch(String id, Map<String, Object> patch, Long expectedVersion) {
+        checkArticleToPatch(patch);
+        if (patch.isEmpty() && Objects.isNull(expectedVersion)) {
+            return findById(id);
+        }
+        final Update update = MergePatchUtils.toUpdate(patch, Article.class, objectMapper, ArticleSaveException::new);
+
+        final Article articlePatched = articleRepository.patch(id, update, expectedVersion)
+                .orElseThrow(() -> new ArticleSaveException(
+                        String.format("Impossible de modifier l'article avec l'id %s car il n'existe pas.", id)));
+        articleTitreIndex.put(id, articlePatched.getTitre());
+        articleStatistics.put(articlePatched);
 
-        return articleRepository.findById(id).get();
+        return articlePatched;
     }
 
     /**
@@ -133,14 +292,41 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     /**
-     * Permet de chercher en base tous les articles dont le titre contient le titre fourni en paramètre
+     * Permet de chercher les articles dont le titre contient le titre fourni en paramètre, dans la limite de
+     * search.index.max-results articles. Lorsque l'index en mémoire des titres est chargé, les articles correspondant
+     * y sont cherchés puis lus en une seule requête ($in), sinon la recherche est effectuée en base.
      *
      * @param titre le titre à rechercher
      * @return la liste des articles correspondant
      */
     @Override
     public List<Article> findByTitreContaining(String titre) {
-        return articleRepository.findByTitreContaining(titre);
+        if (!articleTitreIndex.isReady()) {
+            return articleRepository.findByTitreContaining(titre, PageRequest.of(0, searchMaxResults));
+        }
+        final List<String> ids = articleTitreIndex.search(titre, searchMaxResults);
+
+        return ids.isEmpty()
+                ? Collections.emptyList()
+                : StreamSupport.stream(articleRepository.findAllById(ids).spliterator(), false)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Permet de chercher les articles correspondant au texte fourni à l'aide de l'index texte sur le titre et le
+     * contenu. Les articles sont triés par pertinence (score) et paginés.
+     *
+     * @param text le texte à rechercher (mots, "phrase exacte" ou -mot exclu)
+     * @param page le numéro de page, à partir de 0
+     * @param size la taille de page (bornée à 100)
+     * @return la page d'articles correspondant, avec leur score
+     */
+    @Override
+    public List<Article> searchText(String text, int page, int size) {
+        final TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(text);
+        final PageRequest pageRequest = PageRequest.of(Math.max(page, 0), CursorUtils.boundSize(size), Sort.by("score"));
+
+        return articleRepository.findAllBy(criteria, pageRequest);
     }
 
     /**
@@ -158,7 +344,11 @@ public class ArticleServiceImpl implements ArticleService {
 
     /**
      * Permet de chercher en base tous les articles dont le titre contient le titre fourni en paramètre et dont la date
-     * de publication est comprise dans la plage des dates fournies. (bornes incluses)
+     * de publication est comprise dans la plage des dates fournies. (bornes incluses) Sans index des titres en
+     * mémoire, une longue période est découpée en sous-périodes interrogées en parallèle. Avec l'index, les articles
+     * trouvés sont lus par paquets de search.index.ids-per-query ids, afin qu'un terme courant ne produise pas une
+     * requête $in dépassant la taille maximale d'une commande. Les articles sont retournés triés par date de
+     * publication.
      *
      * @param titre titre à rechercher
      * @param from  à partir de quelle date
@@ -167,26 +357,159 @@ public class ArticleServiceImpl implements ArticleService {
      */
     @Override
     public List<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to) {
-        return articleRepository.findByTitreContainingAndPublishedDateBetween(titre, from, to);
+        if (!articleTitreIndex.isReady()) {
+            return fanOutQueryExecutor.query(from, to, (shardFrom, shardTo, maxTime) ->
+                    articleRepository.findByTitreContainingAndPublishedDateBetween(titre, shardFrom, shardTo, maxTime));
+        }
+        final List<String> ids = articleTitreIndex.search(titre);
+        if (ids.size() <= searchIdsPerQuery) {
+            return ids.isEmpty()
+                    ? Collections.emptyList()
+                    : articleRepository.findByIdInAndPublishedDateBetween(ids, from, to);
+        }
+        final List<Article> articles = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += searchIdsPerQuery) {
+            articles.addAll(articleRepository.findByIdInAndPublishedDateBetween(
+                    ids.subList(start, Math.min(start + searchIdsPerQuery, ids.size())), from, to));
+        }
+        articles.sort(Comparator.comparing(Article::getPublishedDate,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        return articles;
     }
 
     /**
-     * Permet de compter le nombre d'articles en base
+     * Permet de compter le nombre d'articles. Lorsque les statistiques des articles sont chargées en mémoire, le
+     * nombre y est lu sans interroger la base.
      *
      * @return le nombre d'articles
      */
     @Override
     public ArticleCountAggregate countArticle() {
-        return articleRepository.countArticle();
+        return articleStatistics.isReady()
+                ? new ArticleCountAggregate(articleStatistics.countArticle())
+                : articleRepository.countArticle();
     }
 
     /**
-     * Permet de compter le nombre de commentaires par articles
+     * Permet de compter le nombre de commentaires par articles. Lorsque les statistiques des articles sont chargées
+     * en mémoire, les nombres y sont lus sans interroger la base.
      *
      * @return le nombre de commentaires par article
      */
     @Override
     public List<ArticleAggregate> countCommentaryByArticle() {
-        return articleRepository.countCommentaryByArticle();
+        return articleStatistics.isReady()
+                ? articleStatistics.countCommentaryByArticle()
+                : articleRepository.countCommentaryByArticle();
+    }
+
+    /**
+     * Permet de compter le nombre de commentaires par article, page par page (triée par id), en ne retenant
+     * éventuellement que les articles publiés dans la plage de dates fournie
+     *
+     * @param cursor       le curseur de la page précédente (null pour la première page)
+     * @param size         la taille de page (bornée à 100)
+     * @param from         la date de publication minimale (incluse, optionnelle)
+     * @param to           la date de publication maximale (incluse, optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque
+     * @return une page du nombre de commentaires par article
+     */
+    @Override
+    public CursorPage<ArticleAggregate> countCommentaryByArticle(String cursor,
+                                                                 int size,
+                                                                 Date from,
+                                                                 Date to,
+                                                                 boolean allowDiskUse) {
+        final int pageSize = CursorUtils.boundSize(size);
+        final String afterId = Objects.isNull(cursor) ? null : CursorUtils.decode(cursor);
+        final List<ArticleAggregate> aggregates =
+                articleRepository.countCommentaryPage(afterId, pageSize + 1, from, to, allowDiskUse);
+
+        return CursorUtils.toPage(aggregates, pageSize, ArticleAggregate::getId);
+    }
+
+    /**
+     * Permet d'obtenir les articles les plus commentés, en ne retenant éventuellement que les articles publiés dans la
+     * plage de dates fournie
+     *
+     * @param limit        le nombre d'articles à retourner (borné à 100)
+     * @param from         la date de publication minimale (incluse, optionnelle)
+     * @param to           la date de publication maximale (incluse, optionnelle)
+     * @param allowDiskUse true pour autoriser la base à utiliser le disque
+     * @return les articles les plus commentés, du plus commenté au moins commenté
+     */
+    @Override
+    public List<ArticleAggregate> findTopCommented(int limit, Date from, Date to, boolean allowDiskUse) {
+        return articleRepository.findTopCommented(CursorUtils.boundSize(limit), from, to, allowDiskUse);
+    }
+
+    /**
+     * Permet d'ajouter un commentaire à l'article correspondant à l'ID fourni. Le commentaire est enregistré dans la
+     * collection des commentaires puis ajouté de manière atomique ($push) aux commentaires de l'article, sans
+     * réécrire l'article. Si l'article n'existe pas, le commentaire enregistré est supprimé.
+     *
+     * @param id          l'id de l'article
+     * @param commentaire le commentaire à ajouter
+     * @return le commentaire ajouté
+     */
+    @Override
+    @CacheEvict(cacheNames = "articles", key = "#id")
+    public Commentaire addCommentaire(String id, Commentaire commentaire) {
+        final Commentaire commentaireSaved = commentaireService.save(commentaire);
+
+        final Optional<Article> articleUpdated = articleRepository.pushCommentaire(id, commentaireSaved, maxCommentaires);
+        if (articleUpdated.isEmpty()) {
+            commentaireService.deleteById(commentaireSaved.getId());
+            throw new ArticleNotFoundException(String.format(
+                    "Impossible d'ajouter un commentaire à l'article avec l'id %s car il n'existe pas.", id));
+        }
+        articleStatistics.addCommentaire(id, articleUpdated.get().getVersion(),
+                articleUpdated.get().getCommentaires().size());
+
+        return commentaireSaved;
+    }
+
+    /**
+     * Enregistre en masse les articles fournis. Chaque article est vérifié individuellement puis les articles
+     * valides sont écrits par lots, avec un seul envoi non ordonné par lot. Les nouveaux articles (sans id) reçoivent
+     * leur date de publication ici: l'id et la version leur étant attribués avant l'envoi, l'audit (@CreatedDate) ne
+     * les considère pas comme nouveaux.
+     *
+     * @param articles les articles à enregistrer
+     * @return le résultat de l'enregistrement de chaque article
+     */
+    @Override
+    @CacheEvict(cacheNames = "articles", allEntries = true)
+    public List<BulkItemResult> saveAll(Iterator<JsonNode> articles) {
+        return BulkUtils.saveAll(articles, Article.class, objectMapper, ArticleValidator::checkArticleToSave,
+                Article::getId, this::bulkSave, bulkBatchSize);
+    }
+
+    private Map<Integer, String> bulkSave(List<Article> articles) {
+        final Date publishedDate = new Date();
+        articles.stream()
+                .filter(article -> Objects.isNull(article.getId()))
+                .forEach(article -> article.setPublishedDate(publishedDate));
+        final Map<Integer, String> errors = articleRepository.bulkSave(articles);
+        for (int i = 0; i < articles.size(); i++) {
+            if (!errors.containsKey(i)) {
+                articleTitreIndex.put(articles.get(i).getId(), articles.get(i).getTitre());
+                articleStatistics.put(articles.get(i));
+            }
+        }
+
+        return errors;
+    }
+
+    private void checkProjection(Set<String> fields) {
+        final List<String> unknownFields = fields.stream()
+                .filter(field -> NOT_PROJECTABLE_FIELDS.contains(field)
+                        || Objects.isNull(ReflectionUtils.findField(Article.class, field)))
+                .collect(Collectors.toList());
+        if (!unknownFields.isEmpty()) {
+            throw new InvalidProjectionException(
+                    String.format("Les champs %s n'existent pas dans un article.", unknownFields));
+        }
     }
 }
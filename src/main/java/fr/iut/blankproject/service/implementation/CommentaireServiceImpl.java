@@ -1,16 +1,30 @@
 package fr.iut.blankproject.service.implementation;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.exception.commentaire.CommentaireNotFoundException;
 import fr.iut.blankproject.exception.commentaire.CommentaireSaveException;
 import fr.iut.blankproject.repository.CommentaireRepository;
 import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.service.writebehind.CommentaireWriteBehind;
+import fr.iut.blankproject.utils.CursorUtils;
+import fr.iut.blankproject.utils.MergePatchUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+
+import static fr.iut.blankproject.service.validation.CommentaireValidator.checkCommentaireToPatch;
+import static fr.iut.blankproject.service.validation.CommentaireValidator.checkCommentaireToSave;
 
 /**
  * @author florian935, NathanRenaud1997
@@ -20,6 +34,8 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class CommentaireServiceImpl implements CommentaireService {
     private final CommentaireRepository commentaireRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<CommentaireWriteBehind> commentaireWriteBehind;
 
     /**
      * Retourne la liste de tous les commentaires
@@ -32,12 +48,33 @@ public class CommentaireServiceImpl implements CommentaireService {
     }
 
     /**
-     * Retourne le commentaire correspondant à l'ID fourni en parmamètre
+     * Retourne une page de commentaires triés par id, à partir du curseur fourni (pagination keyset)
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page de commentaires
+     */
+    @Override
+    public CursorPage<Commentaire> findAll(String cursor, int size) {
+        final int pageSize = CursorUtils.boundSize(size);
+        final PageRequest pageRequest = CursorUtils.pageRequest(pageSize);
+        final List<Commentaire> commentaires = Objects.isNull(cursor)
+                ? commentaireRepository.findAllBy(pageRequest)
+                : commentaireRepository.findByIdGreaterThan(CursorUtils.decode(cursor), pageRequest);
+
+        return CursorUtils.toPage(commentaires, pageSize, Commentaire::getId);
+    }
+
+    /**
+     * Retourne le commentaire correspondant à l'ID fourni en parmamètre.
+     * Le résultat est conservé dans le cache "commentaires", invalidé à chaque enregistrement, mise à jour ou
+     * suppression du commentaire.
      *
      * @param id id de le commentaire
      * @return le commentaire
      */
     @Override
+    @Cacheable(cacheNames = "commentaires", key = "#id")
     public Commentaire findById(String id) {
         return commentaireRepository
                 .findById(id)
@@ -47,79 +84,101 @@ public class CommentaireServiceImpl implements CommentaireService {
     }
 
     /**
-     * Enregistre en base le commentaire fourni en paramètre
+     * Retourne la version du commentaire correspondant à l'ID fourni en paramètre, sans lire le reste du document.
+     * Elle permet de répondre aux requêtes conditionnelles (If-None-Match).
      *
-     * @param commentaire le commentaire à enregistrer
-     * @return le commentaire sauvegardé
+     * @param id l'id du commentaire
+     * @return la version du commentaire, vide s'il n'existe pas
      */
     @Override
-    public Commentaire save(Commentaire commentaire) {
-        checkCommentaireToSave(commentaire);
-        return commentaireRepository.save(commentaire);
+    public Optional<Long> findVersion(String id) {
+        return commentaireRepository.findVersion(id);
     }
 
     /**
-     * Permet de vérifier que tous les attributs requis du commentaire qui va être enregistré sont présents
+     * Enregistre en base le commentaire fourni en paramètre.
+     * Lorsque l'écriture différée est activée, un nouveau commentaire est acquitté avec son id dès son écriture dans le
+     * journal, puis écrit en base par lot (il n'est lisible qu'après l'écriture de son lot). Il est enregistré
+     * directement en base si le tampon est plein.
      *
-     * @param commentaire le commentaire à vérifier
+     * @param commentaire le commentaire à enregistrer
+     * @return le commentaire sauvegardé
      */
-    private void checkCommentaireToSave(Commentaire commentaire) {
-        StringBuilder errorMessage = new StringBuilder();
-        boolean thereIsAProblem = false;
-        if (!StringUtils.hasText(commentaire.getContenu())) {
-            errorMessage.append("Impossible d'enregistrer ce commentaire car le contenu est vide.");
-            thereIsAProblem = true;
-        }
-        if (Objects.isNull(commentaire.getUtilisateur())) {
-            errorMessage.append("Impossible d'enregistrer ce commentaire car l''utilisateur est vide.");
-            thereIsAProblem = true;
+    @Override
+    @CacheEvict(cacheNames = "commentaires", key = "#result.id")
+    public Commentaire save(Commentaire commentaire) {
+        checkCommentaireToSave(commentaire);
+        final CommentaireWriteBehind writeBehind = commentaireWriteBehind.getIfAvailable();
+        if (Objects.isNull(commentaire.getId()) && Objects.nonNull(writeBehind) && writeBehind.offer(commentaire)) {
+            return commentaire;
         }
 
-        if (thereIsAProblem) {
-            throw new CommentaireSaveException(errorMessage.toString());
-        }
+        return commentaireRepository.save(commentaire);
     }
 
     /**
-     * Supprime en base le commentaire correspondant à l'ID fourni en paramètre
+     * Supprime en base le commentaire correspondant à l'ID fourni en paramètre.
+     * Un commentaire encore en attente d'écriture différée est retiré du tampon.
      *
      * @param id l'id de le commentaire
      */
     @Override
+    @CacheEvict(cacheNames = "commentaires", key = "#id")
     public void deleteById(String id) {
-        commentaireRepository.findById(id).ifPresentOrElse(
-                user -> commentaireRepository.deleteById(id),
-                () -> {
-                    throw new CommentaireNotFoundException(
-                            String.format(
-                                    "Impossible de supprimer le commentaire avec l'id %s car il n'existe pas.",
-                                    id));
-                });
+        final CommentaireWriteBehind writeBehind = commentaireWriteBehind.getIfAvailable();
+        final boolean cancelled = Objects.nonNull(writeBehind) && writeBehind.cancel(id);
+        if (commentaireRepository.removeById(id) == 0 && !cancelled) {
+            throw new CommentaireNotFoundException(
+                    String.format(
+                            "Impossible de supprimer le commentaire avec l'id %s car il n'existe pas.",
+                            id));
+        }
     }
 
     /**
      * Permet de mettre à jour en base le commentaire fourni en paramètre
      *
-     * @param id          l'id du commentaire
-     * @param commentaire le commentaire à mettre à jour
+     * @param id              l'id du commentaire
+     * @param commentaire     le commentaire à mettre à jour
+     * @param expectedVersion la version attendue (If-Match), null pour utiliser la version portée par le document
      * @return le commentaire mis à jour
      */
     @Override
-    public Commentaire update(String id, Commentaire commentaire) {
+    @CacheEvict(cacheNames = "commentaires", key = "#id")
+    public Commentaire update(String id, Commentaire commentaire, Long expectedVersion) {
         commentaire.setId(id);
+        checkCommentaireToSave(commentaire);
+
+        return commentaireRepository.replace(id, commentaire, expectedVersion)
+                .orElseThrow(() -> new CommentaireSaveException(
+                        String.format(
+                                "Impossible de mettre à jour le commentaire avec l'id %s car il n'existe pas.",
+                                id)));
+    }
+
+    /**
+     * Permet de modifier partiellement en base le commentaire correspondant à l'ID fourni, à partir d'un JSON Merge Patch.
+     * Seuls les champs présents dans le patch sont vérifiés et envoyés à la base ($set / $unset).
+     * Un patch vide accompagné d'une version attendue est tout de même envoyé à la base pour vérifier la version.
+     *
+     * @param id              l'id du commentaire
+     * @param patch           le JSON Merge Patch à appliquer
+     * @param expectedVersion la version attendue (If-Match), null pour modifier la version courante
+     * @return le commentaire modifié
+     */
+    @Override
+    @CacheEvict(cacheNames = "commentaires", key = "#id")
+    public Commentaire patch(String id, Map<String, Object> patch, Long expectedVersion) {
+        checkCommentaireToPatch(patch);
+        if (patch.isEmpty() && Objects.isNull(expectedVersion)) {
+            return findById(id);
+        }
+        final Update update = MergePatchUtils.toUpdate(patch, Commentaire.class, objectMapper, CommentaireSaveException::new);
 
-        commentaireRepository.findById(id).ifPresentOrElse(
-                u -> {
-                    checkCommentaireToSave(commentaire);
-                    commentaireRepository.save(commentaire);
-                }, () -> {
-                    throw new CommentaireSaveException(
-                            String.format(
-                                    "Impossible de mettre à jour le commentaire avec l'id %s car il n'existe pas.",
-                                    id));
-                }
-        );
-
-        return commentaireRepository.findById(id).get();
+        return commentaireRepository.patch(id, update, expectedVersion)
+                .orElseThrow(() -> new CommentaireSaveException(
+                        String.format(
+                                "Impossible de modifier le commentaire avec l'id %s car il n'existe pas.",
+                                id)));
     }
 }
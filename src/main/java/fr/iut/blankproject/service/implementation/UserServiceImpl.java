@@ -1,16 +1,40 @@
 package fr.iut.blankproject.service.implementation;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.CursorPage;
 import fr.iut.blankproject.domain.User;
 import fr.iut.blankproject.exception.user.UserNotFoundException;
 import fr.iut.blankproject.exception.user.UserSaveException;
 import fr.iut.blankproject.repository.UserRepository;
+import fr.iut.blankproject.search.UserPseudoIndex;
 import fr.iut.blankproject.service.UserService;
+import fr.iut.blankproject.service.validation.UserValidator;
+import fr.iut.blankproject.utils.BulkUtils;
+import fr.iut.blankproject.utils.CursorUtils;
+import fr.iut.blankproject.utils.MergePatchUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static fr.iut.blankproject.service.validation.UserValidator.checkUserToPatch;
+import static fr.iut.blankproject.service.validation.UserValidator.checkUserToSave;
 
 /**
  * @author florian935, NathanRenaud1997
@@ -20,6 +44,14 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserPseudoIndex userPseudoIndex;
+    private final ObjectMapper objectMapper;
+
+    @Value("${bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
+    @Value("${search.index.max-results:1000}")
+    private int searchMaxResults;
 
     /**
      * Retourne la liste de tous les utilisateurs
@@ -32,12 +64,47 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Retourne l'utilisateur correspondant à l'ID fourni en parmamètre
+     * Retourne une page d'utilisateurs triés par id, à partir du curseur fourni (pagination keyset). Les articles et
+     * les commentaires des utilisateurs sont résolus.
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page d'utilisateurs
+     */
+    @Override
+    public CursorPage<User> findAll(String cursor, int size) {
+        return findAll(cursor, size, true);
+    }
+
+    /**
+     * Retourne une page d'utilisateurs triés par id, à partir du curseur fourni (pagination keyset). Lorsque les
+     * références sont demandées, les articles et les commentaires de toute la page sont lus en une requête $in par
+     * collection, sinon ils ne sont pas lus.
+     *
+     * @param cursor         le curseur de la page précédente (null pour la première page)
+     * @param size           la taille de page souhaitée
+     * @param withReferences true pour résoudre les articles et les commentaires des utilisateurs
+     * @return la page d'utilisateurs
+     */
+    @Override
+    public CursorPage<User> findAll(String cursor, int size, boolean withReferences) {
+        final int pageSize = CursorUtils.boundSize(size);
+        final String afterId = Objects.isNull(cursor) ? null : CursorUtils.decode(cursor);
+        final List<User> users = userRepository.findPage(afterId, pageSize + 1, withReferences);
+
+        return CursorUtils.toPage(users, pageSize, User::getId);
+    }
+
+    /**
+     * Retourne l'utilisateur correspondant à l'ID fourni en parmamètre.
+     * Le résultat est conservé dans le cache "users", invalidé à chaque enregistrement, mise à jour ou
+     * suppression de l'utilisateur.
      *
      * @param id id de l'utilisateur
      * @return l'utilisateur
      */
     @Override
+    @Cacheable(cacheNames = "users", key = "#id")
     public User findById(String id) {
         return userRepository
                 .findById(id)
@@ -47,41 +114,31 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Enregistre en base l'utilisateur fourni en paramètre
+     * Retourne la version de l'utilisateur correspondant à l'ID fourni en paramètre, sans lire le reste du document.
+     * Elle permet de répondre aux requêtes conditionnelles (If-None-Match).
      *
-     * @param user l'utilisateur à enregistrer
-     * @return l'utilisateur sauvegardé
+     * @param id l'id de l'utilisateur
+     * @return la version de l'utilisateur, vide s'il n'existe pas
      */
     @Override
-    public User save(User user) {
-        checkUserToSave(user);
-        return userRepository.save(user);
+    public Optional<Long> findVersion(String id) {
+        return userRepository.findVersion(id);
     }
 
     /**
-     * Permet de vérifier que tous les attributs requis de l'utilisateur qui va être enregistré sont présents
+     * Enregistre en base l'utilisateur fourni en paramètre
      *
-     * @param user l'utilisateur à vérifier
+     * @param user l'utilisateur à enregistrer
+     * @return l'utilisateur sauvegardé
      */
-    private void checkUserToSave(User user) {
-        StringBuilder errorMessage = new StringBuilder();
-        boolean thereIsAProblem = false;
-        if (!StringUtils.hasText(user.getPseudo())) {
-            errorMessage.append("Impossible d'enregistrer cet utilisateur car le pseudo est manquant. \n");
-            thereIsAProblem = true;
-        }
-        if (!StringUtils.hasText(user.getPassword())) {
-            errorMessage.append("Impossible d'enregistrer cet utilisateur car le mot de passe est manquant. \n");
-            thereIsAProblem = true;
-        }
-        if (Objects.isNull(user.getAdresse())) {
-            errorMessage.append("Impossible d'enregistrer cet utilisateur car l'adresse n'est pas renseignée.");
-            thereIsAProblem = true;
-        }
+    @Override
+    @CacheEvict(cacheNames = "users", key = "#result.id")
+    public User save(User user) {
+        checkUserToSave(user);
+        final User userSaved = userRepository.save(user);
+        userPseudoIndex.put(userSaved.getId(), userSaved.getPseudo());
 
-        if (thereIsAProblem) {
-            throw new UserSaveException(errorMessage.toString());
-        }
+        return userSaved;
     }
 
     /**
@@ -90,41 +147,68 @@ public class UserServiceImpl implements UserService {
      * @param id l'id de l'utilisateur
      */
     @Override
+    @CacheEvict(cacheNames = "users", key = "#id")
     public void deleteById(String id) {
-        userRepository.findById(id).ifPresentOrElse(
-                user -> userRepository.deleteById(id),
-                () -> {
-                    throw new UserNotFoundException(
-                            String.format(
-                                    "Impossible de supprimer l'utilisateur avec l'id %s car il n'existe pas.",
-                                    id));
-                });
+        if (userRepository.removeById(id) == 0) {
+            throw new UserNotFoundException(
+                    String.format(
+                            "Impossible de supprimer l'utilisateur avec l'id %s car il n'existe pas.",
+                            id));
+        }
+        userPseudoIndex.remove(id);
     }
 
     /**
      * Permet de mettre à jour en base l'utilisateur fourni en paramètre
      *
-     * @param id   l'id de l'utilisateur
-     * @param user l'utilisateur à mettre à jour
+     * @param id              l'id de l'utilisateur
+     * @param user            l'utilisateur à mettre à jour
+     * @param expectedVersion la version attendue (If-Match), null pour utiliser la version portée par le document
      * @return l'utilisateur mis à jour
      */
     @Override
-    public User update(String id, User user) {
+    @CacheEvict(cacheNames = "users", key = "#id")
+    public User update(String id, User user, Long expectedVersion) {
         user.setId(id);
+        checkUserToSave(user);
+
+        final User userUpdated = userRepository.replace(id, user, expectedVersion)
+                .orElseThrow(() -> new UserSaveException(
+                        String.format(
+                                "Impossible de mettre à jour l'utilisateur avec l'id %s car il n'existe pas.",
+                                id)));
+        userPseudoIndex.put(id, userUpdated.getPseudo());
+
+        return userUpdated;
+    }
+
+    /**
+     * Permet de modifier partiellement en base l'utilisateur correspondant à l'ID fourni, à partir d'un JSON Merge Patch.
+     * Seuls les champs présents dans le patch sont vérifiés et envoyés à la base ($set / $unset).
+     * Un patch vide accompagné d'une version attendue est tout de même envoyé à la base pour vérifier la version.
+     *
+     * @param id              l'id de l'utilisateur
+     * @param patch           le JSON Merge Patch à appliquer
+     * @param expectedVersion la version attendue (If-Match), null pour modifier la version courante
+     * @return l'utilisateur modifié
+     */
+    @Override
+    @CacheEvict(cacheNames = "users", key = "#id")
+    public User patch(String id, Map<String, Object> patch, Long expectedVersion) {
+        checkUserToPatch(patch);
+        if (patch.isEmpty() && Objects.isNull(expectedVersion)) {
+            return findById(id);
+        }
+        final Update update = MergePatchUtils.toUpdate(patch, User.class, objectMapper, UserSaveException::new);
+
+        final User userPatched = userRepository.patch(id, update, expectedVersion)
+                .orElseThrow(() -> new UserSaveException(
+                        String.format(
+                                "Impossible de modifier l'utilisateur avec l'id %s car il n'existe pas.",
+                                id)));
+        userPseudoIndex.put(id, userPatched.getPseudo());
 
-        userRepository.findById(id).ifPresentOrElse(
-                u -> {
-                    checkUserToSave(user);
-                    userRepository.save(user);
-                }, () -> {
-                    throw new UserSaveException(
-                            String.format(
-                                    "Impossible de mettre à jour l'utilisateur avec l'id %s car il n'existe pas.",
-                                    id));
-                }
-        );
-
-        return userRepository.findById(id).get();
+        return userPatched;
     }
 
     /**
@@ -139,13 +223,59 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Permet de chercher en base tous les utilisateurs dont le pseudo contient le pseudo fourni en paramètre
+     * Permet de chercher les utilisateurs dont le pseudo contient le pseudo fourni en paramètre, dans la limite de
+     * search.index.max-results utilisateurs. Lorsque l'index en mémoire des pseudos est chargé, les utilisateurs
+     * correspondant y sont cherchés puis lus en une seule requête ($in), sinon la recherche est effectuée en base.
      *
      * @param pseudo le pseudo à rechercher
      * @return la liste des utilisateurs correspondant
      */
     @Override
     public List<User> findByPseudoContaining(String pseudo) {
-        return userRepository.findByPseudoContaining(pseudo);
+        if (!userPseudoIndex.isReady()) {
+            return userRepository.findByPseudoContaining(pseudo, PageRequest.of(0, searchMaxResults));
+        }
+        final List<String> ids = userPseudoIndex.search(pseudo, searchMaxResults);
+
+        return ids.isEmpty() ? Collections.emptyList() : findAllById(ids);
+    }
+
+    /**
+     * Permet d'obtenir en une seule requête (opérateur $in) les utilisateurs correspondant aux ids fournis, par
+     * exemple pour résoudre les auteurs ({@link fr.iut.blankproject.domain.AuthorRef}) d'une page d'articles.
+     *
+     * @param ids les ids des utilisateurs
+     * @return la liste des utilisateurs trouvés
+     */
+    @Override
+    public List<User> findAllById(Collection<String> ids) {
+        final Iterable<User> users = userRepository.findAllById(new LinkedHashSet<>(ids));
+
+        return StreamSupport.stream(users.spliterator(), false).collect(Collectors.toList());
+    }
+
+    /**
+     * Enregistre en masse les utilisateurs fournis. Chaque utilisateur est vérifié individuellement puis les
+     * utilisateurs valides sont écrits par lots, avec un seul envoi non ordonné par lot.
+     *
+     * @param users les utilisateurs à enregistrer
+     * @return le résultat de l'enregistrement de chaque utilisateur
+     */
+    @Override
+    @CacheEvict(cacheNames = "users", allEntries = true)
+    public List<BulkItemResult> saveAll(Iterator<JsonNode> users) {
+        return BulkUtils.saveAll(users, User.class, objectMapper, UserValidator::checkUserToSave, User::getId,
+                this::bulkSave, bulkBatchSize);
+    }
+
+    private Map<Integer, String> bulkSave(List<User> users) {
+        final Map<Integer, String> errors = userRepository.bulkSave(users);
+        for (int i = 0; i < users.size(); i++) {
+            if (!errors.containsKey(i)) {
+                userPseudoIndex.put(users.get(i).getId(), users.get(i).getPseudo());
+            }
+        }
+
+        return errors;
     }
 }
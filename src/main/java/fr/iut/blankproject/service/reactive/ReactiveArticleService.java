@@ -0,0 +1,23 @@
+package fr.iut.blankproject.service.reactive;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleCountAggregate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+public interface ReactiveArticleService extends ReactiveCrudService<String, Article> {
+    Flux<Article> findByTitre(String titre);
+
+    Flux<Article> findByTitreContaining(String titre);
+
+    Flux<Article> findByPublishedDateBetween(Date from, Date to);
+
+    Flux<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to);
+
+    Mono<ArticleCountAggregate> countArticle();
+
+    Flux<ArticleAggregate> countCommentaryByArticle();
+}
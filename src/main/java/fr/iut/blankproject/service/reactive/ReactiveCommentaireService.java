@@ -0,0 +1,6 @@
+package fr.iut.blankproject.service.reactive;
+
+import fr.iut.blankproject.domain.Commentaire;
+
+public interface ReactiveCommentaireService extends ReactiveCrudService<String, Commentaire> {
+}
@@ -0,0 +1,16 @@
+package fr.iut.blankproject.service.reactive;
+
+import fr.iut.blankproject.domain.CursorPage;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCrudService<ID, T> {
+    Mono<CursorPage<T>> findAll(String cursor, int size);
+
+    Mono<T> findById(ID id);
+
+    Mono<T> save(T toSave);
+
+    Mono<Void> deleteById(ID id);
+
+    Mono<T> update(ID id, T toUpdate);
+}
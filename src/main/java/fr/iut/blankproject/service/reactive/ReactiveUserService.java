@@ -0,0 +1,10 @@
+package fr.iut.blankproject.service.reactive;
+
+import fr.iut.blankproject.domain.User;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveUserService extends ReactiveCrudService<String, User> {
+    Flux<User> findByPseudo(String pseudo);
+
+    Flux<User> findByPseudoContaining(String pseudo);
+}
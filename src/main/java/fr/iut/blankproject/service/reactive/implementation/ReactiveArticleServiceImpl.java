@@ -0,0 +1,188 @@
+package fr.iut.blankproject.service.reactive.implementation;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleCountAggregate;
+import fr.iut.blankproject.domain.CursorPage;
+import fr.iut.blankproject.exception.article.ArticleNotFoundException;
+import fr.iut.blankproject.exception.article.ArticleSaveException;
+import fr.iut.blankproject.repository.reactive.ReactiveArticleRepository;
+import fr.iut.blankproject.service.reactive.ReactiveArticleService;
+import fr.iut.blankproject.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.Objects;
+
+import static fr.iut.blankproject.service.validation.ArticleValidator.checkArticleToSave;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Service réactif qui permet de gérer la couche métier des articles (profil "reactive")
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveArticleServiceImpl implements ReactiveArticleService {
+    private final ReactiveArticleRepository articleRepository;
+    private final ReactiveVersionSupport versionSupport;
+
+    /**
+     * Retourne une page d'articles triés par id, à partir du curseur fourni (pagination keyset)
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page d'articles
+     */
+    @Override
+    public Mono<CursorPage<Article>> findAll(String cursor, int size) {
+        return Mono.defer(() -> {
+            final int pageSize = CursorUtils.boundSize(size);
+            final PageRequest pageRequest = CursorUtils.pageRequest(pageSize);
+            final Flux<Article> articles = Objects.isNull(cursor)
+                    ? articleRepository.findAllBy(pageRequest)
+                    : articleRepository.findByIdGreaterThan(CursorUtils.decode(cursor), pageRequest);
+
+            return articles.collectList().map(list -> CursorUtils.toPage(list, pageSize, Article::getId));
+        });
+    }
+
+    /**
+     * Retourne l'article correspondant à l'ID fourni en parmamètre
+     *
+     * @param id id de l'article
+     * @return l'article
+     */
+    @Override
+    public Mono<Article> findById(String id) {
+        return articleRepository
+                .findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(
+                        new ArticleNotFoundException(
+                                String.format("L'article avec l'id %s n'a pas été trouvé.", id)))));
+    }
+
+    /**
+     * Enregistre en base l'article fourni en paramètre
+     *
+     * @param article l'article à enregistrer
+     * @return l'article sauvegardé
+     */
+    @Override
+    public Mono<Article> save(Article article) {
+        return Mono.just(article)
+                .doOnNext(a -> checkArticleToSave(a))
+                .flatMap(articleRepository::save);
+    }
+
+    /**
+     * Supprime en base l'article correspondant à l'ID fourni en paramètre
+     *
+     * @param id l'id de l'article
+     * @return void
+     */
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return articleRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? articleRepository.deleteById(id)
+                        : Mono.error(new ArticleNotFoundException(
+                        String.format("Impossible de supprimer l'article avec l'id %s car il n'existe pas.", id))));
+    }
+
+    /**
+     * Permet de mettre à jour en base l'article fourni en paramètre, s'il est encore dans la version qu'il porte
+     *
+     * @param id      l'id de l'article
+     * @param article l'article à mettre à jour
+     * @return l'article mis à jour
+     */
+    @Override
+    public Mono<Article> update(String id, Article article) {
+        article.setId(id);
+
+        return articleRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ArticleSaveException(
+                        String.format("Impossible de mettre à jour l'article avec l'id %s car il n'existe pas.", id)))))
+                .flatMap(existing -> versionSupport.expectedVersion(
+                        Article.class, id, existing.getVersion(), article.getVersion()))
+                .flatMap(version -> {
+                    article.setVersion(version);
+                    return save(article);
+                });
+    }
+
+    /**
+     * Permet de chercher en base tous les articles dont le titre correspond exactement au titre fourni en paramètre.
+     *
+     * @param titre le titre à rechercher
+     * @return les articles correspondant
+     */
+    @Override
+    public Flux<Article> findByTitre(String titre) {
+        return articleRepository.findByTitre(titre);
+    }
+
+    /**
+     * Permet de chercher en base tous les articles dont le titre contient le titre fourni en paramètre
+     *
+     * @param titre le titre à rechercher
+     * @return les articles correspondant
+     */
+    @Override
+    public Flux<Article> findByTitreContaining(String titre) {
+        return articleRepository.findByTitreContaining(titre);
+    }
+
+    /**
+     * Permet de chercher en base tous les articles dont la date de publication est comprise dans la plage des dates
+     * fournies. (bornes incluses)
+     *
+     * @param from à partir de quelle date
+     * @param to   jusqu'à quelle date
+     * @return les articles correspondant
+     */
+    @Override
+    public Flux<Article> findByPublishedDateBetween(Date from, Date to) {
+        return articleRepository.findByPublishedDateBetween(from, to);
+    }
+
+    /**
+     * Permet de chercher en base tous les articles dont le titre contient le titre fourni en paramètre et dont la date
+     * de publication est comprise dans la plage des dates fournies. (bornes incluses)
+     *
+     * @param titre titre à rechercher
+     * @param from  à partir de quelle date
+     * @param to    jusqu'à quelle date
+     * @return les articles correspondant
+     */
+    @Override
+    public Flux<Article> findByTitreContainingAndPublishedDateBetween(String titre, Date from, Date to) {
+        return articleRepository.findByTitreContainingAndPublishedDateBetween(titre, from, to);
+    }
+
+    /**
+     * Permet de compter le nombre d'articles en base
+     *
+     * @return le nombre d'articles
+     */
+    @Override
+    public Mono<ArticleCountAggregate> countArticle() {
+        return articleRepository.countArticle();
+    }
+
+    /**
+     * Permet de compter le nombre de commentaires par articles
+     *
+     * @return le nombre de commentaires par article
+     */
+    @Override
+    public Flux<ArticleAggregate> countCommentaryByArticle() {
+        return articleRepository.countCommentaryByArticle();
+    }
+}
@@ -0,0 +1,116 @@
+package fr.iut.blankproject.service.reactive.implementation;
+
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.CursorPage;
+import fr.iut.blankproject.exception.commentaire.CommentaireNotFoundException;
+import fr.iut.blankproject.exception.commentaire.CommentaireSaveException;
+import fr.iut.blankproject.repository.reactive.ReactiveCommentaireRepository;
+import fr.iut.blankproject.service.reactive.ReactiveCommentaireService;
+import fr.iut.blankproject.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+import static fr.iut.blankproject.service.validation.CommentaireValidator.checkCommentaireToSave;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Service réactif qui permet de gérer la couche métier des commentaires (profil "reactive")
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCommentaireServiceImpl implements ReactiveCommentaireService {
+    private final ReactiveCommentaireRepository commentaireRepository;
+    private final ReactiveVersionSupport versionSupport;
+
+    /**
+     * Retourne une page de commentaires triés par id, à partir du curseur fourni (pagination keyset)
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page de commentaires
+     */
+    @Override
+    public Mono<CursorPage<Commentaire>> findAll(String cursor, int size) {
+        return Mono.defer(() -> {
+            final int pageSize = CursorUtils.boundSize(size);
+            final PageRequest pageRequest = CursorUtils.pageRequest(pageSize);
+            final Flux<Commentaire> commentaires = Objects.isNull(cursor)
+                    ? commentaireRepository.findAllBy(pageRequest)
+                    : commentaireRepository.findByIdGreaterThan(CursorUtils.decode(cursor), pageRequest);
+
+            return commentaires.collectList().map(list -> CursorUtils.toPage(list, pageSize, Commentaire::getId));
+        });
+    }
+
+    /**
+     * Retourne le commentaire correspondant à l'ID fourni en parmamètre
+     *
+     * @param id id du commentaire
+     * @return le commentaire
+     */
+    @Override
+    public Mono<Commentaire> findById(String id) {
+        return commentaireRepository
+                .findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(
+                        new CommentaireNotFoundException(
+                                String.format("Le commentaire avec l'id %s n'a pas été trouvé.", id)))));
+    }
+
+    /**
+     * Enregistre en base le commentaire fourni en paramètre
+     *
+     * @param commentaire le commentaire à enregistrer
+     * @return le commentaire sauvegardé
+     */
+    @Override
+    public Mono<Commentaire> save(Commentaire commentaire) {
+        return Mono.just(commentaire)
+                .doOnNext(c -> checkCommentaireToSave(c))
+                .flatMap(commentaireRepository::save);
+    }
+
+    /**
+     * Supprime en base le commentaire correspondant à l'ID fourni en paramètre
+     *
+     * @param id l'id du commentaire
+     * @return void
+     */
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return commentaireRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? commentaireRepository.deleteById(id)
+                        : Mono.error(new CommentaireNotFoundException(
+                        String.format("Impossible de supprimer le commentaire avec l'id %s car il n'existe pas.", id))));
+    }
+
+    /**
+     * Permet de mettre à jour en base le commentaire fourni en paramètre, s'il est encore dans la version qu'il porte
+     *
+     * @param id          l'id du commentaire
+     * @param commentaire le commentaire à mettre à jour
+     * @return le commentaire mis à jour
+     */
+    @Override
+    public Mono<Commentaire> update(String id, Commentaire commentaire) {
+        commentaire.setId(id);
+
+        return commentaireRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new CommentaireSaveException(
+                        String.format("Impossible de mettre à jour le commentaire avec l'id %s car il n'existe pas.", id)))))
+                .flatMap(existing -> versionSupport.expectedVersion(
+                        Commentaire.class, id, existing.getVersion(), commentaire.getVersion()))
+                .flatMap(version -> {
+                    commentaire.setVersion(version);
+                    return save(commentaire);
+                });
+    }
+}
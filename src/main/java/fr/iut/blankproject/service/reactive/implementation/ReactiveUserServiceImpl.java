@@ -0,0 +1,138 @@
+package fr.iut.blankproject.service.reactive.implementation;
+
+import fr.iut.blankproject.domain.CursorPage;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.exception.user.UserNotFoundException;
+import fr.iut.blankproject.exception.user.UserSaveException;
+import fr.iut.blankproject.repository.reactive.ReactiveUserRepository;
+import fr.iut.blankproject.service.reactive.ReactiveUserService;
+import fr.iut.blankproject.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+import static fr.iut.blankproject.service.validation.UserValidator.checkUserToSave;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Service réactif qui permet de gérer la couche métier des utilisateurs (profil "reactive")
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveVersionSupport versionSupport;
+
+    /**
+     * Retourne une page d'utilisateurs triés par id, à partir du curseur fourni (pagination keyset)
+     *
+     * @param cursor le curseur de la page précédente (null pour la première page)
+     * @param size   la taille de page souhaitée
+     * @return la page d'utilisateurs
+     */
+    @Override
+    public Mono<CursorPage<User>> findAll(String cursor, int size) {
+        return Mono.defer(() -> {
+            final int pageSize = CursorUtils.boundSize(size);
+            final PageRequest pageRequest = CursorUtils.pageRequest(pageSize);
+            final Flux<User> users = Objects.isNull(cursor)
+                    ? userRepository.findAllBy(pageRequest)
+                    : userRepository.findByIdGreaterThan(CursorUtils.decode(cursor), pageRequest);
+
+            return users.collectList().map(list -> CursorUtils.toPage(list, pageSize, User::getId));
+        });
+    }
+
+    /**
+     * Retourne l'utilisateur correspondant à l'ID fourni en parmamètre
+     *
+     * @param id id de l'utilisateur
+     * @return l'utilisateur
+     */
+    @Override
+    public Mono<User> findById(String id) {
+        return userRepository
+                .findWithoutReferencesById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(
+                        new UserNotFoundException(
+                                String.format("L'utilisateur avec l'id %s n'a pas été trouvé.", id)))));
+    }
+
+    /**
+     * Enregistre en base l'utilisateur fourni en paramètre
+     *
+     * @param user l'utilisateur à enregistrer
+     * @return l'utilisateur sauvegardé
+     */
+    @Override
+    public Mono<User> save(User user) {
+        return Mono.just(user)
+                .doOnNext(u -> checkUserToSave(u))
+                .flatMap(userRepository::save);
+    }
+
+    /**
+     * Supprime en base l'utilisateur correspondant à l'ID fourni en paramètre
+     *
+     * @param id l'id de l'utilisateur
+     * @return void
+     */
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return userRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? userRepository.deleteById(id)
+                        : Mono.error(new UserNotFoundException(
+                        String.format("Impossible de supprimer l'utilisateur avec l'id %s car il n'existe pas.", id))));
+    }
+
+    /**
+     * Permet de mettre à jour en base l'utilisateur fourni en paramètre, s'il est encore dans la version qu'il porte
+     *
+     * @param id   l'id de l'utilisateur
+     * @param user l'utilisateur à mettre à jour
+     * @return l'utilisateur mis à jour
+     */
+    @Override
+    public Mono<User> update(String id, User user) {
+        user.setId(id);
+
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new UserSaveException(
+                        String.format("Impossible de mettre à jour l'utilisateur avec l'id %s car il n'existe pas.", id)))))
+                .flatMap(existing -> versionSupport.expectedVersion(
+                        User.class, id, existing.getVersion(), user.getVersion()))
+                .flatMap(version -> {
+                    user.setVersion(version);
+                    return save(user);
+                });
+    }
+
+    /**
+     * Permet de chercher en base tous les utilisateurs dont le pseudo correspond exactement au pseudo fourni en paramètre.
+     *
+     * @param pseudo le pseudo à rechercher
+     * @return les utilisateurs correspondant
+     */
+    @Override
+    public Flux<User> findByPseudo(String pseudo) {
+        return userRepository.findByPseudo(pseudo);
+    }
+
+    /**
+     * Permet de chercher en base tous les utilisateurs dont le pseudo contient le pseudo fourni en paramètre
+     *
+     * @param pseudo le pseudo à rechercher
+     * @return les utilisateurs correspondant
+     */
+    @Override
+    public Flux<User> findByPseudoContaining(String pseudo) {
+        return userRepository.findByPseudoContaining(pseudo);
+    }
+}
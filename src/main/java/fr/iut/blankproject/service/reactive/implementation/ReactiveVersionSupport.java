@@ -0,0 +1,59 @@
+package fr.iut.blankproject.service.reactive.implementation;
+
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Version attendue par les mises à jour des services réactifs. La mise à jour n'est enregistrée que si le document est
+ * encore dans la version portée par le document fourni par le client (409 sinon), et elle est refusée lorsqu'aucune
+ * version n'est fournie (428).
+ * <p>
+ * Un document enregistré avant l'ajout du champ "version" (lorsque la migration des versions n'a pas été exécutée)
+ * est lu sans version: l'enregistrer tel quel le ferait considérer comme nouveau et conduirait à une insertion en
+ * doublon. Sa version est donc d'abord initialisée à 0 en base, comme le ferait la migration; le client l'ayant lu
+ * sans version, une mise à jour sans version y est acceptée et attend la version 0.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+class ReactiveVersionSupport {
+    private static final String VERSION = "version";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    /**
+     * Retourne la version attendue par la mise à jour du document lu
+     *
+     * @param entityClass     la classe du document
+     * @param id              l'id du document
+     * @param version         la version lue (null pour un document antérieur au champ "version")
+     * @param providedVersion la version portée par le document fourni par le client
+     * @return la version fournie (0 si elle est absente pour un document antérieur au champ "version"), une fois la
+     * version du document initialisée en base
+     * @throws VersionRequiredException (dans le Mono) si aucune version n'est fournie pour un document versionné
+     */
+    Mono<Long> expectedVersion(Class<?> entityClass, String id, Long version, Long providedVersion) {
+        if (Objects.nonNull(version)) {
+            return Objects.nonNull(providedVersion)
+                    ? Mono.just(providedVersion)
+                    : Mono.error(new VersionRequiredException(String.format(
+                    "Impossible de remplacer le document avec l'id %s sans connaître la version modifiée: fournir "
+                            + "la version du document.", id)));
+        }
+
+        return mongoOperations.updateFirst(
+                new Query(where("_id").is(id).and(VERSION).exists(false)), new Update().set(VERSION, 0L), entityClass)
+                .thenReturn(Objects.isNull(providedVersion) ? 0L : providedVersion);
+    }
+}
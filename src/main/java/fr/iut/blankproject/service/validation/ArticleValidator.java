@@ -0,0 +1,71 @@
+package fr.iut.blankproject.service.validation;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.exception.article.ArticleSaveException;
+import fr.iut.blankproject.utils.MergePatchUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe regroupant les règles de validation des articles, partagées par les services bloquants et réactifs.
+ */
+public final class ArticleValidator {
+    private ArticleValidator() {
+    }
+
+    /**
+     * Permet de vérifier que tous les attributs requis de l'article qui va être enregistré sont présents
+     *
+     * @param article l'article à vérifier
+     */
+    public static void checkArticleToSave(Article article) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (!StringUtils.hasText(article.getTitre())) {
+            errorMessage.append("Impossible d'enregistrer cette article car le titre est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (Objects.isNull(article.getUtilisateur()) || !StringUtils.hasText(article.getUtilisateur().getId())) {
+            errorMessage.append("Impossible d'enregistrer cette article car aucun utilisateur n'y est rattaché.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new ArticleSaveException(errorMessage.toString());
+        }
+    }
+
+    /**
+     * Permet de vérifier qu'un JSON Merge Patch ne modifie que des champs de l'article autorisés, et que les champs
+     * requis qu'il touche restent renseignés. Les champs absents du patch ne sont pas vérifiés.
+     *
+     * @param patch le patch à vérifier
+     */
+    public static void checkArticleToPatch(Map<String, Object> patch) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (patch.containsKey("id")) {
+            errorMessage.append("Impossible de modifier l'id de l'article. \n");
+            thereIsAProblem = true;
+        }
+        if (patch.containsKey("version")) {
+            errorMessage.append("Impossible de modifier la version de l'article. \n");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesOrBlanks(patch, "titre")) {
+            errorMessage.append("Impossible de modifier cet article car le titre est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesNestedId(patch, "utilisateur", "id")) {
+            errorMessage.append("Impossible de modifier cet article car aucun utilisateur n'y est rattaché.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new ArticleSaveException(errorMessage.toString());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fr.iut.blankproject.service.validation;
+
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.exception.commentaire.CommentaireSaveException;
+import fr.iut.blankproject.utils.MergePatchUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe regroupant les règles de validation des commentaires, partagées par les services bloquants et réactifs.
+ */
+public final class CommentaireValidator {
+    private CommentaireValidator() {
+    }
+
+    /**
+     * Permet de vérifier que tous les attributs requis du commentaire qui va être enregistré sont présents
+     *
+     * @param commentaire le commentaire à vérifier
+     */
+    public static void checkCommentaireToSave(Commentaire commentaire) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (!StringUtils.hasText(commentaire.getContenu())) {
+            errorMessage.append("Impossible d'enregistrer ce commentaire car le contenu est vide.");
+            thereIsAProblem = true;
+        }
+        if (Objects.isNull(commentaire.getUtilisateur())
+                || !StringUtils.hasText(commentaire.getUtilisateur().getId())) {
+            errorMessage.append("Impossible d'enregistrer ce commentaire car l''utilisateur est vide.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new CommentaireSaveException(errorMessage.toString());
+        }
+    }
+
+    /**
+     * Permet de vérifier qu'un JSON Merge Patch ne modifie que des champs du commentaire autorisés, et que les champs
+     * requis qu'il touche restent renseignés. Les champs absents du patch ne sont pas vérifiés.
+     *
+     * @param patch le patch à vérifier
+     */
+    public static void checkCommentaireToPatch(Map<String, Object> patch) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (patch.containsKey("id")) {
+            errorMessage.append("Impossible de modifier l'id du commentaire.");
+            thereIsAProblem = true;
+        }
+        if (patch.containsKey("version")) {
+            errorMessage.append("Impossible de modifier la version du commentaire.");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesOrBlanks(patch, "contenu")) {
+            errorMessage.append("Impossible de modifier ce commentaire car le contenu est vide.");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesNestedId(patch, "utilisateur", "id")) {
+            errorMessage.append("Impossible de modifier ce commentaire car l'utilisateur est vide.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new CommentaireSaveException(errorMessage.toString());
+        }
+    }
+}
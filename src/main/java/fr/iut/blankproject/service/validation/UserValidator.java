@@ -0,0 +1,79 @@
+package fr.iut.blankproject.service.validation;
+
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.exception.user.UserSaveException;
+import fr.iut.blankproject.utils.MergePatchUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe regroupant les règles de validation des utilisateurs, partagées par les services bloquants et réactifs.
+ */
+public final class UserValidator {
+    private UserValidator() {
+    }
+
+    /**
+     * Permet de vérifier que tous les attributs requis de l'utilisateur qui va être enregistré sont présents
+     *
+     * @param user l'utilisateur à vérifier
+     */
+    public static void checkUserToSave(User user) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (!StringUtils.hasText(user.getPseudo())) {
+            errorMessage.append("Impossible d'enregistrer cet utilisateur car le pseudo est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (!StringUtils.hasText(user.getPassword())) {
+            errorMessage.append("Impossible d'enregistrer cet utilisateur car le mot de passe est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (Objects.isNull(user.getAdresse())) {
+            errorMessage.append("Impossible d'enregistrer cet utilisateur car l'adresse n'est pas renseignée.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new UserSaveException(errorMessage.toString());
+        }
+    }
+
+    /**
+     * Permet de vérifier qu'un JSON Merge Patch ne modifie que des champs de l'utilisateur autorisés, et que les champs
+     * requis qu'il touche restent renseignés. Les champs absents du patch ne sont pas vérifiés.
+     *
+     * @param patch le patch à vérifier
+     */
+    public static void checkUserToPatch(Map<String, Object> patch) {
+        StringBuilder errorMessage = new StringBuilder();
+        boolean thereIsAProblem = false;
+        if (patch.containsKey("id")) {
+            errorMessage.append("Impossible de modifier l'id de l'utilisateur. \n");
+            thereIsAProblem = true;
+        }
+        if (patch.containsKey("version")) {
+            errorMessage.append("Impossible de modifier la version de l'utilisateur. \n");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesOrBlanks(patch, "pseudo")) {
+            errorMessage.append("Impossible de modifier cet utilisateur car le pseudo est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (MergePatchUtils.removesOrBlanks(patch, "password")) {
+            errorMessage.append("Impossible de modifier cet utilisateur car le mot de passe est manquant. \n");
+            thereIsAProblem = true;
+        }
+        if (patch.containsKey("adresse") && Objects.isNull(patch.get("adresse"))) {
+            errorMessage.append("Impossible de modifier cet utilisateur car l'adresse n'est pas renseignée.");
+            thereIsAProblem = true;
+        }
+
+        if (thereIsAProblem) {
+            throw new UserSaveException(errorMessage.toString());
+        }
+    }
+}
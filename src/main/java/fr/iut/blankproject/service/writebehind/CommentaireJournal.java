@@ -0,0 +1,252 @@
+package fr.iut.blankproject.service.writebehind;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Journal local des commentaires acquittés mais pas encore écrits en base, dans un fichier projeté en mémoire
+ * (memory-mapped). Une écriture dans le journal est une copie en mémoire: elle survit à un arrêt brutal de
+ * l'application, le système se chargeant de l'écrire sur le disque (ou avant l'acquittement lorsque la
+ * synchronisation est activée, ce qui protège aussi d'un arrêt du système).
+ * <p>
+ * Le fichier commence par la position du premier enregistrement non encore écrit en base, suivie des enregistrements
+ * (taille puis contenu), le dernier étant suivi d'une taille nulle. La taille d'un enregistrement est écrite après son
+ * contenu, un enregistrement interrompu n'est donc jamais relu. Une taille négative signale une annulation
+ * ({@link #appendTombstone(byte[])}), dont le contenu identifie l'enregistrement annulé. Lorsque tous les enregistrements sont écrits en base,
+ * le journal repart du début du fichier; lorsqu'il est plein, les enregistrements restants sont déplacés au début du
+ * fichier si la place libérée le permet sans écraser ceux-ci.
+ * <p>
+ * Les positions retournées sont logiques (elles ne diminuent jamais, même lorsque le journal repart du début), afin
+ * de pouvoir valider une position obtenue avant un déplacement.
+ * <p>
+ * Lorsque la synchronisation est activée, seule la plage écrite depuis la dernière synchronisation est forcée sur le
+ * disque, et {@link #sync(long)} est appelée hors du verrou du journal: pendant qu'un appelant force la plage,
+ * les suivants continuent d'ajouter leurs enregistrements, puis une seule synchronisation couvre tous ceux qui ont
+ * attendu (group commit). A l'exception de {@link #sync(long)}, les méthodes doivent être appelées sous le verrou de
+ * l'instance (synchronized).
+ */
+public class CommentaireJournal implements Closeable {
+    static final int HEADER = Long.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean sync;
+    private final List<Record> recovered = new ArrayList<>();
+    private final Object syncLock = new Object();
+    private int committed;
+    private int position;
+    private long base;
+    private int unsyncedFrom = Integer.MAX_VALUE;
+    private int unsyncedTo;
+    private long synced;
+
+    /**
+     * Ouvre (ou crée) le journal et relit les enregistrements qui n'ont pas été écrits en base
+     *
+     * @param path le chemin du fichier
+     * @param size la taille du fichier
+     * @param sync true pour forcer l'écriture des enregistrements sur le disque avant leur acquittement
+     */
+    public CommentaireJournal(Path path, int size, boolean sync) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        this.sync = sync;
+        recover();
+    }
+
+    /**
+     * Retourne les enregistrements qui n'avaient pas été écrits en base lors de l'ouverture du journal
+     *
+     * @return les enregistrements relus, dans l'ordre du journal
+     */
+    public List<Record> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Ajoute un enregistrement à la fin du journal. Lorsque la synchronisation est activée, l'enregistrement n'est
+     * écrit sur le disque qu'à l'appel de {@link #sync(long)}.
+     *
+     * @param content le contenu de l'enregistrement
+     * @return la position logique de la fin de l'enregistrement, -1 si le journal est plein
+     */
+    public long append(byte[] content) {
+        return append(content, false);
+    }
+
+    /**
+     * Ajoute à la fin du journal l'annulation d'un enregistrement précédent, relue comme un enregistrement marqué
+     * comme annulation. Comme pour {@link #append(byte[])}, elle n'est écrite sur le disque qu'à l'appel de
+     * {@link #sync(long)}.
+     *
+     * @param content le contenu identifiant l'enregistrement annulé (non vide)
+     * @return la position logique de la fin de l'annulation, -1 si le journal est plein
+     */
+    public long appendTombstone(byte[] content) {
+        return append(content, true);
+    }
+
+    private long append(byte[] content, boolean tombstone) {
+        final int required = Integer.BYTES + content.length;
+        if (position + required + Integer.BYTES > buffer.capacity()) {
+            compact();
+            if (position + required + Integer.BYTES > buffer.capacity()) {
+                return -1;
+            }
+        }
+        buffer.duplicate().position(position + Integer.BYTES).put(content);
+        buffer.putInt(position + required, 0);
+        buffer.putInt(position, tombstone ? -content.length : content.length);
+        unsyncedFrom = Math.min(unsyncedFrom, position);
+        position += required;
+        unsyncedTo = position + Integer.BYTES;
+
+        return base + position;
+    }
+
+    /**
+     * Force sur le disque les enregistrements ajoutés jusqu'à la position fournie, si la synchronisation est activée.
+     * A appeler hors du verrou du journal: si une autre synchronisation a déjà couvert cette position, la méthode
+     * retourne sans écrire.
+     *
+     * @param end la position logique de la fin de l'enregistrement, retournée par {@link #append(byte[])}
+     */
+    public void sync(long end) {
+        if (!sync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            final int from;
+            final int to;
+            final long target;
+            synchronized (this) {
+                from = unsyncedFrom;
+                to = unsyncedTo;
+                target = base + position;
+                unsyncedFrom = Integer.MAX_VALUE;
+                unsyncedTo = 0;
+            }
+            if (from < to) {
+                force(from, to - from);
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Indique que les enregistrements jusqu'à la position fournie sont écrits en base
+     *
+     * @param end la position logique de la fin du dernier enregistrement écrit en base
+     */
+    public void commit(long end) {
+        committed = (int) (end - base);
+        buffer.putLong(0, committed);
+        if (committed == position) {
+            buffer.putInt(HEADER, 0);
+            buffer.putLong(0, HEADER);
+            base += position - HEADER;
+            position = HEADER;
+            committed = HEADER;
+            unsyncedFrom = Integer.MAX_VALUE;
+            unsyncedTo = 0;
+        }
+        if (sync) {
+            force(0, HEADER + Integer.BYTES);
+        }
+    }
+
+    /**
+     * Retourne la place occupée par les enregistrements qui ne sont pas encore écrits en base
+     *
+     * @return le nombre d'octets
+     */
+    public int pendingBytes() {
+        return position - committed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void recover() {
+        final long header = buffer.getLong(0);
+        committed = header < HEADER || header > buffer.capacity() - Integer.BYTES ? HEADER : (int) header;
+        position = committed;
+        int length;
+        while (position + Integer.BYTES <= buffer.capacity()
+                && (length = buffer.getInt(position)) != 0 && length != Integer.MIN_VALUE
+                && (long) position + Integer.BYTES + Math.abs(length) + Integer.BYTES <= buffer.capacity()) {
+            final byte[] content = new byte[Math.abs(length)];
+            buffer.duplicate().position(position + Integer.BYTES).get(content);
+            position += Integer.BYTES + content.length;
+            recovered.add(new Record(content, position, length < 0));
+        }
+        if (position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+        buffer.putLong(0, committed);
+    }
+
+    /**
+     * Déplace les enregistrements non écrits en base au début du fichier, uniquement si leur copie n'écrase pas
+     * leur emplacement actuel: un arrêt pendant le déplacement laisse ainsi le journal lisible.
+     */
+    private void compact() {
+        final int pending = pendingBytes();
+        if (committed == HEADER || HEADER + pending + Integer.BYTES > committed) {
+            return;
+        }
+        final ByteBuffer source = buffer.duplicate().position(committed).limit(position);
+        buffer.duplicate().position(HEADER).put(source);
+        buffer.putInt(HEADER + pending, 0);
+        buffer.putLong(0, HEADER);
+        base += committed - HEADER;
+        committed = HEADER;
+        position = HEADER + pending;
+        if (sync) {
+            force(0, position + Integer.BYTES);
+        }
+        unsyncedFrom = Integer.MAX_VALUE;
+        unsyncedTo = 0;
+    }
+
+    /**
+     * Force sur le disque la plage fournie du fichier
+     */
+    void force(int index, int length) {
+        buffer.force(index, length);
+    }
+
+    /**
+     * Enregistrement du journal: son contenu, la position logique de sa fin et s'il s'agit d'une annulation
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Record {
+        private final byte[] content;
+        private final long end;
+        private final boolean tombstone;
+    }
+}
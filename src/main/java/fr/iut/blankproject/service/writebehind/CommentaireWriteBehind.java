@@ -0,0 +1,490 @@
+package fr.iut.blankproject.service.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.repository.CommentaireRepository;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Tampon d'écriture différée (write-behind) des nouveaux commentaires. Un commentaire reçoit un id, est écrit dans le
+ * journal local ({@link CommentaireJournal}) puis placé dans une file non bloquante: il est acquitté sans attendre la
+ * base. Un thread dédié écrit les commentaires en base par lots, dès qu'un lot est complet ou à intervalle régulier.
+ * Au démarrage, les commentaires du journal qui n'avaient pas été écrits en base le sont de nouveau (les commentaires
+ * déjà présents sont ignorés).
+ * <p>
+ * Un lot qui ne peut pas être écrit en base est conservé et écrit de nouveau, après un délai qui double à chaque
+ * échec (une minute au plus). Après le nombre maximum d'essais, les commentaires du lot qui ne sont pas en base sont
+ * ajoutés au fichier des commentaires rejetés (un document JSON par ligne), afin qu'un lot refusé par la base ne
+ * bloque pas indéfiniment les suivants.
+ * <p>
+ * L'écriture dans le journal et l'ajout dans la file sont faits ensemble, sous un verrou court, afin que les lots
+ * écrits en base suivent l'ordre du journal. Lorsque la file ou le journal sont pleins, le commentaire est refusé et
+ * doit être enregistré directement en base. Un commentaire n'est lisible en base qu'après l'écriture de son lot.
+ * <p>
+ * Les commentaires en attente sont aussi référencés par leur id, afin qu'une suppression puisse les annuler sans
+ * parcourir la file ni attendre le thread d'écriture: l'état de chaque commentaire (en attente, en cours d'écriture,
+ * annulé, écrit) est modifié de manière atomique. Un commentaire supprimé pendant l'écriture de son lot est supprimé
+ * en base par le thread d'écriture une fois le lot écrit. Une annulation est écrite dans le journal avant d'être
+ * acquittée: au démarrage, les commentaires annulés ne sont pas écrits en base et sont supprimés s'ils l'avaient été
+ * avant l'arrêt.
+ * <p>
+ * Configuration:
+ * <ul>
+ *     <li>commentaires.write-behind.enabled: active le tampon</li>
+ *     <li>commentaires.write-behind.capacity: nombre maximum de commentaires en attente d'écriture</li>
+ *     <li>commentaires.write-behind.batch-size: nombre de commentaires par lot</li>
+ *     <li>commentaires.write-behind.flush-interval: délai maximum avant l'écriture d'un lot incomplet</li>
+ *     <li>commentaires.write-behind.journal.path / size: chemin et taille du fichier du journal</li>
+ *     <li>commentaires.write-behind.journal.sync: force l'écriture du journal sur le disque avant d'acquitter un
+ *     commentaire</li>
+ *     <li>commentaires.write-behind.max-attempts: nombre d'essais d'écriture d'un lot avant son rejet</li>
+ *     <li>commentaires.write-behind.dead-letter.path: fichier des commentaires rejetés</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "commentaires.write-behind.enabled", havingValue = "true")
+public class CommentaireWriteBehind implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommentaireWriteBehind.class);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final CommentaireRepository commentaireRepository;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxAttempts;
+    private final Path deadLetterPath;
+    private final CommentaireJournal journal;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final Map<String, Pending> pendingById = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private List<Pending> failedBatch = Collections.emptyList();
+    private int attempts;
+    private long retryAt;
+    private boolean closed;
+
+    public CommentaireWriteBehind(CommentaireRepository commentaireRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${commentaires.write-behind.capacity:10000}") int capacity,
+                                  @Value("${commentaires.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${commentaires.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                  @Value("${commentaires.write-behind.journal.path:data/commentaires.journal}")
+                                          Path journalPath,
+                                  @Value("${commentaires.write-behind.journal.size:64MB}") DataSize journalSize,
+                                  @Value("${commentaires.write-behind.journal.sync:false}") boolean sync,
+                                  @Value("${commentaires.write-behind.max-attempts:10}") int maxAttempts,
+                                  @Value("${commentaires.write-behind.dead-letter.path:"
+                                          + "data/commentaires.dead-letter.ndjson}") Path deadLetterPath)
+            throws IOException {
+        this.commentaireRepository = commentaireRepository;
+        this.objectMapper = objectMapper;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.deadLetterPath = deadLetterPath;
+        this.journal = new CommentaireJournal(journalPath, Math.toIntExact(journalSize.toBytes()), sync);
+        for (CommentaireJournal.Record record : journal.recovered()) {
+            if (record.isTombstone()) {
+                final String id = new String(record.getContent(), StandardCharsets.UTF_8);
+                final Pending cancelled = pendingById.get(id);
+                if (Objects.nonNull(cancelled)) {
+                    cancelled.cancel();
+                }
+                queue.offer(new Pending(id, record.getContent(), record.getEnd(), true));
+                continue;
+            }
+            final Commentaire commentaire = read(record.getContent());
+            final Pending pending = new Pending(Objects.isNull(commentaire) ? null : commentaire.getId(),
+                    record.getContent(), record.getEnd(), false);
+            if (Objects.nonNull(pending.getId())) {
+                pendingById.put(pending.getId(), pending);
+            }
+            queue.offer(pending);
+            size.incrementAndGet();
+        }
+        if (!queue.isEmpty()) {
+            LOGGER.info("{} commentaire(s) et {} annulation(s) relu(s) depuis le journal {}.", size.get(),
+                    queue.size() - size.get(), journalPath);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("commentaires-write-behind-"));
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (!queue.isEmpty()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Acquitte le commentaire fourni (déjà vérifié) en lui attribuant un id, puis le place en attente d'écriture
+     *
+     * @param commentaire le nouveau commentaire, sans id
+     * @return true si le commentaire est acquitté, false si le tampon est plein ou arrêté (le commentaire est alors
+     * inchangé)
+     */
+    public boolean offer(Commentaire commentaire) {
+        if (!reserve()) {
+            return false;
+        }
+        commentaire.setId(new ObjectId().toHexString());
+        commentaire.setVersion(0L);
+        try {
+            final byte[] content = objectMapper.writeValueAsBytes(commentaire);
+            final long end;
+            synchronized (journal) {
+                end = closed ? -1 : journal.append(content);
+                if (end >= 0) {
+                    final Pending pending = new Pending(commentaire.getId(), content, end, false);
+                    pendingById.put(pending.getId(), pending);
+                    queue.offer(pending);
+                    if (size.get() >= batchSize) {
+                        requestFlush();
+                    }
+                }
+            }
+            if (end >= 0) {
+                journal.sync(end);
+                return true;
+            }
+        } catch (JsonProcessingException exception) {
+            LOGGER.warn("Impossible d'écrire le commentaire dans le journal.", exception);
+        }
+        commentaire.setId(null);
+        commentaire.setVersion(null);
+        size.decrementAndGet();
+
+        return false;
+    }
+
+    /**
+     * Annule l'écriture du commentaire correspondant à l'id fourni s'il est encore en attente, sans attendre le thread
+     * d'écriture. Si son lot est en cours d'écriture, le commentaire sera supprimé en base une fois le lot écrit.
+     * L'annulation est d'abord écrite dans le journal (et sur le disque lorsque la synchronisation est activée), afin
+     * que le commentaire ne soit pas écrit de nouveau en base après un arrêt brutal.
+     *
+     * @param id l'id du commentaire
+     * @return true si le commentaire était en attente et ne sera pas conservé en base
+     * @throws IllegalStateException si l'annulation ne peut pas être écrite dans le journal (plein ou arrêté): le
+     *                               commentaire reste alors en attente d'écriture
+     */
+    public boolean cancel(String id) {
+        final Pending pending = pendingById.get(id);
+        if (Objects.isNull(pending) || !pending.isCancellable()) {
+            return false;
+        }
+        final byte[] content = id.getBytes(StandardCharsets.UTF_8);
+        final long end;
+        synchronized (journal) {
+            end = closed ? -1 : journal.appendTombstone(content);
+            if (end >= 0) {
+                queue.offer(new Pending(null, content, end, true));
+            }
+        }
+        if (end < 0) {
+            throw new IllegalStateException(String.format(
+                    "Impossible de supprimer le commentaire %s en attente d'écriture: le journal est plein ou arrêté.",
+                    id));
+        }
+        journal.sync(end);
+
+        return pending.cancel();
+    }
+
+    /**
+     * Retourne le nombre de commentaires acquittés qui ne sont pas encore écrits en base
+     *
+     * @return le nombre de commentaires en attente
+     */
+    public int pending() {
+        return size.get();
+    }
+
+    /**
+     * Ecrit en base les commentaires en attente, lot par lot, puis valide leur écriture dans le journal. Un lot en
+     * échec est conservé et écrit de nouveau après un délai croissant, puis rejeté après le nombre maximum d'essais.
+     * Exécuté uniquement par le thread d'écriture (ou à l'arrêt, une fois ce thread terminé).
+     */
+    void flush() {
+        flushRequested.set(false);
+        if (!failedBatch.isEmpty() && System.nanoTime() - retryAt < 0) {
+            return;
+        }
+        List<Pending> batch = failedBatch.isEmpty() ? drain() : failedBatch;
+        while (!batch.isEmpty()) {
+            failedBatch = batch;
+            final List<Pending> written = new ArrayList<>(batch.size());
+            final List<Commentaire> commentaires = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                final Commentaire commentaire = !pending.isTombstone() && pending.startWriting()
+                        ? read(pending.getContent())
+                        : null;
+                if (Objects.nonNull(commentaire)) {
+                    written.add(pending);
+                    commentaires.add(commentaire);
+                }
+            }
+            try {
+                commentaireRepository.insertAll(commentaires);
+            } catch (RuntimeException exception) {
+                attempts++;
+                if (attempts < maxAttempts || !deadLetter(written, exception)) {
+                    written.forEach(Pending::stopWriting);
+                    final long delay = Math.min(flushIntervalMillis << Math.min(attempts - 1, 20),
+                            MAX_RETRY_DELAY_MILLIS);
+                    retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                    LOGGER.warn("Impossible d'écrire {} commentaire(s) en base (essai {}/{}), nouvel essai dans {} "
+                            + "ms.", batch.size(), attempts, maxAttempts, delay, exception);
+                    return;
+                }
+            }
+            complete(batch, written);
+            failedBatch = Collections.emptyList();
+            attempts = 0;
+            batch = drain();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        synchronized (journal) {
+            closed = true;
+        }
+        flusher.shutdown();
+        if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("L'écriture des commentaires en attente ne s'est pas terminée.");
+        }
+        flush();
+        journal.close();
+    }
+
+    private boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException exception) {
+                // arrêt en cours: les commentaires en attente sont écrits par destroy()
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private List<Pending> drain() {
+        final List<Pending> batch = new ArrayList<>(batchSize);
+        Pending pending;
+        while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+            batch.add(pending);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Valide l'écriture du lot dans le journal, retire ses commentaires des commentaires en attente puis supprime en
+     * base ceux qui ont été supprimés pendant l'écriture du lot, ainsi que ceux dont l'annulation a été relue depuis
+     * le journal (leur lot a pu être écrit avant l'arrêt)
+     */
+    private void complete(List<Pending> batch, List<Pending> written) {
+        synchronized (journal) {
+            journal.commit(batch.get(batch.size() - 1).getEnd());
+        }
+        final List<String> deleted = new ArrayList<>();
+        for (Pending pending : written) {
+            if (!pending.finishWriting()) {
+                deleted.add(pending.getId());
+            }
+        }
+        int commentaires = 0;
+        for (Pending pending : batch) {
+            if (pending.isTombstone()) {
+                if (Objects.nonNull(pending.getId())) {
+                    deleted.add(pending.getId());
+                }
+                continue;
+            }
+            commentaires++;
+            if (Objects.nonNull(pending.getId())) {
+                pendingById.remove(pending.getId(), pending);
+            }
+        }
+        size.addAndGet(-commentaires);
+        for (String id : deleted) {
+            try {
+                commentaireRepository.removeById(id);
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Impossible de supprimer en base le commentaire annulé {}.", id, exception);
+            }
+        }
+    }
+
+    /**
+     * Ajoute au fichier des commentaires rejetés ceux du lot qui ne sont pas en base: tous, sauf lorsque la base a
+     * refusé individuellement certains documents (les autres, ainsi que ceux déjà présents, sont alors en base)
+     *
+     * @return true si les commentaires sont écrits dans le fichier, false s'ils doivent rester dans le journal
+     */
+    private boolean deadLetter(List<Pending> written, RuntimeException exception) {
+        final List<Pending> rejected = new ArrayList<>(written.size());
+        if (exception instanceof BulkOperationException) {
+            for (BulkWriteError error : ((BulkOperationException) exception).getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    rejected.add(written.get(error.getIndex()));
+                }
+            }
+        } else {
+            rejected.addAll(written);
+        }
+        try {
+            if (Objects.nonNull(deadLetterPath.getParent())) {
+                Files.createDirectories(deadLetterPath.getParent());
+            }
+            try (OutputStream output = Files.newOutputStream(deadLetterPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Pending pending : rejected) {
+                    output.write(pending.getContent());
+                    output.write('\n');
+                }
+            }
+        } catch (IOException ioException) {
+            LOGGER.error("Impossible d'écrire {} commentaire(s) rejeté(s) dans {}, ils restent dans le journal.",
+                    rejected.size(), deadLetterPath, ioException);
+            return false;
+        }
+        LOGGER.error("{} commentaire(s) non écrit(s) en base après {} essais, ajouté(s) à {}.",
+                rejected.size(), maxAttempts, deadLetterPath, exception);
+
+        return true;
+    }
+
+    private Commentaire read(byte[] content) {
+        try {
+            return objectMapper.readValue(content, Commentaire.class);
+        } catch (IOException exception) {
+            LOGGER.warn("Commentaire illisible ignoré dans le journal.", exception);
+            return null;
+        }
+    }
+
+    private enum State {
+        PENDING, WRITING, CANCELLED, DELETE_AFTER_WRITE, WRITTEN
+    }
+
+    /**
+     * Commentaire en attente d'écriture: son id, son contenu JSON tel qu'écrit dans le journal, la position de la fin
+     * de son enregistrement et son état, modifié par les suppressions et par le thread d'écriture. Une annulation
+     * n'est jamais écrite en base: elle ne sert qu'à valider sa position dans le journal, et son id n'est renseigné
+     * que lorsqu'elle a été relue depuis le journal (le commentaire annulé doit alors être supprimé en base).
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class Pending {
+        private final String id;
+        private final byte[] content;
+        private final long end;
+        private final boolean tombstone;
+        @Getter(AccessLevel.NONE)
+        private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+
+        /**
+         * @return true si le commentaire était en attente ou en cours d'écriture (il sera alors supprimé en base)
+         */
+        boolean cancel() {
+            while (true) {
+                final State current = state.get();
+                final State next = current == State.PENDING ? State.CANCELLED
+                        : current == State.WRITING ? State.DELETE_AFTER_WRITE : null;
+                if (Objects.isNull(next)) {
+                    return false;
+                }
+                if (state.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return true si le commentaire est en attente ou en cours d'écriture
+         */
+        boolean isCancellable() {
+            final State current = state.get();
+
+            return current == State.PENDING || current == State.WRITING;
+        }
+
+        /**
+         * @return true si le commentaire doit être écrit, false s'il a été annulé
+         */
+        boolean startWriting() {
+            return state.compareAndSet(State.PENDING, State.WRITING);
+        }
+
+        /**
+         * Remet en attente le commentaire dont le lot n'a pas pu être écrit
+         */
+        void stopWriting() {
+            if (!state.compareAndSet(State.WRITING, State.PENDING)) {
+                state.compareAndSet(State.DELETE_AFTER_WRITE, State.CANCELLED);
+            }
+        }
+
+        /**
+         * @return true si le commentaire est écrit, false s'il a été supprimé pendant l'écriture de son lot
+         */
+        boolean finishWriting() {
+            return state.compareAndSet(State.WRITING, State.WRITTEN);
+        }
+    }
+}
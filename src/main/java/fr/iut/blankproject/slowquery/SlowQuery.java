@@ -0,0 +1,26 @@
+package fr.iut.blankproject.slowquery;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Commande MongoDB dont la durée a dépassé le seuil configuré. La commande et le plan d'exécution sont au format JSON
+ * étendu relâché, afin de pouvoir être rejoués dans le shell MongoDB. Le plan est renseigné de manière asynchrone, il
+ * peut donc être absent juste après la capture.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SlowQuery {
+    private Date timestamp;
+    private String database;
+    private String collection;
+    private String commandName;
+    private double durationMillis;
+    private boolean success;
+    private Integer resultSize;
+    private String command;
+    private volatile String plan;
+}
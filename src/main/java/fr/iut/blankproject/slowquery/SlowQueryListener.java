@@ -0,0 +1,231 @@
+package fr.iut.blankproject.slowquery;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.AllArgsConstructor;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Détecteur de requêtes lentes, branché sur les événements de commande du driver MongoDB. Chaque commande dont la
+ * durée dépasse le seuil (propriété mongodb.slow-query.threshold, en millisecondes, 0 pour désactiver) est conservée
+ * dans le {@link SlowQueryLog} avec sa durée et le nombre de documents renvoyés ou modifiés, puis, pour les lectures
+ * et les écritures ciblées par un filtre, son plan d'exécution est demandé en arrière-plan (explain en mode
+ * queryPlanner, désactivable avec la propriété mongodb.slow-query.explain).
+ * <p>
+ * Le driver ne garantit la validité du document de la commande que pendant l'événement de début: les commandes
+ * pouvant faire l'objet d'un explain sont donc copiées à ce moment, les autres (insert, getMore...) ne sont conservées
+ * que par leur nom. Seules les parties qui déterminent le plan d'exécution sont copiées (filtre, tri, pipeline...):
+ * les documents écrits par une mise à jour sont remplacés par une modification fictive et, comme explain n'accepte
+ * qu'une seule instruction, seule la première instruction d'une mise à jour ou d'une suppression groupée est conservée.
+ */
+@Component
+public class SlowQueryListener implements CommandListener, MongoClientSettingsBuilderCustomizer, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryListener.class);
+    private static final Map<String, Set<String>> EXPLAINED_FIELDS = Map.of(
+            "find", Set.of("filter", "sort", "projection", "hint", "skip", "limit", "collation"),
+            "aggregate", Set.of("pipeline", "hint", "collation"),
+            "count", Set.of("query", "hint", "skip", "limit", "collation"),
+            "distinct", Set.of("key", "query", "collation"),
+            "findAndModify", Set.of("query", "sort", "fields", "hint", "collation"),
+            "update", Set.of(),
+            "delete", Set.of());
+    private static final Map<String, String> STATEMENTS = Map.of("update", "updates", "delete", "deletes");
+    private static final Set<String> EXPLAINED_STATEMENT_FIELDS = Set.of("q", "multi", "limit", "hint", "collation");
+    private static final BsonDocument PLACEHOLDER_UPDATE =
+            new BsonDocument("$unset", new BsonDocument("_explain", new BsonString("")));
+    private static final String EXPLAIN = "explain";
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final SlowQueryLog slowQueryLog;
+    private final ObjectProvider<MongoDatabaseFactory> mongoDatabaseFactory;
+    private final Map<Integer, StartedCommand> startedCommands = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), daemonThreadFactory(), new ThreadPoolExecutor.DiscardPolicy());
+
+    public SlowQueryListener(@Value("${mongodb.slow-query.threshold:100}") long thresholdMillis,
+                             @Value("${mongodb.slow-query.explain:true}") boolean explain,
+                             SlowQueryLog slowQueryLog,
+                             ObjectProvider<MongoDatabaseFactory> mongoDatabaseFactory) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+        this.slowQueryLog = slowQueryLog;
+        this.mongoDatabaseFactory = mongoDatabaseFactory;
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        if (thresholdNanos > 0) {
+            builder.addCommandListener(this);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        final String commandName = event.getCommandName();
+        if (EXPLAIN.equals(commandName)) {
+            return;
+        }
+        final BsonDocument command = event.getCommand();
+        final BsonValue target = command.get(commandName);
+        final BsonValue collection = target != null && target.isString() ? target : command.get("collection");
+
+        startedCommands.put(event.getRequestId(), new StartedCommand(
+                event.getDatabaseName(),
+                collection != null && collection.isString() ? collection.asString().getValue() : null,
+                EXPLAINED_FIELDS.containsKey(commandName) ? explainable(commandName, command) : null));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        final StartedCommand startedCommand = startedCommands.remove(event.getRequestId());
+        final long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        if (startedCommand != null && elapsed >= thresholdNanos) {
+            record(startedCommand, event.getCommandName(), elapsed, true, resultSize(event.getResponse()));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        final StartedCommand startedCommand = startedCommands.remove(event.getRequestId());
+        final long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        if (startedCommand != null && elapsed >= thresholdNanos) {
+            record(startedCommand, event.getCommandName(), elapsed, false, null);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    private void record(StartedCommand startedCommand, String commandName, long elapsedNanos, boolean success,
+                        Integer resultSize) {
+        final SlowQuery slowQuery = new SlowQuery();
+        slowQuery.setTimestamp(new Date());
+        slowQuery.setDatabase(startedCommand.database);
+        slowQuery.setCollection(startedCommand.collection);
+        slowQuery.setCommandName(commandName);
+        slowQuery.setDurationMillis(elapsedNanos / 1_000_000d);
+        slowQuery.setSuccess(success);
+        slowQuery.setResultSize(resultSize);
+        if (startedCommand.command != null) {
+            slowQuery.setCommand(startedCommand.command.toJson(JSON));
+        }
+        slowQueryLog.add(slowQuery);
+        LOGGER.warn("Requête lente ({} ms): {} sur {}.{}", Math.round(slowQuery.getDurationMillis()), commandName,
+                startedCommand.database, startedCommand.collection);
+
+        if (explain && startedCommand.command != null) {
+            explainExecutor.execute(() -> explain(slowQuery, startedCommand));
+        }
+    }
+
+    private void explain(SlowQuery slowQuery, StartedCommand startedCommand) {
+        final MongoDatabaseFactory factory = mongoDatabaseFactory.getIfAvailable();
+        if (factory == null) {
+            return;
+        }
+        final BsonDocument explainCommand = new BsonDocument(EXPLAIN, startedCommand.command)
+                .append("verbosity", new BsonString("queryPlanner"));
+        try {
+            slowQuery.setPlan(factory.getMongoDatabase(startedCommand.database).runCommand(explainCommand).toJson(JSON));
+        } catch (RuntimeException e) {
+            LOGGER.debug("Impossible d'obtenir le plan d'exécution de la requête lente {}.", slowQuery.getCommand(), e);
+        }
+    }
+
+    /**
+     * Copie les parties de la commande nécessaires à l'explain, sans les documents écrits
+     *
+     * @param commandName le nom de la commande
+     * @param command     la commande envoyée par le driver
+     * @return la commande à expliquer
+     */
+    static BsonDocument explainable(String commandName, BsonDocument command) {
+        final BsonDocument explained = new BsonDocument(commandName, command.get(commandName));
+        copy(command, explained, EXPLAINED_FIELDS.get(commandName));
+        if ("findAndModify".equals(commandName)) {
+            explained.append("remove", BsonBoolean.TRUE);
+        }
+
+        final String statementsField = STATEMENTS.get(commandName);
+        final BsonValue statements = statementsField == null ? null : command.get(statementsField);
+        if (statements != null && statements.isArray() && !statements.asArray().isEmpty()) {
+            final BsonDocument statement = new BsonDocument();
+            copy(statements.asArray().get(0).asDocument(), statement, EXPLAINED_STATEMENT_FIELDS);
+            if ("update".equals(commandName)) {
+                statement.append("u", PLACEHOLDER_UPDATE.clone());
+            }
+            explained.append(statementsField, new BsonArray(List.of(statement)));
+        }
+
+        return explained;
+    }
+
+    private static void copy(BsonDocument source, BsonDocument target, Set<String> fields) {
+        source.forEach((key, value) -> {
+            if (fields.contains(key)) {
+                target.put(key, value.isDocument() ? value.asDocument().clone()
+                        : value.isArray() ? value.asArray().clone() : value);
+            }
+        });
+    }
+
+    private static Integer resultSize(BsonDocument response) {
+        final BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            final BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch")
+                    : cursor.asDocument().get("nextBatch");
+
+            return batch != null && batch.isArray() ? batch.asArray().size() : null;
+        }
+        final BsonValue n = response.get("n");
+
+        return n != null && n.isNumber() ? n.asNumber().intValue() : null;
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-query-explain-");
+        threadFactory.setDaemon(true);
+
+        return threadFactory;
+    }
+
+    @AllArgsConstructor
+    private static final class StartedCommand {
+        private final String database;
+        private final String collection;
+        private final BsonDocument command;
+    }
+}
@@ -0,0 +1,59 @@
+package fr.iut.blankproject.slowquery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Tampon circulaire des dernières requêtes lentes: lorsque la capacité (propriété mongodb.slow-query.capacity) est
+ * atteinte, la requête la plus ancienne est oubliée. Une capacité nulle ou négative désactive le tampon.
+ */
+@Component
+public class SlowQueryLog {
+    private final int capacity;
+    private final Deque<SlowQuery> queries;
+
+    public SlowQueryLog(@Value("${mongodb.slow-query.capacity:100}") int capacity) {
+        this.capacity = capacity;
+        this.queries = new ArrayDeque<>(Math.max(capacity, 0));
+    }
+
+    /**
+     * Ajoute une requête lente au tampon
+     *
+     * @param query la requête lente
+     */
+    public synchronized void add(SlowQuery query) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (queries.size() == capacity) {
+            queries.removeFirst();
+        }
+        queries.addLast(query);
+    }
+
+    /**
+     * Retourne les requêtes lentes conservées, de la plus récente à la plus ancienne
+     *
+     * @return les requêtes lentes
+     */
+    public synchronized List<SlowQuery> findAll() {
+        final List<SlowQuery> result = new ArrayList<>(queries.size());
+        queries.descendingIterator().forEachRemaining(result::add);
+
+        return result;
+    }
+
+    /**
+     * Vide le tampon
+     */
+    public synchronized void clear() {
+        queries.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package fr.iut.blankproject.statistics;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Statistiques des articles maintenues en mémoire: le nombre d'articles et le nombre de commentaires de chaque article.
+ * Elles sont d'abord calculées à partir de la base ({@link #startLoading()}, {@link #load(ArticleAggregate)},
+ * {@link #finishLoading()}), puis mises à jour à chaque écriture effectuée par l'application, ce qui permet d'y
+ * répondre sans interroger la base. Tant que le chargement n'est pas terminé ({@link #isReady()}), elles ne doivent
+ * pas être utilisées.
+ * <p>
+ * Chaque statistique est conservée avec la version de l'article dont elle provient: une écriture dont la version est
+ * antérieure à celle déjà enregistrée (mise à jour et ajout de commentaire terminés dans le désordre) est ignorée.
+ * Un commentaire ajouté pendant le chargement à un article qui n'est pas encore chargé est compté uniquement s'il a
+ * été lu par le chargement.
+ */
+@Component
+public class ArticleStatistics {
+    private static final long UNKNOWN_VERSION = -1L;
+
+    private final Map<String, VersionedAggregate> aggregates = new ConcurrentHashMap<>();
+    private final Set<String> writtenWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    /**
+     * Indique si les statistiques sont chargées et peuvent être utilisées
+     *
+     * @return true si les statistiques sont prêtes
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Démarre le chargement: à partir de cet instant, les écritures sont prises en compte
+     */
+    public void startLoading() {
+        loading = true;
+    }
+
+    /**
+     * Ajoute les statistiques d'un article lues lors du chargement. Elles sont ignorées si l'article a été écrit ou
+     * supprimé depuis le début du chargement.
+     *
+     * @param aggregate les statistiques de l'article
+     */
+    public void load(ArticleAggregate aggregate) {
+        aggregates.compute(aggregate.getId(), (id, current) -> writtenWhileLoading.contains(id)
+                ? current
+                : new VersionedAggregate(aggregate, UNKNOWN_VERSION));
+    }
+
+    /**
+     * Termine le chargement: les statistiques peuvent désormais être utilisées
+     */
+    public void finishLoading() {
+        writtenWhileLoading.clear();
+        ready = true;
+    }
+
+    /**
+     * Enregistre les statistiques de l'article fourni, qui vient d'être enregistré ou modifié. Elles sont ignorées si
+     * une version plus récente de l'article est déjà enregistrée.
+     *
+     * @param article l'article, dans la version retournée par la base
+     */
+    public void put(Article article) {
+        if (!loading || Objects.isNull(article.getId())) {
+            return;
+        }
+        markWritten(article.getId());
+        final int countCommentary = Objects.isNull(article.getCommentaires()) ? 0 : article.getCommentaires().size();
+        final VersionedAggregate written = new VersionedAggregate(
+                new ArticleAggregate(article.getId(), article.getTitre(), countCommentary),
+                Objects.isNull(article.getVersion()) ? 0L : article.getVersion());
+        aggregates.merge(article.getId(), written, VersionedAggregate::latest);
+    }
+
+    /**
+     * Retire les statistiques de l'article supprimé
+     *
+     * @param id l'id de l'article
+     */
+    public void remove(String id) {
+        if (!loading) {
+            return;
+        }
+        markWritten(id);
+        aggregates.remove(id);
+    }
+
+    /**
+     * Enregistre le nombre de commentaires de l'article fourni après l'ajout d'un commentaire. Il est ignoré si une
+     * version plus récente de l'article est déjà enregistrée.
+     *
+     * @param id              l'id de l'article
+     * @param version         la version de l'article après l'ajout
+     * @param countCommentary le nombre de commentaires de l'article après l'ajout
+     */
+    public void addCommentaire(String id, long version, int countCommentary) {
+        aggregates.computeIfPresent(id, (key, current) -> current.latest(new VersionedAggregate(
+                new ArticleAggregate(key, current.getAggregate().getTitre(), countCommentary), version)));
+    }
+
+    /**
+     * Retourne le nombre d'articles
+     *
+     * @return le nombre d'articles
+     */
+    public int countArticle() {
+        return aggregates.size();
+    }
+
+    /**
+     * Retourne le nombre de commentaires de chaque article
+     *
+     * @return le nombre de commentaires par article
+     */
+    public List<ArticleAggregate> countCommentaryByArticle() {
+        return aggregates.values().stream()
+                .map(VersionedAggregate::getAggregate)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private void markWritten(String id) {
+        if (!ready) {
+            writtenWhileLoading.add(id);
+        }
+    }
+
+    /**
+     * Statistiques d'un article et version de l'article dont elles proviennent (inconnue pour celles lues lors du
+     * chargement, remplacées par toute écriture)
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class VersionedAggregate {
+        private final ArticleAggregate aggregate;
+        private final long version;
+
+        VersionedAggregate latest(VersionedAggregate other) {
+            return other.version >= version ? other : this;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package fr.iut.blankproject.statistics;
+
+import fr.iut.blankproject.repository.ArticleRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Calcule au démarrage les statistiques des articles à partir de la base. Le calcul est exécuté lorsque la propriété
+ * statistics.articles.enabled vaut true, les statistiques étant calculées par la base à chaque appel sinon.
+ */
+@Component
+@ConditionalOnProperty(name = "statistics.articles.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ArticleStatisticsLoader implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArticleStatisticsLoader.class);
+
+    private final ArticleRepository articleRepository;
+    private final ArticleStatistics articleStatistics;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        articleStatistics.startLoading();
+        articleRepository.countCommentaryByArticle().forEach(articleStatistics::load);
+        articleStatistics.finishLoading();
+
+        LOGGER.info("Statistiques des articles chargées: {} article(s).", articleStatistics.countArticle());
+    }
+}
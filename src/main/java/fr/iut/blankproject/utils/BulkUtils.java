@@ -0,0 +1,140 @@
+package fr.iut.blankproject.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.exception.bulk.InvalidBulkContentException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire permettant d'enregistrer en masse des documents reçus sous forme de tableau JSON ou de flux NDJSON.
+ * Les éléments sont lus un par un, vérifiés individuellement puis écrits par lots: un élément invalide est signalé
+ * dans le résultat sans faire échouer les autres.
+ */
+public final class BulkUtils {
+    private BulkUtils() {
+    }
+
+    /**
+     * Lit les éléments du contenu fourni au fur et à mesure. Le contenu peut être un tableau JSON ou une suite
+     * d'objets JSON séparés par des retours à la ligne (NDJSON).
+     *
+     * @param content      le corps de la requête
+     * @param objectMapper le mapper JSON
+     * @return un itérateur sur les éléments lus
+     */
+    public static Iterator<JsonNode> readItems(InputStream content, ObjectMapper objectMapper) {
+        try {
+            final MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(content);
+
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return items.hasNextValue();
+                    } catch (IOException exception) {
+                        throw invalidContent(exception);
+                    }
+                }
+
+                @Override
+                public JsonNode next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        return items.nextValue();
+                    } catch (IOException exception) {
+                        throw invalidContent(exception);
+                    }
+                }
+            };
+        } catch (IOException exception) {
+            throw invalidContent(exception);
+        }
+    }
+
+    /**
+     * Convertit, vérifie et enregistre par lots les éléments fournis
+     *
+     * @param items        les éléments à enregistrer
+     * @param type         la classe des documents
+     * @param objectMapper le mapper permettant de convertir les éléments en documents
+     * @param validator    la vérification à appliquer à chaque document avant son enregistrement
+     * @param idGetter     fonction retournant l'id d'un document
+     * @param bulkSave     l'écriture d'un lot, qui retourne les erreurs indexées par position dans le lot
+     * @param batchSize    le nombre maximum de documents par lot
+     * @return le résultat de chaque élément, dans l'ordre du contenu reçu
+     */
+    public static <T> List<BulkItemResult> saveAll(Iterator<JsonNode> items,
+                                                   Class<T> type,
+                                                   ObjectMapper objectMapper,
+                                                   Consumer<T> validator,
+                                                   Function<T, String> idGetter,
+                                                   Function<List<T>, Map<Integer, String>> bulkSave,
+                                                   int batchSize) {
+        final List<BulkItemResult> results = new ArrayList<>();
+        final List<T> batch = new ArrayList<>(batchSize);
+        final List<Integer> batchIndexes = new ArrayList<>(batchSize);
+        int index = 0;
+
+        while (items.hasNext()) {
+            final int itemIndex = index++;
+            final JsonNode item = items.next();
+            try {
+                final T document = objectMapper.treeToValue(item, type);
+                validator.accept(document);
+                batch.add(document);
+                batchIndexes.add(itemIndex);
+            } catch (JsonProcessingException | RuntimeException exception) {
+                results.add(BulkItemResult.failure(itemIndex, item.path("id").textValue(), exception.getMessage()));
+            }
+
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, batchIndexes, idGetter, bulkSave, results);
+            }
+        }
+        writeBatch(batch, batchIndexes, idGetter, bulkSave, results);
+        results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+
+        return results;
+    }
+
+    private static <T> void writeBatch(List<T> batch,
+                                       List<Integer> batchIndexes,
+                                       Function<T, String> idGetter,
+                                       Function<List<T>, Map<Integer, String>> bulkSave,
+                                       List<BulkItemResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final Map<Integer, String> errors = bulkSave.apply(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            final String id = idGetter.apply(batch.get(i));
+            results.add(errors.containsKey(i)
+                    ? BulkItemResult.failure(batchIndexes.get(i), id, errors.get(i))
+                    : BulkItemResult.success(batchIndexes.get(i), id));
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    private static InvalidBulkContentException invalidContent(IOException exception) {
+        return new InvalidBulkContentException(
+                "Le contenu doit être un tableau JSON ou un flux NDJSON d'objets JSON.", exception);
+    }
+}
@@ -0,0 +1,92 @@
+package fr.iut.blankproject.utils;
+
+import fr.iut.blankproject.domain.CursorPage;
+import fr.iut.blankproject.exception.pagination.InvalidCursorException;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire permettant de gérer la pagination par curseur (keyset) sur le champ _id.
+ */
+public final class CursorUtils {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private CursorUtils() {
+    }
+
+    /**
+     * Permet de borner la taille de page demandée entre 1 et {@link #MAX_PAGE_SIZE}
+     *
+     * @param size la taille demandée
+     * @return la taille bornée
+     */
+    public static int boundSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Retourne la requête de page permettant de lire un élément de plus que la taille de page, afin de savoir s'il
+     * existe une page suivante sans effectuer de comptage.
+     *
+     * @param size la taille de page (déjà bornée)
+     * @return la requête de page triée sur l'id
+     */
+    public static PageRequest pageRequest(int size) {
+        return PageRequest.of(0, size + 1, Sort.by("id"));
+    }
+
+    /**
+     * Encode l'id fourni en curseur opaque
+     *
+     * @param id l'id du dernier élément de la page
+     * @return le curseur
+     */
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode le curseur fourni afin d'obtenir l'id du dernier élément de la page précédente. Un curseur dont l'id
+     * n'est pas un ObjectId est refusé: il serait sinon comparé comme une chaîne aux ObjectId de la collection et
+     * retournerait silencieusement une page vide.
+     *
+     * @param cursor le curseur
+     * @return l'id
+     */
+    public static String decode(String cursor) {
+        try {
+            final String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!ObjectId.isValid(id)) {
+                throw new InvalidCursorException(String.format("Le curseur %s n'est pas valide.", cursor));
+            }
+            return id;
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidCursorException(String.format("Le curseur %s n'est pas valide.", cursor));
+        }
+    }
+
+    /**
+     * Construit la page à retourner à partir des éléments lus (au plus size + 1 éléments)
+     *
+     * @param elements les éléments lus en base
+     * @param size     la taille de page
+     * @param idGetter fonction permettant d'obtenir l'id d'un élément
+     * @return la page
+     */
+    public static <T> CursorPage<T> toPage(List<T> elements, int size, Function<T, String> idGetter) {
+        if (elements.size() <= size) {
+            return new CursorPage<>(elements, null);
+        }
+        final List<T> content = elements.subList(0, size);
+
+        return new CursorPage<>(content, encode(idGetter.apply(content.get(size - 1))));
+    }
+}
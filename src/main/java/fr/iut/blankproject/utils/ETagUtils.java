@@ -0,0 +1,77 @@
+package fr.iut.blankproject.utils;
+
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire permettant de construire les ETags (forts) des réponses HTTP, à partir de la version d'un document
+ * ou du contenu d'une liste de résultats, et de retrouver la version attendue par un en-tête If-Match.
+ */
+public final class ETagUtils {
+
+    private ETagUtils() {
+    }
+
+    /**
+     * Construit l'ETag d'un document à partir de sa version (un document sans version est en version 0)
+     *
+     * @param version la version du document
+     * @return l'ETag entre guillemets
+     */
+    public static String of(Long version) {
+        return quote(String.valueOf(version == null ? 0L : version));
+    }
+
+    /**
+     * Construit l'ETag d'une liste de résultats à partir d'une empreinte (MD5) des clés de ses éléments. La clé d'un
+     * élément doit changer dès que sa représentation change (par exemple son id et sa version).
+     *
+     * @param items  les éléments de la liste
+     * @param key    la fonction retournant la clé d'un élément
+     * @param extras des valeurs supplémentaires faisant partie de la réponse (par exemple le curseur suivant)
+     * @return l'ETag entre guillemets
+     */
+    public static <T> String of(Collection<T> items, Function<T, ?> key, Object... extras) {
+        final StringBuilder content = new StringBuilder();
+        items.forEach(item -> content.append(key.apply(item)).append('\n'));
+        for (Object extra : extras) {
+            content.append(extra).append('\n');
+        }
+
+        return quote(DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Retourne la version attendue par l'en-tête If-Match fourni, qui doit contenir un ETag construit à partir d'une
+     * version. Un en-tête absent ou "*" n'attend aucune version en particulier.
+     *
+     * @param ifMatch la valeur de l'en-tête If-Match (optionnelle)
+     * @return la version attendue, null si aucune version n'est attendue
+     * @throws VersionMismatchException si l'ETag ne correspond à aucune version (ETag faible, liste d'ETags...)
+     */
+    public static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final String etag = ifMatch.trim();
+        try {
+            if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            }
+        } catch (NumberFormatException exception) {
+            // l'ETag n'est pas une version, traité ci-dessous
+        }
+
+        throw new VersionMismatchException(
+                String.format("L'ETag %s fourni dans l'en-tête If-Match ne correspond à aucune version.", etag));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
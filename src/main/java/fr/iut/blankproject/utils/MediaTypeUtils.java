@@ -0,0 +1,13 @@
+package fr.iut.blankproject.utils;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire regroupant les types de média qui ne sont pas fournis par Spring.
+ */
+public final class MediaTypeUtils {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private MediaTypeUtils() {
+    }
+}
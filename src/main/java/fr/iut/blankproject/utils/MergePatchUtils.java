@@ -0,0 +1,105 @@
+package fr.iut.blankproject.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Classe utilitaire permettant de traduire un JSON Merge Patch (RFC 7386) en mise à jour MongoDB minimale: chaque
+ * champ présent dans le patch devient un $set (ou un $unset lorsque sa valeur est null), les objets imbriqués étant
+ * fusionnés champ par champ. Les champs absents du patch ne sont pas envoyés à la base.
+ */
+public final class MergePatchUtils {
+    private MergePatchUtils() {
+    }
+
+    /**
+     * Traduit le patch fourni en mise à jour MongoDB pour l'entité fournie
+     *
+     * @param patch        le JSON Merge Patch
+     * @param entityClass  la classe de l'entité modifiée
+     * @param objectMapper le mapper permettant de convertir les valeurs du patch dans le type des champs
+     * @param error        fonction construisant l'exception à lever lorsqu'un champ est inconnu ou invalide
+     * @return la mise à jour correspondante
+     */
+    public static Update toUpdate(Map<String, Object> patch,
+                                  Class<?> entityClass,
+                                  ObjectMapper objectMapper,
+                                  Function<String, ? extends RuntimeException> error) {
+        final Update update = new Update();
+        addToUpdate(update, "", patch, entityClass, objectMapper, error);
+
+        return update;
+    }
+
+    /**
+     * Indique si le patch supprime le champ fourni ou lui affecte une valeur vide
+     *
+     * @param patch le JSON Merge Patch
+     * @param field le nom du champ
+     * @return true si le champ est présent dans le patch sans valeur textuelle
+     */
+    public static boolean removesOrBlanks(Map<String, Object> patch, String field) {
+        if (!patch.containsKey(field)) {
+            return false;
+        }
+        final Object value = patch.get(field);
+
+        return Objects.isNull(value) || value instanceof String && !StringUtils.hasText((String) value);
+    }
+
+    /**
+     * Indique si le patch supprime l'objet imbriqué fourni ou l'identifiant qu'il contient
+     *
+     * @param patch   le JSON Merge Patch
+     * @param field   le nom du champ contenant l'objet imbriqué
+     * @param idField le nom de l'identifiant de l'objet imbriqué
+     * @return true si l'objet ou son identifiant est supprimé par le patch
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean removesNestedId(Map<String, Object> patch, String field, String idField) {
+        if (!patch.containsKey(field)) {
+            return false;
+        }
+        final Object value = patch.get(field);
+
+        return !(value instanceof Map) || removesOrBlanks((Map<String, Object>) value, idField);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addToUpdate(Update update,
+                                    String path,
+                                    Map<String, Object> patch,
+                                    Class<?> type,
+                                    ObjectMapper objectMapper,
+                                    Function<String, ? extends RuntimeException> error) {
+        patch.forEach((key, value) -> {
+            final Field field = ReflectionUtils.findField(type, key);
+            final String fieldPath = path.isEmpty() ? key : path + "." + key;
+            if (Objects.isNull(field)) {
+                throw error.apply(String.format("Le champ %s n'existe pas.", fieldPath));
+            }
+
+            if (Objects.isNull(value)) {
+                update.unset(fieldPath);
+            } else if (value instanceof Map && !Map.class.isAssignableFrom(field.getType())) {
+                addToUpdate(update, fieldPath, (Map<String, Object>) value, field.getType(), objectMapper, error);
+            } else {
+                final JavaType fieldType = objectMapper.getTypeFactory().constructType(field.getGenericType());
+                try {
+                    update.set(fieldPath, objectMapper.convertValue(value, fieldType));
+                } catch (IllegalArgumentException exception) {
+                    throw error.apply(String.format("La valeur du champ %s n'est pas valide.", fieldPath));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package fr.iut.blankproject.perf;
+
+import fr.iut.blankproject.MartinRenaudApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Démarre l'application sur une base MongoDB embarquée (de.flapdoodle.embed.mongo), démarrée pour l'occasion sur un
+ * port libre, afin que les benchmarks et les tests de charge ne dépendent d'aucun service externe. Les index déclarés
+ * sur les entités sont créés au démarrage afin de mesurer les requêtes dans les mêmes conditions qu'en production.
+ */
+public final class PerfApplication {
+    private static final List<String> PROPERTIES = Arrays.asList(
+            "spring.data.mongodb.database=perf",
+            "spring.mongodb.embedded.version=4.0.2",
+            "migration.indexes.enabled=true",
+            "logging.level.org.springframework.data=warn");
+
+    private PerfApplication() {
+    }
+
+    /**
+     * Démarre l'application
+     *
+     * @param webApplicationType le type d'application web (NONE pour n'utiliser que les services)
+     * @param properties         des propriétés supplémentaires, au format clé=valeur
+     * @return le contexte de l'application, à fermer à la fin de la mesure
+     */
+    public static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String... properties) {
+        final List<String> allProperties = new ArrayList<>(PROPERTIES);
+        allProperties.addAll(Arrays.asList(properties));
+
+        return new SpringApplicationBuilder(MartinRenaudApplication.class)
+                .web(webApplicationType)
+                .properties(allProperties.toArray(String[]::new))
+                .run();
+    }
+}
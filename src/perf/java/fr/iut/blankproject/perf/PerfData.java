@@ -0,0 +1,104 @@
+package fr.iut.blankproject.perf;
+
+import fr.iut.blankproject.domain.Adresse;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.Categorie;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Génère des utilisateurs, articles et commentaires de tailles réalistes pour les benchmarks et les tests de charge.
+ * La génération est déterministe pour une graine donnée, afin que deux exécutions travaillent sur les mêmes données.
+ */
+public final class PerfData {
+    private static final List<String> WORDS = Arrays.asList(
+            "mongo", "spring", "index", "article", "requête", "performance", "cache", "java", "agrégation",
+            "curseur", "document", "collection", "projection", "réactif", "pagination", "recherche");
+
+    private final Random random;
+
+    public PerfData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Génère un utilisateur valide, sans id
+     *
+     * @param index le numéro de l'utilisateur, utilisé pour rendre le pseudo unique
+     * @return l'utilisateur
+     */
+    public User user(int index) {
+        return User.builder()
+                .pseudo("utilisateur-" + index + "-" + word())
+                .password(sentence(3))
+                .adresse(new Adresse(random.nextInt(200) + " rue " + word(),
+                        String.valueOf(10000 + random.nextInt(90000))))
+                .build();
+    }
+
+    /**
+     * Génère un article valide, sans id, écrit par l'auteur fourni
+     *
+     * @param author         l'auteur de l'article
+     * @param contentWords   le nombre de mots du contenu
+     * @param commentaires   le nombre de commentaires de l'article
+     * @param commentAuthors les auteurs possibles des commentaires
+     * @return l'article
+     */
+    public Article article(AuthorRef author, int contentWords, int commentaires, List<AuthorRef> commentAuthors) {
+        final List<Commentaire> articleCommentaires = new ArrayList<>(commentaires);
+        for (int i = 0; i < commentaires; i++) {
+            articleCommentaires.add(commentaire(commentAuthors.get(random.nextInt(commentAuthors.size()))));
+        }
+
+        return Article.builder()
+                .titre(sentence(3 + random.nextInt(5)))
+                .contenu(sentence(contentWords))
+                .utilisateur(author)
+                .publishedDate(new Date(System.currentTimeMillis() - random.nextInt(365) * 86_400_000L))
+                .categories(Arrays.asList(new Categorie(word()), new Categorie(word())))
+                .commentaires(articleCommentaires)
+                .build();
+    }
+
+    /**
+     * Génère un commentaire valide, sans id, écrit par l'auteur fourni
+     *
+     * @param author l'auteur du commentaire
+     * @return le commentaire
+     */
+    public Commentaire commentaire(AuthorRef author) {
+        return Commentaire.builder()
+                .contenu(sentence(10 + random.nextInt(30)))
+                .utilisateur(author)
+                .build();
+    }
+
+    /**
+     * Retourne un mot tiré au hasard
+     *
+     * @return le mot
+     */
+    public String word() {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private String sentence(int words) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(word());
+        }
+        return sentence.toString();
+    }
+}
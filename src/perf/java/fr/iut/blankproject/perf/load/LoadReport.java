@@ -0,0 +1,77 @@
+package fr.iut.blankproject.perf.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Résultat d'un test de charge, écrit au format JSON afin d'être comparé avec celui d'une exécution précédente. Les
+ * latences sont exprimées en millisecondes et le débit en requêtes par seconde. Le total regroupe les requêtes de
+ * toutes les routes. En mode réactif, seules les routes communes aux contrôleurs et aux routes fonctionnelles sont
+ * mesurées.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class LoadReport {
+    private int threads;
+    private boolean reactive;
+    private boolean virtualThreads;
+    private double durationSeconds;
+    private RouteReport total;
+    private List<RouteReport> routes;
+
+    /**
+     * Compare ce rapport à un rapport de référence. Une route régresse lorsque son p99 augmente ou que son débit
+     * diminue de plus de la tolérance fournie, ou lorsqu'elle renvoie des erreurs.
+     *
+     * @param baseline  le rapport de référence
+     * @param tolerance la variation tolérée (0.2 pour 20 %)
+     * @return la description des régressions (vide s'il n'y en a aucune)
+     */
+    public List<String> regressionsFrom(LoadReport baseline, double tolerance) {
+        final Map<String, RouteReport> baselineRoutes = baseline.getRoutes().stream()
+                .collect(Collectors.toMap(RouteReport::getRoute, Function.identity()));
+        final List<String> regressions = new ArrayList<>();
+        for (RouteReport route : routes) {
+            if (route.getErrors() > 0) {
+                regressions.add(String.format("%s: %d erreurs", route.getRoute(), route.getErrors()));
+            }
+            final RouteReport reference = baselineRoutes.get(route.getRoute());
+            if (reference == null) {
+                continue;
+            }
+            if (route.getP99() > reference.getP99() * (1 + tolerance)) {
+                regressions.add(String.format("%s: p99 %.3f ms au lieu de %.3f ms",
+                        route.getRoute(), route.getP99(), reference.getP99()));
+            }
+            if (route.getThroughput() < reference.getThroughput() * (1 - tolerance)) {
+                regressions.add(String.format("%s: débit %.1f req/s au lieu de %.1f req/s",
+                        route.getRoute(), route.getThroughput(), reference.getThroughput()));
+            }
+        }
+
+        return regressions;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Data
+    public static class RouteReport {
+        private String route;
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50;
+        private double p99;
+        private double p999;
+        private double max;
+    }
+}
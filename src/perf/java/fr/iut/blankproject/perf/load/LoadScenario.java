@@ -0,0 +1,328 @@
+package fr.iut.blankproject.perf.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.iut.blankproject.perf.PerfData;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Mélange pondéré des requêtes envoyées sur les endpoints /api/v1.0/... pendant le test de charge, à dominante de
+ * lectures. Les documents supprimés sont uniquement ceux créés pendant le test, afin que le volume de données reste
+ * stable et que les lectures portent toujours sur des documents existants.
+ * <p>
+ * Un PUT doit porter la version du document remplacé: les documents remplacés sont donc eux aussi ceux créés pendant
+ * le test, dont la version est connue par la réponse de leur dernière écriture. Un document est retiré de sa file le
+ * temps de son remplacement ou de sa suppression, si bien que deux clients ne l'écrivent jamais en même temps et
+ * qu'aucun remplacement n'est refusé pour une version périmée.
+ * <p>
+ * En mode réactif, le scénario se limite aux routes que les routes fonctionnelles du profil "reactive" exposent
+ * également, afin que les deux modes soient comparés sur les mêmes requêtes.
+ */
+final class LoadScenario {
+    private static final String ARTICLES = "/api/v1.0/articles";
+    private static final String USERS = "/api/v1.0/users";
+    private static final String COMMENTAIRES = "/api/v1.0/commentaires";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int BULK_SIZE = 10;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final Set<String> SERVLET_ONLY_ROUTES = Set.of(
+            "GET " + ARTICLES + "?fields",
+            "GET " + ARTICLES + "/summaries",
+            "GET " + ARTICLES + "/search/text",
+            "GET " + ARTICLES + "/commentary/count/page",
+            "GET " + ARTICLES + "/commentary/count/top",
+            "GET " + ARTICLES + "/export",
+            "PATCH " + ARTICLES + "/{id}",
+            "POST " + ARTICLES + "/{id}/commentaires",
+            "POST " + ARTICLES + "/bulk",
+            "GET " + USERS + "/search/ids",
+            "PATCH " + USERS + "/{id}",
+            "POST " + USERS + "/bulk",
+            "PATCH " + COMMENTAIRES + "/{id}");
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final SeedData seed;
+    private final int commentairesPerArticle;
+    private final boolean reactive;
+    private final List<Operation> operations = new ArrayList<>();
+    private final Queue<CreatedDocument> createdArticles = new ConcurrentLinkedQueue<>();
+    private final Queue<CreatedDocument> createdUsers = new ConcurrentLinkedQueue<>();
+    private final Queue<CreatedDocument> createdCommentaires = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger userIndex = new AtomicInteger(1_000_000);
+    private int totalWeight;
+
+    LoadScenario(URI baseUri, ObjectMapper objectMapper, SeedData seed, int commentairesPerArticle, boolean reactive) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.seed = seed;
+        this.commentairesPerArticle = commentairesPerArticle;
+        this.reactive = reactive;
+
+        articles();
+        users();
+        commentaires();
+    }
+
+    /**
+     * Retourne les routes du scénario, sous la forme "VERBE /chemin/{variable}"
+     *
+     * @return les routes
+     */
+    List<String> routes() {
+        return operations.stream().map(Operation::getRoute).collect(Collectors.toList());
+    }
+
+    /**
+     * Tire une opération au hasard selon les poids du scénario
+     *
+     * @return l'opération
+     */
+    Operation next() {
+        int draw = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            draw -= operation.getWeight();
+            if (draw < 0) {
+                return operation;
+            }
+        }
+
+        throw new IllegalStateException("Le scénario ne contient aucune opération.");
+    }
+
+    private void articles() {
+        read(20, "GET " + ARTICLES + "/{id}", data -> get(ARTICLES + "/" + random(seed.getArticleIds())));
+        read(8, "GET " + ARTICLES, data -> get(ARTICLES + "?size=20"));
+        read(2, "GET " + ARTICLES + "?fields", data -> get(ARTICLES + "?size=20&fields=titre,publishedDate"));
+        read(4, "GET " + ARTICLES + "/summaries", data -> get(ARTICLES + "/summaries?size=20"));
+        read(3, "GET " + ARTICLES + "/search/titre/exact-matching",
+                data -> get(ARTICLES + "/search/titre/exact-matching?titre=" + encode(random(seed.getTitres()))));
+        read(3, "GET " + ARTICLES + "/search/titre/containing",
+                data -> get(ARTICLES + "/search/titre/containing?titre=" + encode(data.word())));
+        read(3, "GET " + ARTICLES + "/search/text", data -> get(ARTICLES + "/search/text?q=" + encode(data.word())));
+        read(2, "GET " + ARTICLES + "/search/published-date/between",
+                data -> get(ARTICLES + "/search/published-date/between?" + dateRange(30)));
+        read(2, "GET " + ARTICLES + "/search",
+                data -> get(ARTICLES + "/search?titre=" + encode(data.word()) + "&" + dateRange(180)));
+        read(1, "GET " + ARTICLES + "/count", data -> get(ARTICLES + "/count"));
+        read(1, "GET " + ARTICLES + "/commentary/count", data -> get(ARTICLES + "/commentary/count"));
+        read(1, "GET " + ARTICLES + "/commentary/count/page",
+                data -> get(ARTICLES + "/commentary/count/page?size=20&" + dateRange(180)));
+        read(1, "GET " + ARTICLES + "/commentary/count/top",
+                data -> get(ARTICLES + "/commentary/count/top?limit=10&" + dateRange(180)));
+        read(1, "GET " + ARTICLES + "/export", data -> get(ARTICLES + "/export"));
+
+        create(3, "POST " + ARTICLES, createdArticles, data -> post(ARTICLES, article(data)));
+        update(3, "PUT " + ARTICLES + "/{id}", ARTICLES, createdArticles, this::article);
+        read(3, "PATCH " + ARTICLES + "/{id}", data -> patch(ARTICLES + "/" + random(seed.getArticleIds()),
+                Collections.singletonMap("contenu", data.word() + " " + data.word())));
+        delete(3, "DELETE " + ARTICLES + "/{id}", ARTICLES, createdArticles);
+        read(4, "POST " + ARTICLES + "/{id}/commentaires", data -> post(
+                ARTICLES + "/" + random(seed.getArticleIds()) + "/commentaires",
+                data.commentaire(random(seed.getAuthors()))));
+        read(1, "POST " + ARTICLES + "/bulk",
+                data -> bulk(ARTICLES, IntStream.range(0, BULK_SIZE).mapToObj(i -> article(data))));
+    }
+
+    private void users() {
+        read(10, "GET " + USERS + "/{id}", data -> get(USERS + "/" + random(seed.getAuthors()).getId()));
+        read(4, "GET " + USERS, data -> get(USERS + "?size=20"));
+        read(2, "GET " + USERS + "/search/pseudo/exact-matching", data -> get(
+                USERS + "/search/pseudo/exact-matching?pseudo=" + encode(random(seed.getAuthors()).getPseudo())));
+        read(2, "GET " + USERS + "/search/pseudo/containing",
+                data -> get(USERS + "/search/pseudo/containing?pseudo=" + encode(data.word())));
+        read(2, "GET " + USERS + "/search/ids", data -> get(USERS + "/search/ids?ids=" + IntStream.range(0, 10)
+                .mapToObj(i -> random(seed.getAuthors()).getId())
+                .collect(Collectors.joining(","))));
+
+        create(2, "POST " + USERS, createdUsers, data -> post(USERS, data.user(userIndex.incrementAndGet())));
+        update(2, "PUT " + USERS + "/{id}", USERS, createdUsers, data -> data.user(userIndex.incrementAndGet()));
+        read(2, "PATCH " + USERS + "/{id}", data -> patch(USERS + "/" + random(seed.getAuthors()).getId(),
+                Collections.singletonMap("password", data.word())));
+        delete(2, "DELETE " + USERS + "/{id}", USERS, createdUsers);
+        read(1, "POST " + USERS + "/bulk", data -> bulk(USERS,
+                IntStream.range(0, BULK_SIZE).mapToObj(i -> data.user(userIndex.incrementAndGet()))));
+    }
+
+    private void commentaires() {
+        read(5, "GET " + COMMENTAIRES + "/{id}", data -> get(COMMENTAIRES + "/" + random(seed.getCommentaireIds())));
+        read(2, "GET " + COMMENTAIRES, data -> get(COMMENTAIRES + "?size=20"));
+
+        create(1, "POST " + COMMENTAIRES, createdCommentaires,
+                data -> post(COMMENTAIRES, data.commentaire(random(seed.getAuthors()))));
+        update(1, "PUT " + COMMENTAIRES + "/{id}", COMMENTAIRES, createdCommentaires,
+                data -> data.commentaire(random(seed.getAuthors())));
+        read(1, "PATCH " + COMMENTAIRES + "/{id}", data -> patch(COMMENTAIRES + "/" + random(seed.getCommentaireIds()),
+                Collections.singletonMap("contenu", data.word())));
+        delete(1, "DELETE " + COMMENTAIRES + "/{id}", COMMENTAIRES, createdCommentaires);
+    }
+
+    private void read(int weight, String route, Function<PerfData, HttpRequest> request) {
+        add(new Operation(route, weight, request, body -> { }));
+    }
+
+    private void create(int weight, String route, Queue<CreatedDocument> created,
+                        Function<PerfData, HttpRequest> request) {
+        add(new Operation(route, weight, request, body -> created.add(createdDocument(body))));
+    }
+
+    private void update(int weight, String route, String path, Queue<CreatedDocument> created,
+                        Function<PerfData, Object> replacement) {
+        add(new Operation(route, weight, data -> {
+            final CreatedDocument document = created.poll();
+            if (document == null) {
+                return null;
+            }
+            final ObjectNode body = objectMapper.valueToTree(replacement.apply(data));
+            body.put("version", document.getVersion());
+
+            return put(path + "/" + document.getId(), body);
+        }, body -> created.add(createdDocument(body))));
+    }
+
+    private void delete(int weight, String route, String path, Queue<CreatedDocument> created) {
+        add(new Operation(route, weight, data -> {
+            final CreatedDocument document = created.poll();
+
+            return document == null ? null : HttpRequest.newBuilder(baseUri.resolve(path + "/" + document.getId()))
+                    .timeout(TIMEOUT)
+                    .DELETE()
+                    .build();
+        }, body -> { }));
+    }
+
+    private void add(Operation operation) {
+        if (reactive && SERVLET_ONLY_ROUTES.contains(operation.getRoute())) {
+            return;
+        }
+        operations.add(operation);
+        totalWeight += operation.getWeight();
+    }
+
+    private Object article(PerfData data) {
+        return data.article(random(seed.getAuthors()), 300, commentairesPerArticle, seed.getAuthors());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return withBody(path, "POST", "application/json", body);
+    }
+
+    private HttpRequest put(String path, Object body) {
+        return withBody(path, "PUT", "application/json", body);
+    }
+
+    private HttpRequest patch(String path, Map<String, Object> patch) {
+        return withBody(path, "PATCH", MERGE_PATCH, patch);
+    }
+
+    private HttpRequest bulk(String path, Stream<?> items) {
+        return HttpRequest.newBuilder(baseUri.resolve(path + "/bulk"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", NDJSON)
+                .POST(HttpRequest.BodyPublishers.ofString(items.map(this::json).collect(Collectors.joining("\n"))))
+                .build();
+    }
+
+    private HttpRequest withBody(String path, String method, String contentType, Object body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", contentType)
+                .method(method, HttpRequest.BodyPublishers.ofString(json(body)))
+                .build();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CreatedDocument createdDocument(String body) {
+        try {
+            final JsonNode document = objectMapper.readTree(body);
+
+            return new CreatedDocument(document.path("id").asText(), document.path("version").asLong());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String dateRange(int days) {
+        final LocalDate to = LocalDate.now();
+
+        return "from=" + to.minusDays(days) + "&to=" + to;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static <T> T random(List<T> list) {
+        return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+    }
+
+    /**
+     * Document créé pendant le test et version renvoyée par sa dernière écriture
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class CreatedDocument {
+        private final String id;
+        private final long version;
+    }
+
+    /**
+     * Requête d'une route du scénario. La fabrique de requête peut renvoyer null lorsque l'opération n'est pas
+     * possible (suppression alors qu'aucun document n'a encore été créé), l'opération est alors ignorée.
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static final class Operation {
+        @Getter
+        private final String route;
+        @Getter
+        private final int weight;
+        private final Function<PerfData, HttpRequest> request;
+        private final Consumer<String> onSuccess;
+
+        HttpRequest request(PerfData data) {
+            return request.apply(data);
+        }
+
+        void onSuccess(String body) {
+            onSuccess.accept(body);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package fr.iut.blankproject.perf.load;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.concurrency.VirtualThreads;
+import fr.iut.blankproject.perf.PerfApplication;
+import fr.iut.blankproject.perf.PerfData;
+import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.UserService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Test de charge de bout en bout: démarre l'application sur une base MongoDB embarquée, y insère le volume de données
+ * demandé, puis envoie pendant une durée fixe le mélange de requêtes de {@link LoadScenario} depuis plusieurs threads
+ * (chaque thread attend la réponse avant d'envoyer la requête suivante). Le débit et les latences p50/p99/p999 de
+ * chaque route sont affichés et écrits au format JSON. Lorsqu'un rapport de référence est fourni, le test échoue si une
+ * route régresse.
+ * <p>
+ * Plusieurs nombres de clients et modes d'exécution peuvent être mesurés en une fois, afin de suivre l'évolution du
+ * débit et des latences avec la concurrence: l'application est démarrée une fois par mode (pool de threads de Tomcat,
+ * threads virtuels, ou profil "reactive" sur Netty), puis chaque nombre de clients est mesuré à son tour, précédé de
+ * sa propre chauffe. Le rapport JSON contient alors la liste des exécutions. En mode réactif, le scénario se limite aux
+ * routes exposées par les deux modes.
+ * <p>
+ * Paramètres (propriétés système):
+ * <ul>
+ *     <li>load.users, load.articles, load.commentaires: volume inséré (commentaires par article)</li>
+ *     <li>load.threads: nombre de clients simultanés, ou liste de nombres séparés par des virgules</li>
+ *     <li>load.virtual: true pour traiter les requêtes sur des threads virtuels (Java 21 et plus), ou false,true pour
+ *     mesurer les deux modes</li>
+ *     <li>load.reactive: true pour démarrer l'application avec le profil "reactive", ou false,true pour mesurer les
+ *     deux modes (load.virtual ne s'applique qu'au mode servlet)</li>
+ *     <li>load.warmup, load.duration: durées de chauffe et de mesure, en secondes</li>
+ *     <li>load.result: fichier du rapport JSON</li>
+ *     <li>load.baseline, load.tolerance: rapport de référence et variation tolérée (0.2 pour 20 %), pour une seule
+ *     exécution</li>
+ *     <li>load.properties: propriétés supplémentaires de l'application, séparées par des virgules</li>
+ * </ul>
+ */
+public final class LoadTest {
+    private static final ObjectMapper REPORT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final List<Integer> threadCounts = values("load.threads", "16", Integer::valueOf);
+        final List<Boolean> virtualModes = values("load.virtual", "false", Boolean::valueOf);
+        final List<Boolean> reactiveModes = values("load.reactive", "false", Boolean::valueOf);
+        final int warmup = Integer.getInteger("load.warmup", 10);
+        final int duration = Integer.getInteger("load.duration", 60);
+        final int commentaires = Integer.getInteger("load.commentaires", 5);
+        final double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.2"));
+        final String baseline = System.getProperty("load.baseline");
+        final File result = new File(System.getProperty("load.result", "target/load-result.json"));
+        if (threadCounts.size() * virtualModes.size() * reactiveModes.size() > 1 && StringUtils.hasText(baseline)) {
+            throw new IllegalArgumentException("Un rapport de référence ne peut être comparé qu'à une seule "
+                    + "exécution (une seule valeur pour load.threads, load.virtual et load.reactive).");
+        }
+
+        final List<LoadReport> reports = new ArrayList<>();
+        for (boolean reactive : reactiveModes) {
+            for (boolean virtual : reactive ? List.of(false) : virtualModes) {
+                final boolean virtualThreads = virtual && virtualThreadsAvailable();
+                if (virtual && !virtualThreads) {
+                    System.out.printf("Threads virtuels indisponibles sur Java %d: les requêtes sont traitées par le "
+                            + "pool de threads de Tomcat.%n", Runtime.version().feature());
+                }
+                try (ConfigurableApplicationContext context = PerfApplication.run(
+                        reactive ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET,
+                        applicationProperties(reactive, virtual).toArray(String[]::new))) {
+                    final SeedData seed = seed(context, Integer.getInteger("load.users", 200),
+                            Integer.getInteger("load.articles", 2000), commentaires);
+                    final URI baseUri = URI.create("http://localhost:"
+                            + context.getEnvironment().getRequiredProperty("local.server.port"));
+                    final LoadScenario scenario = new LoadScenario(baseUri, context.getBean(ObjectMapper.class),
+                            seed, commentaires, reactive);
+
+                    for (int threads : threadCounts) {
+                        final LoadReport report = run(scenario, threads, reactive, virtualThreads, warmup, duration);
+                        print(report);
+                        reports.add(report);
+                    }
+                }
+            }
+        }
+
+        final boolean scaling = reports.size() > 1;
+        if (scaling) {
+            printScaling(reports);
+        }
+        result.getAbsoluteFile().getParentFile().mkdirs();
+        REPORT_MAPPER.writeValue(result, scaling ? reports : reports.get(0));
+        System.out.println("Rapport écrit dans " + result);
+
+        if (StringUtils.hasText(baseline)) {
+            final List<String> regressions = reports.get(0).regressionsFrom(
+                    REPORT_MAPPER.readValue(new File(baseline), LoadReport.class), tolerance);
+            regressions.forEach(regression -> System.out.println("Régression: " + regression));
+            System.exit(regressions.isEmpty() ? 0 : 1);
+        }
+        System.exit(0);
+    }
+
+    private static <T> List<T> values(String property, String defaultValue, Function<String, T> parser) {
+        return Arrays.stream(StringUtils.tokenizeToStringArray(System.getProperty(property, defaultValue), ","))
+                .map(parser)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> applicationProperties(boolean reactive, boolean virtual) {
+        final List<String> properties = new ArrayList<>();
+        properties.add("server.port=0");
+        if (reactive) {
+            properties.add("spring.profiles.active=reactive");
+        }
+        properties.add("logging.level.root=warn");
+        properties.add("threads.virtual.enabled=" + virtual);
+        StringUtils.commaDelimitedListToSet(System.getProperty("load.properties", "")).stream()
+                .filter(StringUtils::hasText)
+                .forEach(properties::add);
+
+        return properties;
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor()
+                .map(executor -> {
+                    executor.shutdown();
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private static SeedData seed(ConfigurableApplicationContext context, int users, int articles, int commentaires) {
+        final UserService userService = context.getBean(UserService.class);
+        final ArticleService articleService = context.getBean(ArticleService.class);
+        final PerfData data = new PerfData(42);
+
+        final List<AuthorRef> authors = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            final User user = userService.save(data.user(i));
+            authors.add(new AuthorRef(user.getId(), user.getPseudo()));
+        }
+        final List<String> articleIds = new ArrayList<>();
+        final List<String> titres = new ArrayList<>();
+        final List<String> commentaireIds = new ArrayList<>();
+        for (int i = 0; i < articles; i++) {
+            final Article article = articleService.save(data.article(authors.get(i % users), 300, 0, authors));
+            articleIds.add(article.getId());
+            titres.add(article.getTitre());
+            for (int j = 0; j < commentaires; j++) {
+                commentaireIds.add(articleService.addCommentaire(article.getId(),
+                        data.commentaire(authors.get((i + j) % users))).getId());
+            }
+        }
+        System.out.printf("Données insérées: %d utilisateurs, %d articles, %d commentaires%n",
+                users, articles, commentaireIds.size());
+
+        return new SeedData(authors, articleIds, titres, commentaireIds);
+    }
+
+    private static LoadReport run(LoadScenario scenario, int threads, boolean reactive, boolean virtualThreads,
+                                  int warmup, int duration) throws InterruptedException {
+        final Map<String, RouteStatistics> statistics = new LinkedHashMap<>();
+        final RouteStatistics total = new RouteStatistics("Total");
+        scenario.routes().forEach(route -> statistics.put(route, new RouteStatistics(route)));
+        final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup + duration);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            final PerfData data = new PerfData(i);
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    final LoadScenario.Operation operation = scenario.next();
+                    final HttpRequest request = operation.request(data);
+                    if (request != null) {
+                        send(client, operation, request, statistics.get(operation.getRoute()), total);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        TimeUnit.SECONDS.sleep(warmup);
+        statistics.values().forEach(RouteStatistics::reset);
+        total.reset();
+        final long start = System.nanoTime();
+        executor.awaitTermination(duration + 60L, TimeUnit.SECONDS);
+        final double measured = (System.nanoTime() - start) / 1e9;
+
+        return new LoadReport(threads, reactive, virtualThreads, measured, total.report(measured), statistics.values().stream()
+                .map(routeStatistics -> routeStatistics.report(measured))
+                .collect(Collectors.toList()));
+    }
+
+    private static void send(HttpClient client, LoadScenario.Operation operation, HttpRequest request,
+                             RouteStatistics statistics, RouteStatistics total) {
+        final long start = System.nanoTime();
+        try {
+            final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            final boolean success = response.statusCode() < 400;
+            statistics.record(System.nanoTime() - start, success);
+            total.record(System.nanoTime() - start, success);
+            if (success) {
+                operation.onSuccess(response.body());
+            }
+        } catch (IOException e) {
+            statistics.record(System.nanoTime() - start, false);
+            total.record(System.nanoTime() - start, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%n%d clients, %s%n", report.getThreads(), mode(report));
+        System.out.printf("%-55s %9s %7s %9s %9s %9s %9s%n",
+                "Route", "Requêtes", "Erreurs", "Req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (LoadReport.RouteReport route : report.getRoutes()) {
+            print(route);
+        }
+        print(report.getTotal());
+    }
+
+    private static void print(LoadReport.RouteReport route) {
+        System.out.printf("%-55s %9d %7d %9.1f %9.3f %9.3f %9.3f%n", route.getRoute(), route.getRequests(),
+                route.getErrors(), route.getThroughput(), route.getP50(), route.getP99(), route.getP999());
+    }
+
+    private static void printScaling(List<LoadReport> reports) {
+        System.out.printf("%n%-20s %8s %7s %9s %9s %9s %9s%n",
+                "Mode", "Clients", "Erreurs", "Req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (LoadReport report : reports) {
+            final LoadReport.RouteReport total = report.getTotal();
+            System.out.printf("%-20s %8d %7d %9.1f %9.3f %9.3f %9.3f%n", mode(report), report.getThreads(),
+                    total.getErrors(), total.getThroughput(), total.getP50(), total.getP99(), total.getP999());
+        }
+    }
+
+    private static String mode(LoadReport report) {
+        if (report.isReactive()) {
+            return "réactif";
+        }
+        return report.isVirtualThreads() ? "threads virtuels" : "pool de threads";
+    }
+}
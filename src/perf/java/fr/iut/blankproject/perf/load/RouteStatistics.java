@@ -0,0 +1,60 @@
+package fr.iut.blankproject.perf.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Latences (en microsecondes) et erreurs mesurées pour une route, alimentées par plusieurs threads en parallèle.
+ */
+final class RouteStatistics {
+    private final String route;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+
+    RouteStatistics(String route) {
+        this.route = route;
+    }
+
+    void record(long elapsedNanos, boolean success) {
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Oublie les mesures effectuées jusqu'ici (fin de la phase de chauffe)
+     */
+    void reset() {
+        recorder.getIntervalHistogram();
+        errors.reset();
+    }
+
+    /**
+     * Construit le rapport de la route à partir des mesures effectuées depuis le dernier reset
+     *
+     * @param durationSeconds la durée de la mesure, utilisée pour calculer le débit
+     * @return le rapport de la route
+     */
+    LoadReport.RouteReport report(double durationSeconds) {
+        final Histogram histogram = recorder.getIntervalHistogram();
+
+        return new LoadReport.RouteReport(
+                route,
+                histogram.getTotalCount(),
+                errors.sum(),
+                histogram.getTotalCount() / durationSeconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+}
@@ -0,0 +1,21 @@
+package fr.iut.blankproject.perf.load;
+
+import fr.iut.blankproject.domain.AuthorRef;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @author florian935, NathanRenaud1997
+ * Identifiants et valeurs des documents insérés avant le test de charge, dans lesquels les requêtes piochent leurs
+ * paramètres. Ces documents ne sont jamais supprimés pendant le test.
+ */
+@AllArgsConstructor
+@Getter
+final class SeedData {
+    private final List<AuthorRef> authors;
+    private final List<String> articleIds;
+    private final List<String> titres;
+    private final List<String> commentaireIds;
+}
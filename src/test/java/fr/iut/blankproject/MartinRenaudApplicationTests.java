@@ -3,7 +3,11 @@ package fr.iut.blankproject;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.autoconfigure.exclude="
+        + "org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration")
 class MartinRenaudApplicationTests {
 
     @Test
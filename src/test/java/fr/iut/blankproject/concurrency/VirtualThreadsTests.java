@@ -0,0 +1,22 @@
+package fr.iut.blankproject.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsTests {
+
+    @Test
+    void virtualThreadExecutorIsAvailableFromJava21() throws Exception {
+        final Optional<ExecutorService> executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+
+        assertThat(executor.isPresent()).isEqualTo(Runtime.version().feature() >= 21);
+        if (executor.isPresent()) {
+            assertThat(executor.get().submit(() -> Thread.currentThread().toString()).get()).contains("Virtual");
+            executor.get().shutdown();
+        }
+    }
+}
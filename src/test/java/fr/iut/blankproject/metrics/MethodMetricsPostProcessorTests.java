@@ -0,0 +1,49 @@
+package fr.iut.blankproject.metrics;
+
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.exception.commentaire.CommentaireNotFoundException;
+import fr.iut.blankproject.repository.ArticleRepositoryCustom;
+import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.service.CrudService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MethodMetricsPostProcessorTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void timesServiceCallsByMethodAndOutcome() {
+        final CommentaireService commentaireService = mock(CommentaireService.class);
+        when(commentaireService.findById("1")).thenReturn(new Commentaire());
+        when(commentaireService.findById("2")).thenThrow(new CommentaireNotFoundException("absent"));
+        final CommentaireService instrumented = (CommentaireService) new MethodMetricsPostProcessor(() -> registry,
+                "service.invocations", "service", "fr.iut.blankproject.service", CrudService.class)
+                .postProcessAfterInitialization(commentaireService, "commentaireService");
+
+        instrumented.findById("1");
+        instrumented.findById("1");
+        assertThatThrownBy(() -> instrumented.findById("2")).isInstanceOf(CommentaireNotFoundException.class);
+
+        assertThat(registry.get("service.invocations")
+                .tags("service", "CommentaireService", "method", "findById", "outcome", "SUCCESS")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("service.invocations")
+                .tags("outcome", "ERROR", "exception", "CommentaireNotFoundException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOtherBeansUntouched() {
+        final ArticleRepositoryCustom fragment = mock(ArticleRepositoryCustom.class);
+        final MethodMetricsPostProcessor postProcessor = new MethodMetricsPostProcessor(() -> registry,
+                "repository.invocations", "repository", "fr.iut.blankproject.repository", Repository.class);
+
+        assertThat(postProcessor.postProcessAfterInitialization(fragment, "fragment")).isSameAs(fragment);
+    }
+}
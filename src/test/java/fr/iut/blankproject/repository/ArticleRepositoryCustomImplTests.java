@@ -0,0 +1,121 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.ArticleSummary;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleRepositoryCustomImplTests {
+    private final Date from = new Date(0);
+    private final Date to = new Date();
+
+    private MongoTemplate mongoTemplate;
+    private ArticleRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Article.class)).thenReturn("Article");
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("Article"), eq(ArticleAggregate.class)))
+                .thenReturn(new AggregationResults<>(Collections.emptyList(), new Document()));
+
+        repository = new ArticleRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void countCommentaryPageMatchesFirstAndPagesOnId() {
+        final ObjectId afterId = new ObjectId();
+
+        repository.countCommentaryPage(afterId.toHexString(), 21, from, to, true);
+
+        final Aggregation aggregation = capturedAggregation();
+        final List<Document> pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$sort", "$limit", "$project");
+        assertThat(pipeline.get(0).get("$match", Document.class))
+                .isEqualTo(new Document("publishedDate", new Document("$gte", from).append("$lte", to))
+                        .append("_id", new Document("$gt", afterId)));
+        assertThat(pipeline.get(2).get("$limit")).isEqualTo(21L);
+        assertThat(aggregation.getOptions().isAllowDiskUse()).isTrue();
+    }
+
+    @Test
+    void findTopCommentedSortsThenLimits() {
+        repository.findTopCommented(10, null, null, false);
+
+        final Aggregation aggregation = capturedAggregation();
+        final List<Document> pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$project", "$sort", "$limit");
+        assertThat(pipeline.get(0).get("$match", Document.class)).isEmpty();
+        assertThat(pipeline.get(2).get("$sort", Document.class))
+                .isEqualTo(new Document("countCommentary", -1).append("_id", 1));
+        assertThat(aggregation.getOptions().isAllowDiskUse()).isFalse();
+    }
+
+    @Test
+    void findPageProjectsOnlyRequestedFields() {
+        final ObjectId afterId = new ObjectId();
+
+        repository.findPage(afterId.toHexString(), 21, Arrays.asList("id", "titre"));
+
+        final ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(Article.class));
+        final Query query = captor.getValue();
+        assertThat(query.getFieldsObject()).isEqualTo(new Document("titre", 1));
+        assertThat(query.getQueryObject()).isEqualTo(new Document("_id", new Document("$gt", afterId)));
+        assertThat(query.getSortObject()).isEqualTo(new Document("_id", 1));
+        assertThat(query.getLimit()).isEqualTo(21);
+    }
+
+    @Test
+    void findSummaryPageReadsOnlyIndexedFields() {
+        repository.findSummaryPage(null, 21);
+
+        final ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(ArticleSummary.class), eq("Article"));
+        assertThat(captor.getValue().getFieldsObject())
+                .isEqualTo(new Document("titre", 1).append("publishedDate", 1));
+        assertThat(captor.getValue().getQueryObject()).isEmpty();
+    }
+
+    @Test
+    void findByTitreContainingAndPublishedDateBetweenSortsByDateAndBoundsExecutionTime() {
+        repository.findByTitreContainingAndPublishedDateBetween("mongo", from, to, Duration.ofSeconds(2));
+
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Article.class));
+        assertThat(query.getValue().getQueryObject().get("publishedDate"))
+                .isEqualTo(new Document("$gte", from).append("$lte", to));
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("publishedDate", 1));
+        assertThat(query.getValue().getMeta().getMaxTimeMsec()).isEqualTo(2000L);
+    }
+
+    private Aggregation capturedAggregation() {
+        final ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(captor.capture(), eq("Article"), eq(ArticleAggregate.class));
+
+        return captor.getValue();
+    }
+}
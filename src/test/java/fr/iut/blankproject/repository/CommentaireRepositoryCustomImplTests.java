@@ -0,0 +1,126 @@
+package fr.iut.blankproject.repository;
+
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentaireRepositoryCustomImplTests {
+    private final ObjectId id = new ObjectId();
+
+    private MongoTemplate mongoTemplate;
+    private CommentaireRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        final MongoMappingContext mappingContext = new MongoMappingContext();
+        final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Commentaire.class)).thenReturn("Commentaire");
+
+        repository = new CommentaireRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void findVersionReadsOnlyTheVersionField() {
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.findOne(query.capture(), eq(Document.class), eq("Commentaire")))
+                .thenReturn(new Document("_id", id));
+
+        assertThat(repository.findVersion(id.toHexString())).contains(0L);
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", id));
+        assertThat(query.getValue().getFieldsObject()).isEqualTo(new Document("version", 1));
+    }
+
+    @Test
+    void replaceIncrementsTheVersionOfTheBodyAndFiltersOnIt() {
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        final Commentaire replacement = Commentaire.builder().version(3L).contenu("contenu").build();
+        when(mongoTemplate.findAndReplace(query.capture(), eq(replacement), any(FindAndReplaceOptions.class)))
+                .thenReturn(replacement);
+
+        final Optional<Commentaire> replaced = repository.replace(id.toHexString(), replacement, null);
+
+        assertThat(replaced).contains(replacement);
+        assertThat(replacement.getVersion()).isEqualTo(4L);
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", id).append("version", 3L));
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(Document.class), eq("Commentaire"));
+    }
+
+    @Test
+    void replaceWithoutAnyVersionIsRefused() {
+        final Commentaire replacement = Commentaire.builder().contenu("contenu").build();
+
+        assertThatThrownBy(() -> repository.replace(id.toHexString(), replacement, null))
+                .isInstanceOf(VersionRequiredException.class);
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(Document.class), eq("Commentaire"));
+        verify(mongoTemplate, never())
+                .findAndReplace(any(Query.class), eq(replacement), any(FindAndReplaceOptions.class));
+    }
+
+    @Test
+    void patchIncrementsTheVersion() {
+        final ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+
+        repository.patch(id.toHexString(), new Update().set("contenu", "contenu"), null);
+
+        verify(mongoTemplate).findAndModify(
+                any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Commentaire.class));
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class))
+                .isEqualTo(new Document("version", 1));
+    }
+
+    @Test
+    void replaceWithExpectedVersionFailsWhenTheDocumentChanged() {
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        final Commentaire replacement = Commentaire.builder().contenu("contenu").build();
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("Commentaire")))
+                .thenReturn(new Document("_id", id).append("version", 5L));
+
+        assertThatThrownBy(() -> repository.replace(id.toHexString(), replacement, 4L))
+                .isInstanceOf(VersionMismatchException.class);
+        verify(mongoTemplate).findAndReplace(query.capture(), eq(replacement), any(FindAndReplaceOptions.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", id).append("version", 4L));
+        assertThat(replacement.getVersion()).isEqualTo(5L);
+    }
+
+    @Test
+    void patchWithExpectedVersionZeroAlsoMatchesDocumentsWithoutVersion() {
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+
+        final Optional<Commentaire> patched = repository.patch(id.toHexString(), new Update(), 0L);
+
+        assertThat(patched).isEmpty();
+        verify(mongoTemplate).findAndModify(
+                query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Commentaire.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", id)
+                .append("version", new Document("$in", Arrays.asList(0L, null))));
+    }
+}
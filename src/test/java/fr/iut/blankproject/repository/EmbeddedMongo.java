@@ -0,0 +1,114 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.junit.jupiter.api.Assumptions;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.auditing.IsNewAwareAuditingHandler;
+import org.springframework.data.mapping.callback.EntityCallbacks;
+import org.springframework.data.mapping.context.PersistentEntities;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AuditingEntityCallback;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Base MongoDB embarquée (de.flapdoodle.embed.mongo, même version que les benchmarks) partagée par les tests qui
+ * doivent s'exécuter sur une vraie base. Le serveur est démarré au premier appel et arrêté à la fin des tests. Une base
+ * existante peut être utilisée à la place avec -Dmongodb.test.uri=mongodb://localhost:27017; lorsque le serveur ne
+ * peut pas être téléchargé (aucun accès réseau), les tests qui l'utilisent sont ignorés.
+ */
+public final class EmbeddedMongo {
+    private static String uri;
+    private static String unavailable;
+
+    private EmbeddedMongo() {
+    }
+
+    /**
+     * Crée un client vers la base de test
+     *
+     * @param listeners les listeners recevant les commandes envoyées par le client
+     * @return le client, à fermer par l'appelant
+     */
+    public static MongoClient client(CommandListener... listeners) {
+        final MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri()));
+        for (CommandListener listener : listeners) {
+            settings.addCommandListener(listener);
+        }
+
+        return MongoClients.create(settings.build());
+    }
+
+    /**
+     * Crée un client réactif vers la base de test
+     *
+     * @return le client, à fermer par l'appelant
+     */
+    public static com.mongodb.reactivestreams.client.MongoClient reactiveClient() {
+        return com.mongodb.reactivestreams.client.MongoClients.create(uri());
+    }
+
+    /**
+     * Crée un MongoTemplate sur une base du client fourni, qui renseigne les champs d'audit (@CreatedDate) comme
+     * l'application (@EnableMongoAuditing)
+     *
+     * @param client   le client
+     * @param database le nom de la base, vidée au préalable
+     * @return le MongoTemplate
+     */
+    public static MongoTemplate template(MongoClient client, String database) {
+        client.getDatabase(database).drop();
+        final MongoTemplate mongoTemplate = new MongoTemplate(client, database);
+        final PersistentEntities entities = PersistentEntities.of(mongoTemplate.getConverter().getMappingContext());
+        mongoTemplate.setEntityCallbacks(
+                EntityCallbacks.create(new AuditingEntityCallback(() -> new IsNewAwareAuditingHandler(entities))));
+
+        return mongoTemplate;
+    }
+
+    private static synchronized String uri() {
+        if (Objects.isNull(uri) && Objects.isNull(unavailable)) {
+            uri = System.getProperty("mongodb.test.uri");
+            if (Objects.isNull(uri)) {
+                start();
+            }
+        }
+        Assumptions.assumeTrue(Objects.isNull(unavailable), () -> "MongoDB embarqué indisponible: " + unavailable);
+
+        return uri;
+    }
+
+    private static void start() {
+        final MongodExecutable executable;
+        final int port;
+        try {
+            port = Network.getFreeServerPort();
+            executable = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+                    .version(Version.V4_0_2)
+                    .net(new Net("localhost", port, Network.localhostIsIPv6()))
+                    .build());
+        } catch (IOException | RuntimeException exception) {
+            unavailable = NestedExceptionUtils.getMostSpecificCause(exception).toString();
+            return;
+        }
+        try {
+            executable.start();
+        } catch (IOException exception) {
+            throw new IllegalStateException("Impossible de démarrer MongoDB embarqué.", exception);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(executable::stop));
+        uri = "mongodb://localhost:" + port;
+    }
+}
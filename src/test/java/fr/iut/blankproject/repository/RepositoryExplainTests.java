@@ -0,0 +1,222 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import fr.iut.blankproject.migration.IndexMigration;
+import fr.iut.blankproject.utils.CursorUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vérifie avec explain() qu'aucune requête des repositories n'effectue un parcours complet de collection (COLLSCAN)
+ * une fois les index déclarés créés. Les méthodes des repositories sont appelées sur la base MongoDB embarquée et les
+ * commandes qu'elles envoient (find, aggregate) sont capturées puis expliquées telles quelles.
+ * <p>
+ * La lecture d'une page de résumés d'articles doit de plus être couverte par un index (aucune lecture de document).
+ * <p>
+ * findAll() ainsi que les agrégations countArticle() et countCommentaryByArticle() lisent toute la collection par
+ * définition et ne sont donc pas vérifiées.
+ */
+class RepositoryExplainTests {
+    private static final Set<String> READ_COMMANDS = Set.of("find", "aggregate");
+    private static final String ID = new ObjectId().toHexString();
+    private static final Date FROM = new Date(0);
+    private static final Date TO = new Date();
+
+    private static final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static ArticleRepository articleRepository;
+    private static UserRepository userRepository;
+    private static CommentaireRepository commentaireRepository;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = EmbeddedMongo.client(new CommandCapture());
+        mongoTemplate = EmbeddedMongo.template(mongoClient, "explain-tests");
+        new IndexMigration(mongoTemplate, (MongoMappingContext) mongoTemplate.getConverter().getMappingContext())
+                .run(null);
+
+        final MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        articleRepository = factory.getRepository(ArticleRepository.class,
+                RepositoryFragments.just(new ArticleRepositoryCustomImpl(mongoTemplate)));
+        userRepository = factory.getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryCustomImpl(mongoTemplate)));
+        commentaireRepository = factory.getRepository(CommentaireRepository.class,
+                RepositoryFragments.just(new CommentaireRepositoryCustomImpl(mongoTemplate)));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    @BeforeEach
+    void clearCommands() {
+        commands.clear();
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                query("ArticleRepository.findVersion", () -> articleRepository.findVersion(ID)),
+                query("ArticleRepository.findByTitre", () -> articleRepository.findByTitre("mongo")),
+                query("ArticleRepository.findByTitreContaining",
+                        () -> articleRepository.findByTitreContaining("mongo", PageRequest.of(0, 100))),
+                query("ArticleRepository.findByPublishedDateBetween",
+                        () -> articleRepository.findByPublishedDateBetween(FROM, TO)),
+                query("ArticleRepository.findByTitreContainingAndPublishedDateBetween",
+                        () -> articleRepository.findByTitreContainingAndPublishedDateBetween("mongo", FROM, TO)),
+                query("ArticleRepository.findByTitreContainingAndPublishedDateBetween(maxTime)",
+                        () -> articleRepository.findByTitreContainingAndPublishedDateBetween(
+                                "mongo", FROM, TO, Duration.ofSeconds(5))),
+                query("ArticleRepository.findByIdInAndPublishedDateBetween",
+                        () -> articleRepository.findByIdInAndPublishedDateBetween(
+                                Collections.singletonList(ID), FROM, TO)),
+                query("ArticleRepository.findAllBy(TextCriteria)",
+                        () -> articleRepository.findAllBy(TextCriteria.forDefaultLanguage().matching("mongo"),
+                                CursorUtils.pageRequest(20))),
+                query("ArticleRepository.findAllBy(Pageable)",
+                        () -> articleRepository.findAllBy(CursorUtils.pageRequest(20))),
+                query("ArticleRepository.findByIdGreaterThan",
+                        () -> articleRepository.findByIdGreaterThan(ID, CursorUtils.pageRequest(20))),
+                query("ArticleRepository.findPage",
+                        () -> articleRepository.findPage(ID, 21, Arrays.asList("id", "titre"))),
+                query("ArticleRepository.countCommentaryPage",
+                        () -> articleRepository.countCommentaryPage(ID, 21, FROM, TO, false)),
+                query("UserRepository.findByPseudo", () -> userRepository.findByPseudo("mongo")),
+                query("UserRepository.findByPseudoContaining",
+                        () -> userRepository.findByPseudoContaining("mongo", PageRequest.of(0, 100))),
+                query("UserRepository.findPage", () -> userRepository.findPage(ID, 21, false)),
+                query("CommentaireRepository.findByIdGreaterThan",
+                        () -> commentaireRepository.findByIdGreaterThan(ID, CursorUtils.pageRequest(20))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryDoesNotScanTheWholeCollection(String name, Runnable invocation) {
+        invocation.run();
+
+        assertThat(commands).as("commandes envoyées par %s", name).isNotEmpty();
+        for (BsonDocument command : commands) {
+            final List<Document> winningPlans = explain(command);
+            assertThat(winningPlans).as("plan de %s", name).isNotEmpty();
+            winningPlans.forEach(plan -> assertThat(stages(plan))
+                    .as("plan de %s: %s", name, plan.toJson())
+                    .doesNotContain("COLLSCAN"));
+        }
+    }
+
+    @Test
+    void summaryPageIsCoveredByIndex() {
+        articleRepository.findSummaryPage(ID, 21);
+
+        assertThat(commands).hasSize(1);
+        final List<Document> winningPlans = explain(commands.get(0));
+        assertThat(winningPlans).hasSize(1);
+        assertThat(stages(winningPlans.get(0))).as("plan: %s", winningPlans.get(0).toJson())
+                .contains("IXSCAN")
+                .doesNotContain("FETCH", "COLLSCAN");
+    }
+
+    private static Arguments query(String name, Runnable invocation) {
+        return Arguments.of(name, invocation);
+    }
+
+    /**
+     * Explique la commande capturée, débarrassée des champs ajoutés par le driver ($db, lsid...), et retourne les
+     * plans retenus (un seul pour un find, un par étape lisant la collection pour un aggregate)
+     */
+    private static List<Document> explain(BsonDocument command) {
+        final BsonDocument explained = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid")) {
+                explained.append(key, value);
+            }
+        });
+        final Document explain = mongoTemplate.getDb()
+                .runCommand(new BsonDocument("explain", explained).append("verbosity", new BsonString("queryPlanner")));
+
+        return winningPlans(explain).collect(Collectors.toList());
+    }
+
+    private static Stream<Document> winningPlans(Object explain) {
+        if (explain instanceof Map) {
+            final Map<?, ?> document = (Map<?, ?>) explain;
+            final Object winningPlan = document.get("winningPlan");
+            if (winningPlan instanceof Document) {
+                return Stream.of((Document) winningPlan);
+            }
+            return document.values().stream().flatMap(RepositoryExplainTests::winningPlans);
+        }
+        if (explain instanceof List) {
+            return ((List<?>) explain).stream().flatMap(RepositoryExplainTests::winningPlans);
+        }
+        return Stream.empty();
+    }
+
+    private static Stream<String> stages(Object plan) {
+        if (plan instanceof Map) {
+            final Map<?, ?> stage = (Map<?, ?>) plan;
+            return Stream.concat(
+                    Stream.ofNullable(stage.get("stage")).map(Object::toString),
+                    stage.values().stream().flatMap(RepositoryExplainTests::stages));
+        }
+        if (plan instanceof List) {
+            return ((List<?>) plan).stream().flatMap(RepositoryExplainTests::stages);
+        }
+        return Stream.empty();
+    }
+
+    /**
+     * Conserve les commandes de lecture envoyées par les repositories
+     */
+    private static class CommandCapture implements CommandListener {
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (READ_COMMANDS.contains(event.getCommandName())) {
+                commands.add(event.getCommand().clone());
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package fr.iut.blankproject.repository;
+
+import com.mongodb.DBRef;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class UserRepositoryCustomImplTests {
+    private final ObjectId article1 = new ObjectId();
+    private final ObjectId article2 = new ObjectId();
+    private final ObjectId article3 = new ObjectId();
+    private final ObjectId commentaire1 = new ObjectId();
+
+    private MongoTemplate mongoTemplate;
+    private UserRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        final MongoMappingContext mappingContext = new MongoMappingContext();
+        final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("Utilisateur");
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("Utilisateur"))).thenReturn(Arrays.asList(
+                user("alice", Arrays.asList(article1, article2), Arrays.asList(commentaire1)),
+                user("bob", Arrays.asList(article2, article3), Arrays.asList()),
+                user("carol", Arrays.asList(article3), Arrays.asList(commentaire1))));
+        when(mongoTemplate.find(any(Query.class), eq(Article.class))).thenReturn(Arrays.asList(
+                article(article1), article(article2), article(article3)));
+        when(mongoTemplate.find(any(Query.class), eq(Commentaire.class))).thenReturn(Arrays.asList(
+                Commentaire.builder().id(commentaire1.toHexString()).contenu("contenu").build()));
+
+        repository = new UserRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void findPageResolvesReferencesWithOneQueryPerCollection() {
+        final List<User> users = repository.findPage(null, 10, true);
+
+        assertThat(users).hasSize(3);
+        assertThat(users.get(0).getArticles()).extracting(Article::getId)
+                .containsExactly(article1.toHexString(), article2.toHexString());
+        assertThat(users.get(1).getCommentaires()).isEmpty();
+        assertThat(users.get(2).getCommentaires()).extracting(Commentaire::getId)
+                .containsExactly(commentaire1.toHexString());
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("Utilisateur"));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Article.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Commentaire.class));
+    }
+
+    @Test
+    void findPageWithoutReferencesDoesNotReadReferencedCollections() {
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Document.class), eq("Utilisateur"))).thenReturn(Arrays.asList(
+                new Document("_id", new ObjectId()).append("pseudo", "alice")));
+
+        final List<User> users = repository.findPage(null, 10, false);
+
+        assertThat(users).extracting(User::getPseudo).containsExactly("alice");
+        assertThat(query.getValue().getFieldsObject())
+                .containsEntry("articles", 0)
+                .containsEntry("commentaires", 0);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("Utilisateur"));
+        verify(mongoTemplate).getCollectionName(User.class);
+        verify(mongoTemplate).getConverter();
+        verifyNoMoreInteractions(mongoTemplate);
+    }
+
+    private Document user(String pseudo, List<ObjectId> articles, List<ObjectId> commentaires) {
+        return new Document("_id", new ObjectId())
+                .append("pseudo", pseudo)
+                .append("articles", dbRefs("Article", articles))
+                .append("commentaires", dbRefs("Commentaire", commentaires));
+    }
+
+    private List<Object> dbRefs(String collection, List<ObjectId> ids) {
+        return Arrays.asList(ids.stream().map(id -> new DBRef(collection, id)).toArray());
+    }
+
+    private Article article(ObjectId id) {
+        return Article.builder().id(id.toHexString()).titre("titre").build();
+    }
+}
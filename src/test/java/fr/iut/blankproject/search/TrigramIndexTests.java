@@ -0,0 +1,71 @@
+package fr.iut.blankproject.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+
+    @Test
+    void searchMatchesSubstringsIgnoringCase() {
+        final TrigramIndex index = loadedIndex();
+
+        assertThat(index.search("MONGO")).containsExactly("1", "3");
+        assertThat(index.search("db")).containsExactly("1");
+        assertThat(index.search("spring data")).containsExactly("2");
+        assertThat(index.search("absent")).isEmpty();
+    }
+
+    @Test
+    void writesAreReflectedAndStaleLoadsIgnored() {
+        final TrigramIndex index = new TrigramIndex();
+        index.put("1", "ignoré tant que le chargement n'a pas démarré");
+        index.startLoading();
+        index.put("1", "Titre mis à jour");
+        index.remove("2");
+        index.load("1", "Titre lu avant la mise à jour");
+        index.load("2", "Article supprimé");
+        index.load("3", "Autre titre");
+        index.finishLoading();
+
+        assertThat(index.search("titre")).containsExactly("1", "3");
+        assertThat(index.search("supprimé")).isEmpty();
+
+        index.put("3", "Nouveau nom");
+        index.remove("1");
+        assertThat(index.search("titre")).isEmpty();
+        assertThat(index.search("nouveau")).containsExactly("3");
+    }
+
+    @Test
+    void compactionKeepsResults() {
+        final TrigramIndex index = loadedIndex();
+        for (int i = 0; i < 200; i++) {
+            index.put("2", "Spring Data " + i);
+        }
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("mongo")).containsExactly("1", "3");
+        assertThat(index.search("spring data 199")).containsExactly("2");
+        assertThat(index.search("spring data 198")).isEmpty();
+    }
+
+    @Test
+    void searchStopsAtTheLimit() {
+        final TrigramIndex index = loadedIndex();
+
+        assertThat(index.search("mongo", 1)).containsExactly("1");
+        assertThat(index.search("a", 2)).containsExactly("1", "2");
+    }
+
+    private TrigramIndex loadedIndex() {
+        final TrigramIndex index = new TrigramIndex();
+        index.startLoading();
+        index.load("1", "MongoDB en pratique");
+        index.load("2", "Spring Data");
+        index.load("3", "Index texte avec Mongo");
+        index.finishLoading();
+
+        return index;
+    }
+}
@@ -0,0 +1,97 @@
+package fr.iut.blankproject.service.fanout;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import fr.iut.blankproject.exception.search.SearchTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanOutQueryExecutorTests {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final FanOutQueryExecutor executor =
+            new FanOutQueryExecutor(4, Duration.ofDays(7), 4, Duration.ofMillis(200));
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void splitsLongRangesIntoContiguousShards() {
+        final Date from = new Date(0);
+        final Date to = new Date(40 * DAY - 1);
+
+        final List<Date[]> ranges = executor.split(from, to);
+
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0)[0]).isEqualTo(from);
+        assertThat(ranges.get(3)[1]).isEqualTo(to);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i)[0].getTime()).isEqualTo(ranges.get(i - 1)[1].getTime() + 1);
+        }
+        assertThat(executor.split(from, new Date(10 * DAY))).hasSize(1);
+    }
+
+    @Test
+    void mergesShardResultsInChronologicalOrder() {
+        final List<Long> results = executor.query(new Date(0), new Date(40 * DAY - 1), (from, to, maxTime) -> {
+            sleepQuietly(from.getTime() == 0 ? 50 : 0);
+            return List.of(from.getTime(), to.getTime());
+        });
+
+        assertThat(results).isSorted().hasSize(8).startsWith(0L).endsWith(40 * DAY - 1);
+    }
+
+    @Test
+    void failsWhenAShardExceedsItsTimeout() {
+        assertThatThrownBy(() -> executor.query(new Date(0), new Date(40 * DAY), (from, to, maxTime) -> {
+            sleepQuietly(from.getTime() == 0 ? 1000 : 0);
+            return Collections.emptyList();
+        })).isInstanceOf(SearchTimeoutException.class);
+    }
+
+    @Test
+    void reportsMongoExecutionTimeoutsAsSearchTimeouts() {
+        final FanOutQueryExecutor.ShardQuery<Long> interrupted = (from, to, maxTime) -> {
+            throw new UncategorizedMongoDbException("operation exceeded time limit",
+                    new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+        };
+
+        assertThatThrownBy(() -> executor.query(new Date(0), new Date(DAY), interrupted))
+                .isInstanceOf(SearchTimeoutException.class);
+        assertThatThrownBy(() -> executor.query(new Date(0), new Date(40 * DAY), interrupted))
+                .isInstanceOf(SearchTimeoutException.class);
+    }
+
+    @Test
+    void givesEachShardTheTimeLeftBeforeTheDeadline() {
+        final List<Duration> maxTimes = new CopyOnWriteArrayList<>();
+
+        executor.query(new Date(0), new Date(DAY), (from, to, maxTime) -> {
+            maxTimes.add(maxTime);
+            return Collections.emptyList();
+        });
+
+        assertThat(maxTimes).hasSize(1);
+        assertThat(maxTimes.get(0)).isPositive().isLessThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package fr.iut.blankproject.service.implementation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.MongoClient;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import fr.iut.blankproject.repository.ArticleRepository;
+import fr.iut.blankproject.repository.ArticleRepositoryCustomImpl;
+import fr.iut.blankproject.repository.EmbeddedMongo;
+import fr.iut.blankproject.search.ArticleTitreIndex;
+import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.service.fanout.FanOutQueryExecutor;
+import fr.iut.blankproject.statistics.ArticleStatistics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArticleServiceImplTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private ArticleTitreIndex articleTitreIndex;
+    private ArticleStatistics articleStatistics;
+    private CommentaireService commentaireService;
+    private ArticleServiceImpl articleService;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = EmbeddedMongo.client();
+        mongoTemplate = EmbeddedMongo.template(mongoClient, "article-service-tests");
+        final ArticleRepository articleRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(ArticleRepository.class,
+                        RepositoryFragments.just(new ArticleRepositoryCustomImpl(mongoTemplate)));
+
+        articleTitreIndex = new ArticleTitreIndex();
+        articleStatistics = new ArticleStatistics();
+        commentaireService = mock(CommentaireService.class);
+        articleService = new ArticleServiceImpl(articleRepository, commentaireService,
+                articleTitreIndex, articleStatistics, mock(FanOutQueryExecutor.class), objectMapper);
+        ReflectionTestUtils.setField(articleService, "bulkBatchSize", 10);
+        ReflectionTestUtils.setField(articleService, "searchMaxResults", 2);
+        ReflectionTestUtils.setField(articleService, "searchIdsPerQuery", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    @Test
+    void bulkInsertedArticlesAreStoredWithAPublishedDate() {
+        final Date before = new Date();
+
+        final List<BulkItemResult> results = saveAll(article(null, null, "premier"), article(null, null, "second"));
+
+        assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(true, true);
+        for (BulkItemResult result : results) {
+            final Document stored = mongoTemplate.findById(result.getId(), Document.class, "Article");
+            assertThat(stored).isNotNull();
+            assertThat(stored.get("publishedDate")).isInstanceOf(Date.class);
+            assertThat(stored.getDate("publishedDate")).isAfterOrEqualTo(before);
+        }
+    }
+
+    @Test
+    void bulkReplacementWithAStaleVersionIsReportedAndNotUpserted() {
+        final List<BulkItemResult> created = saveAll(article(null, null, "premier"), article(null, null, "second"));
+        final String stale = created.get(0).getId();
+        final String current = created.get(1).getId();
+
+        final List<BulkItemResult> results = saveAll(article(stale, 5L, "périmé"), article(current, 0L, "modifié"));
+
+        assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(false, true);
+        assertThat(results.get(0).getError()).contains(stale, "version (0)", "version attendue (5)");
+        assertThat(mongoTemplate.getCollection("Article").countDocuments()).isEqualTo(2);
+        assertThat(mongoTemplate.findById(stale, Document.class, "Article"))
+                .containsEntry("titre", "premier")
+                .containsEntry("version", 0L);
+        assertThat(mongoTemplate.findById(current, Document.class, "Article"))
+                .containsEntry("titre", "modifié")
+                .containsEntry("version", 1L);
+    }
+
+    @Test
+    void bulkRepeatedIdsAreReportedAfterTheirFirstOccurrence() {
+        final String existing = saveAll(article(null, null, "premier")).get(0).getId();
+        final String upserted = new ObjectId().toHexString();
+
+        final List<BulkItemResult> results = saveAll(article(existing, 0L, "modifié"),
+                article(upserted, null, "créé"), article(existing, 0L, "perdu"), article(upserted, null, "écrasé"));
+
+        assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(true, true, false, false);
+        assertThat(results.get(2).getError()).contains(existing, "plusieurs fois");
+        assertThat(results.get(3).getError()).contains(upserted, "plusieurs fois");
+        assertThat(mongoTemplate.findById(existing, Document.class, "Article"))
+                .containsEntry("titre", "modifié")
+                .containsEntry("version", 1L);
+        assertThat(mongoTemplate.findById(upserted, Document.class, "Article"))
+                .containsEntry("titre", "créé")
+                .containsEntry("version", 0L);
+    }
+
+    @Test
+    void updateWithoutIfMatchExpectsTheVersionOfTheBody() {
+        final String id = saveAll(article(null, null, "premier")).get(0).getId();
+        final Article stale = articleService.findById(id);
+        articleService.update(id, articleService.findById(id), null);
+
+        stale.setTitre("périmé");
+        assertThatThrownBy(() -> articleService.update(id, stale, null))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessageContaining("version (1)");
+
+        stale.setVersion(null);
+        assertThatThrownBy(() -> articleService.update(id, stale, null))
+                .isInstanceOf(VersionRequiredException.class)
+                .hasMessageContaining(id);
+        assertThat(mongoTemplate.findById(id, Document.class, "Article"))
+                .containsEntry("titre", "premier")
+                .containsEntry("version", 1L);
+    }
+
+    @Test
+    void titreSearchThroughTheIndexIsSortedByPublishedDate() {
+        articleTitreIndex.startLoading();
+        articleTitreIndex.finishLoading();
+        final List<ObjectId> ids = List.of(new ObjectId(), new ObjectId(), new ObjectId());
+        for (int i = 0; i < ids.size(); i++) {
+            mongoTemplate.insert(new Document("_id", ids.get(i))
+                    .append("titre", "mongo " + i)
+                    .append("publishedDate", new Date((ids.size() - i) * 1000L)), "Article");
+            articleTitreIndex.put(ids.get(i).toHexString(), "mongo " + i);
+        }
+
+        final List<Article> articles =
+                articleService.findByTitreContainingAndPublishedDateBetween("mongo", new Date(0), new Date());
+
+        assertThat(articles).extracting(Article::getTitre).containsExactly("mongo 2", "mongo 1", "mongo 0");
+    }
+
+    @Test
+    void titreSearchThroughTheIndexReadsACommonTermInChunks() {
+        articleTitreIndex.startLoading();
+        articleTitreIndex.finishLoading();
+        for (int i = 0; i < 5; i++) {
+            final ObjectId id = new ObjectId();
+            mongoTemplate.insert(new Document("_id", id)
+                    .append("titre", "mongo " + i)
+                    .append("publishedDate", new Date((5 - i) * 1000L)), "Article");
+            articleTitreIndex.put(id.toHexString(), "mongo " + i);
+        }
+
+        final List<Article> articles =
+                articleService.findByTitreContainingAndPublishedDateBetween("o", new Date(0), new Date(4000));
+
+        assertThat(articles).extracting(Article::getTitre)
+                .containsExactly("mongo 4", "mongo 3", "mongo 2", "mongo 1");
+    }
+
+    @Test
+    void titreContainingSearchThroughTheIndexIsCapped() {
+        articleTitreIndex.startLoading();
+        articleTitreIndex.finishLoading();
+        for (int i = 0; i < 3; i++) {
+            final ObjectId id = new ObjectId();
+            mongoTemplate.insert(new Document("_id", id).append("titre", "mongo " + i), "Article");
+            articleTitreIndex.put(id.toHexString(), "mongo " + i);
+        }
+
+        assertThat(articleService.findByTitreContaining("mongo")).extracting(Article::getTitre)
+                .containsExactlyInAnyOrder("mongo 0", "mongo 1");
+    }
+
+    @Test
+    void commentaryCountsAreAggregatedOnTheCollection() {
+        final List<ObjectId> ids = List.of(new ObjectId(), new ObjectId());
+        mongoTemplate.insert(new Document("_id", ids.get(0)).append("titre", "un commentaire")
+                .append("commentaires", List.of(new Document("texte", "a"))), "Article");
+        mongoTemplate.insert(new Document("_id", ids.get(1)).append("titre", "deux commentaires")
+                .append("commentaires", List.of(new Document("texte", "a"), new Document("texte", "b"))), "Article");
+
+        assertThat(articleService.countCommentaryByArticle(null, 10, null, null, false).getContent())
+                .containsExactly(new ArticleAggregate(ids.get(0).toHexString(), "un commentaire", 1),
+                        new ArticleAggregate(ids.get(1).toHexString(), "deux commentaires", 2));
+        assertThat(articleService.findTopCommented(1, null, null, false))
+                .containsExactly(new ArticleAggregate(ids.get(1).toHexString(), "deux commentaires", 2));
+    }
+
+    @Test
+    void addedCommentairesAreCountedWithTheVersionOfThePush() {
+        articleStatistics.startLoading();
+        articleStatistics.finishLoading();
+        final Article saved = articleService.save(Article.builder().titre("titre")
+                .utilisateur(new AuthorRef("1", "auteur")).build());
+        final Article stale = articleService.findById(saved.getId());
+        when(commentaireService.save(any(Commentaire.class)))
+                .thenAnswer(invocation -> {
+                    final Commentaire commentaire = invocation.getArgument(0);
+                    commentaire.setId(new ObjectId().toHexString());
+                    return commentaire;
+                });
+
+        articleService.addCommentaire(saved.getId(), commentaire());
+        articleService.addCommentaire(saved.getId(), commentaire());
+        articleStatistics.put(stale);
+
+        assertThat(articleStatistics.countCommentaryByArticle())
+                .containsExactly(new ArticleAggregate(saved.getId(), "titre", 2));
+        assertThat(mongoTemplate.findById(saved.getId(), Document.class, "Article")).containsEntry("version", 2L);
+    }
+
+    private List<BulkItemResult> saveAll(JsonNode... articles) {
+        return articleService.saveAll(Arrays.asList(articles).iterator());
+    }
+
+    private Commentaire commentaire() {
+        return Commentaire.builder().contenu("contenu").utilisateur(new AuthorRef("1", "auteur")).build();
+    }
+
+    private JsonNode article(String id, Long version, String titre) {
+        final ObjectNode article = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("version", version)
+                .put("titre", titre);
+        article.putObject("utilisateur").put("id", "1").put("pseudo", "auteur");
+
+        return article;
+    }
+}
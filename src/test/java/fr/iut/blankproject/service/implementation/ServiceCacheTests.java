@@ -0,0 +1,270 @@
+package fr.iut.blankproject.service.implementation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.Adresse;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.domain.User;
+import fr.iut.blankproject.repository.ArticleRepository;
+import fr.iut.blankproject.repository.CommentaireRepository;
+import fr.iut.blankproject.repository.UserRepository;
+import fr.iut.blankproject.search.ArticleTitreIndex;
+import fr.iut.blankproject.search.UserPseudoIndex;
+import fr.iut.blankproject.service.ArticleService;
+import fr.iut.blankproject.service.CommentaireService;
+import fr.iut.blankproject.service.UserService;
+import fr.iut.blankproject.service.fanout.FanOutQueryExecutor;
+import fr.iut.blankproject.statistics.ArticleStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(ServiceCacheTests.CacheConfiguration.class)
+class ServiceCacheTests {
+    private static final String ARTICLE_ID = "5f1d7f0e9c1b2a3d4e5f6a70";
+    private static final String OTHER_ARTICLE_ID = "5f1d7f0e9c1b2a3d4e5f6a71";
+    private static final String USER_ID = "5f1d7f0e9c1b2a3d4e5f6a72";
+    private static final String OTHER_USER_ID = "5f1d7f0e9c1b2a3d4e5f6a73";
+    private static final String COMMENTAIRE_ID = "5f1d7f0e9c1b2a3d4e5f6a74";
+    private static final AuthorRef AUTHOR = new AuthorRef(USER_ID, "auteur");
+
+    @Configuration
+    @EnableCaching
+    @Import({ArticleServiceImpl.class, UserServiceImpl.class, CommentaireServiceImpl.class})
+    static class CacheConfiguration {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager("articles", "users", "commentaires");
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @MockBean
+    private ArticleRepository articleRepository;
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private CommentaireRepository commentaireRepository;
+    @MockBean
+    private ArticleTitreIndex articleTitreIndex;
+    @MockBean
+    private UserPseudoIndex userPseudoIndex;
+    @MockBean
+    private ArticleStatistics articleStatistics;
+    @MockBean
+    private FanOutQueryExecutor fanOutQueryExecutor;
+
+    @Autowired
+    private ArticleService articleService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CommentaireService commentaireService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        when(articleRepository.findById(ARTICLE_ID)).thenReturn(Optional.of(article(ARTICLE_ID)));
+        when(articleRepository.findById(OTHER_ARTICLE_ID)).thenReturn(Optional.of(article(OTHER_ARTICLE_ID)));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user(USER_ID)));
+        when(userRepository.findById(OTHER_USER_ID)).thenReturn(Optional.of(user(OTHER_USER_ID)));
+        when(commentaireRepository.findById(COMMENTAIRE_ID)).thenReturn(Optional.of(commentaire(COMMENTAIRE_ID)));
+    }
+
+    @Test
+    void secondFindByIdIsServedFromTheCache() {
+        articleService.findById(ARTICLE_ID);
+        articleService.findById(ARTICLE_ID);
+        userService.findById(USER_ID);
+        userService.findById(USER_ID);
+        commentaireService.findById(COMMENTAIRE_ID);
+        commentaireService.findById(COMMENTAIRE_ID);
+
+        verify(articleRepository, times(1)).findById(ARTICLE_ID);
+        verify(userRepository, times(1)).findById(USER_ID);
+        verify(commentaireRepository, times(1)).findById(COMMENTAIRE_ID);
+    }
+
+    @Test
+    void articleUpdateEvictsTheArticle() {
+        when(articleRepository.replace(eq(ARTICLE_ID), any(Article.class), isNull()))
+                .thenReturn(Optional.of(article(ARTICLE_ID)));
+
+        assertArticleEvictedBy(() -> articleService.update(ARTICLE_ID, article(null), null));
+    }
+
+    @Test
+    void articlePatchEvictsTheArticle() {
+        when(articleRepository.patch(eq(ARTICLE_ID), any(), isNull())).thenReturn(Optional.of(article(ARTICLE_ID)));
+
+        assertArticleEvictedBy(() -> articleService.patch(ARTICLE_ID, Map.of("titre", "nouveau titre"), null));
+    }
+
+    @Test
+    void articleDeleteEvictsTheArticle() {
+        when(articleRepository.removeById(ARTICLE_ID)).thenReturn(1L);
+
+        assertArticleEvictedBy(() -> articleService.deleteById(ARTICLE_ID));
+    }
+
+    @Test
+    void addedCommentaireEvictsTheArticle() {
+        when(commentaireRepository.save(any(Commentaire.class))).thenReturn(commentaire(COMMENTAIRE_ID));
+        when(articleRepository.pushCommentaire(eq(ARTICLE_ID), any(Commentaire.class), anyInt()))
+                .thenReturn(Optional.of(Article.builder().id(ARTICLE_ID).version(1L)
+                        .commentaires(List.of(commentaire(COMMENTAIRE_ID))).build()));
+
+        assertArticleEvictedBy(() -> articleService.addCommentaire(ARTICLE_ID, commentaire(null)));
+    }
+
+    @Test
+    void articleBulkSaveEvictsAllArticles() {
+        articleService.findById(ARTICLE_ID);
+        articleService.findById(OTHER_ARTICLE_ID);
+
+        articleService.saveAll(List.<JsonNode>of(objectMapper.valueToTree(article(null))).iterator());
+        articleService.findById(ARTICLE_ID);
+        articleService.findById(OTHER_ARTICLE_ID);
+
+        verify(articleRepository).bulkSave(anyList());
+        verify(articleRepository, times(2)).findById(ARTICLE_ID);
+        verify(articleRepository, times(2)).findById(OTHER_ARTICLE_ID);
+    }
+
+    @Test
+    void userUpdateEvictsTheUser() {
+        when(userRepository.replace(eq(USER_ID), any(User.class), isNull())).thenReturn(Optional.of(user(USER_ID)));
+
+        assertUserEvictedBy(() -> userService.update(USER_ID, user(null), null));
+    }
+
+    @Test
+    void userPatchEvictsTheUser() {
+        when(userRepository.patch(eq(USER_ID), any(), isNull())).thenReturn(Optional.of(user(USER_ID)));
+
+        assertUserEvictedBy(() -> userService.patch(USER_ID, Map.of("pseudo", "nouveau"), null));
+    }
+
+    @Test
+    void userDeleteEvictsTheUser() {
+        when(userRepository.removeById(USER_ID)).thenReturn(1L);
+
+        assertUserEvictedBy(() -> userService.deleteById(USER_ID));
+    }
+
+    @Test
+    void userBulkSaveEvictsAllUsers() {
+        userService.findById(USER_ID);
+        userService.findById(OTHER_USER_ID);
+
+        userService.saveAll(List.<JsonNode>of(objectMapper.valueToTree(user(null))).iterator());
+        userService.findById(USER_ID);
+        userService.findById(OTHER_USER_ID);
+
+        verify(userRepository).bulkSave(anyList());
+        verify(userRepository, times(2)).findById(USER_ID);
+        verify(userRepository, times(2)).findById(OTHER_USER_ID);
+    }
+
+    @Test
+    void commentaireUpdateEvictsTheCommentaire() {
+        when(commentaireRepository.replace(eq(COMMENTAIRE_ID), any(Commentaire.class), isNull()))
+                .thenReturn(Optional.of(commentaire(COMMENTAIRE_ID)));
+
+        assertCommentaireEvictedBy(() -> commentaireService.update(COMMENTAIRE_ID, commentaire(null), null));
+    }
+
+    @Test
+    void commentairePatchEvictsTheCommentaire() {
+        when(commentaireRepository.patch(eq(COMMENTAIRE_ID), any(), isNull()))
+                .thenReturn(Optional.of(commentaire(COMMENTAIRE_ID)));
+
+        assertCommentaireEvictedBy(() -> commentaireService.patch(COMMENTAIRE_ID, Map.of("contenu", "modifié"), null));
+    }
+
+    @Test
+    void commentaireDeleteEvictsTheCommentaire() {
+        when(commentaireRepository.removeById(COMMENTAIRE_ID)).thenReturn(1L);
+
+        assertCommentaireEvictedBy(() -> commentaireService.deleteById(COMMENTAIRE_ID));
+    }
+
+    private void assertArticleEvictedBy(Runnable write) {
+        articleService.findById(ARTICLE_ID);
+        assertThat(cacheManager.getCache("articles").get(ARTICLE_ID)).isNotNull();
+
+        write.run();
+
+        assertThat(cacheManager.getCache("articles").get(ARTICLE_ID)).isNull();
+        articleService.findById(ARTICLE_ID);
+        verify(articleRepository, times(2)).findById(ARTICLE_ID);
+    }
+
+    private void assertUserEvictedBy(Runnable write) {
+        userService.findById(USER_ID);
+        assertThat(cacheManager.getCache("users").get(USER_ID)).isNotNull();
+
+        write.run();
+
+        assertThat(cacheManager.getCache("users").get(USER_ID)).isNull();
+        userService.findById(USER_ID);
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+
+    private void assertCommentaireEvictedBy(Runnable write) {
+        commentaireService.findById(COMMENTAIRE_ID);
+        assertThat(cacheManager.getCache("commentaires").get(COMMENTAIRE_ID)).isNotNull();
+
+        write.run();
+
+        assertThat(cacheManager.getCache("commentaires").get(COMMENTAIRE_ID)).isNull();
+        commentaireService.findById(COMMENTAIRE_ID);
+        verify(commentaireRepository, times(2)).findById(COMMENTAIRE_ID);
+    }
+
+    private Article article(String id) {
+        return Article.builder().id(id).version(0L).titre("titre").utilisateur(AUTHOR).build();
+    }
+
+    private User user(String id) {
+        return User.builder().id(id).version(0L).pseudo("pseudo").password("secret")
+                .adresse(new Adresse()).build();
+    }
+
+    private Commentaire commentaire(String id) {
+        return Commentaire.builder().id(id).version(0L).contenu("contenu").utilisateur(AUTHOR).build();
+    }
+}
@@ -0,0 +1,87 @@
+package fr.iut.blankproject.service.reactive.implementation;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.exception.version.VersionRequiredException;
+import fr.iut.blankproject.repository.EmbeddedMongo;
+import fr.iut.blankproject.repository.reactive.ReactiveArticleRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveArticleServiceImplTests {
+    private MongoClient mongoClient;
+    private ReactiveMongoTemplate mongoTemplate;
+    private ReactiveArticleServiceImpl articleService;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = EmbeddedMongo.reactiveClient();
+        mongoTemplate = new ReactiveMongoTemplate(mongoClient, "reactive-article-service-tests");
+        mongoTemplate.dropCollection(Article.class).block();
+        final ReactiveArticleRepository articleRepository = new ReactiveMongoRepositoryFactory(mongoTemplate)
+                .getRepository(ReactiveArticleRepository.class);
+
+        articleService = new ReactiveArticleServiceImpl(articleRepository, new ReactiveVersionSupport(mongoTemplate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    @Test
+    void updatesADocumentSavedBeforeTheVersionField() {
+        final ObjectId id = new ObjectId();
+        mongoTemplate.insert(new Document("_id", id).append("titre", "ancien"), "Article").block();
+
+        final Article updated = articleService.update(id.toHexString(), Article.builder()
+                .titre("nouveau")
+                .utilisateur(new AuthorRef("1", "auteur"))
+                .build()).block();
+
+        assertThat(updated).isNotNull();
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(mongoTemplate.count(new Query(), "Article").block()).isEqualTo(1L);
+        assertThat(mongoTemplate.findById(id, Document.class, "Article").block())
+                .containsEntry("titre", "nouveau")
+                .containsEntry("version", 1L);
+    }
+
+    @Test
+    void updateExpectsTheVersionOfTheBody() {
+        final ObjectId id = new ObjectId();
+        mongoTemplate.insert(new Document("_id", id).append("version", 2L).append("titre", "ancien"), "Article")
+                .block();
+
+        assertThatThrownBy(() -> articleService.update(id.toHexString(), article("sans version", null)).block())
+                .isInstanceOf(VersionRequiredException.class);
+        assertThatThrownBy(() -> articleService.update(id.toHexString(), article("périmé", 1L)).block())
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(mongoTemplate.findById(id, Document.class, "Article").block()).containsEntry("titre", "ancien");
+
+        final Article updated = articleService.update(id.toHexString(), article("nouveau", 2L)).block();
+
+        assertThat(updated).isNotNull();
+        assertThat(updated.getVersion()).isEqualTo(3L);
+        assertThat(mongoTemplate.findById(id, Document.class, "Article").block())
+                .containsEntry("titre", "nouveau")
+                .containsEntry("version", 3L);
+    }
+
+    private static Article article(String titre, Long version) {
+        return Article.builder().version(version).titre(titre).utilisateur(new AuthorRef("1", "auteur")).build();
+    }
+}
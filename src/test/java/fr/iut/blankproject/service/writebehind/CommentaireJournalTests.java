@@ -0,0 +1,122 @@
+package fr.iut.blankproject.service.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentaireJournalTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversRecordsThatWereNotCommitted() throws IOException {
+        final Path path = directory.resolve("commentaires.journal");
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            final long first = journal.append(bytes("premier"));
+            journal.append(bytes("second"));
+            journal.append(bytes("troisième"));
+            journal.commit(first);
+        }
+
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            assertThat(contents(journal.recovered())).containsExactly("second", "troisième");
+        }
+    }
+
+    @Test
+    void recoversTombstonesInTheOrderOfTheJournal() throws IOException {
+        final Path path = directory.resolve("commentaires.journal");
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            journal.append(bytes("premier"));
+            journal.appendTombstone(bytes("premier"));
+            journal.append(bytes("second"));
+        }
+
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            assertThat(contents(journal.recovered())).containsExactly("premier", "premier", "second");
+            assertThat(journal.recovered()).extracting(CommentaireJournal.Record::isTombstone)
+                    .containsExactly(false, true, false);
+        }
+    }
+
+    @Test
+    void recoversNothingOnceEverythingIsCommitted() throws IOException {
+        final Path path = directory.resolve("commentaires.journal");
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            journal.append(bytes("premier"));
+            journal.commit(journal.append(bytes("second")));
+
+            assertThat(journal.pendingBytes()).isZero();
+        }
+
+        try (CommentaireJournal journal = new CommentaireJournal(path, 1024, false)) {
+            assertThat(journal.recovered()).isEmpty();
+        }
+    }
+
+    @Test
+    void compactsCommittedSpaceOnlyWhenRecordsDoNotOverlap() throws IOException {
+        final Path path = directory.resolve("commentaires.journal");
+        final int recordSize = Integer.BYTES + 10;
+        final int size = CommentaireJournal.HEADER + 3 * recordSize + Integer.BYTES;
+        try (CommentaireJournal journal = new CommentaireJournal(path, size, false)) {
+            final long first = journal.append(bytes("0123456789"));
+            final long second = journal.append(bytes("abcdefghij"));
+            final long third = journal.append(bytes("ABCDEFGHIJ"));
+            assertThat(journal.append(bytes("klmnopqrst"))).isEqualTo(-1);
+
+            journal.commit(first);
+            assertThat(journal.append(bytes("klmnopqrst"))).isEqualTo(-1);
+
+            journal.commit(second);
+            final long fourth = journal.append(bytes("klmnopqrst"));
+            assertThat(fourth).isGreaterThan(third);
+            journal.commit(third);
+        }
+
+        try (CommentaireJournal journal = new CommentaireJournal(path, size, false)) {
+            assertThat(contents(journal.recovered())).containsExactly("klmnopqrst");
+        }
+    }
+
+    @Test
+    void syncForcesOnlyTheRangeAppendedSinceTheLastSync() throws IOException {
+        final List<int[]> forced = new ArrayList<>();
+        try (CommentaireJournal journal = new CommentaireJournal(directory.resolve("commentaires.journal"), 1024, true) {
+            @Override
+            void force(int index, int length) {
+                forced.add(new int[]{index, length});
+            }
+        }) {
+            final long first = journal.append(bytes("premier"));
+            final long second = journal.append(bytes("second"));
+            journal.sync(first);
+            journal.sync(second);
+            final long third = journal.append(bytes("troisième"));
+            journal.sync(third);
+
+            final int start = CommentaireJournal.HEADER;
+            assertThat(forced).containsExactly(
+                    new int[]{start, (int) second - start + Integer.BYTES},
+                    new int[]{(int) second, (int) (third - second) + Integer.BYTES});
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> contents(List<CommentaireJournal.Record> records) {
+        return records.stream()
+                .map(record -> new String(record.getContent(), StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,208 @@
+package fr.iut.blankproject.service.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.AuthorRef;
+import fr.iut.blankproject.domain.Commentaire;
+import fr.iut.blankproject.repository.CommentaireRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class CommentaireWriteBehindTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void acknowledgesWithAnIdAndInsertsByBatch() throws Exception {
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        final CommentaireWriteBehind writeBehind = writeBehind(repository, 10, 2);
+        try {
+            final Commentaire first = commentaire("premier");
+            assertThat(writeBehind.offer(first)).isTrue();
+            assertThat(first.getId()).isNotNull();
+            assertThat(first.getVersion()).isZero();
+            verify(repository, never()).insertAll(anyList());
+
+            final Commentaire second = commentaire("second");
+            assertThat(writeBehind.offer(second)).isTrue();
+
+            assertThat(inserted(repository)).extracting(Commentaire::getId)
+                    .containsExactly(first.getId(), second.getId());
+        } finally {
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    void refusesCommentsOnceFullAndSkipsCancelledOnes() throws Exception {
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        final CommentaireWriteBehind writeBehind = writeBehind(repository, 2, 10);
+        final Commentaire first = commentaire("premier");
+        final Commentaire second = commentaire("second");
+        final Commentaire refused = commentaire("refusé");
+
+        assertThat(writeBehind.offer(first)).isTrue();
+        assertThat(writeBehind.offer(second)).isTrue();
+        assertThat(writeBehind.offer(refused)).isFalse();
+        assertThat(refused.getId()).isNull();
+
+        assertThat(writeBehind.cancel(first.getId())).isTrue();
+        assertThat(writeBehind.cancel("inconnu")).isFalse();
+        writeBehind.destroy();
+
+        assertThat(inserted(repository)).extracting(Commentaire::getId).containsExactly(second.getId());
+    }
+
+    @Test
+    void commentCancelledWhileItsBatchIsWrittenIsRemovedAfterTheWrite() throws Exception {
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).insertAll(anyList());
+        final CommentaireWriteBehind writeBehind = writeBehind(repository, 10, 1);
+        try {
+            final Commentaire commentaire = commentaire("premier");
+            assertThat(writeBehind.offer(commentaire)).isTrue();
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(writeBehind.cancel(commentaire.getId())).isTrue();
+            verify(repository, never()).removeById(commentaire.getId());
+            release.countDown();
+
+            verify(repository, timeout(1000)).removeById(commentaire.getId());
+            assertThat(writeBehind.cancel(commentaire.getId())).isFalse();
+        } finally {
+            release.countDown();
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    void refusesCommentsAndCancellationsOnceDestroyed() throws Exception {
+        final CommentaireWriteBehind writeBehind = writeBehind(mock(CommentaireRepository.class), 10, 10);
+        writeBehind.destroy();
+
+        final Commentaire commentaire = commentaire("premier");
+        assertThat(writeBehind.offer(commentaire)).isFalse();
+        assertThat(commentaire.getId()).isNull();
+        assertThat(writeBehind.cancel("inconnu")).isFalse();
+    }
+
+    @Test
+    void rejectsABatchToTheDeadLetterFileAfterTheLastAttempt() throws Exception {
+        final CommentaireRepository failing = mock(CommentaireRepository.class);
+        doThrow(new IllegalStateException("document refusé")).when(failing).insertAll(anyList());
+        final CommentaireWriteBehind writeBehind = writeBehind(failing, 10, 1, Duration.ofMillis(10), 3);
+        final Commentaire rejected = commentaire("refusé");
+        try {
+            assertThat(writeBehind.offer(rejected)).isTrue();
+            verify(failing, timeout(2000).times(3)).insertAll(anyList());
+            verify(failing, after(200).times(3)).insertAll(anyList());
+            assertThat(writeBehind.pending()).isZero();
+        } finally {
+            writeBehind.destroy();
+        }
+
+        assertThat(Files.readAllLines(directory.resolve("commentaires.dead-letter.ndjson")))
+                .extracting(line -> objectMapper.readValue(line, Commentaire.class).getId())
+                .containsExactly(rejected.getId());
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        writeBehind(repository, 10, 1).destroy();
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void replaysCommentsThatWereNotWrittenAfterRestart() throws Exception {
+        final CommentaireRepository failing = mock(CommentaireRepository.class);
+        doThrow(new IllegalStateException("base indisponible")).when(failing).insertAll(anyList());
+        final CommentaireWriteBehind writeBehind = writeBehind(failing, 10, 1);
+        final Commentaire commentaire = commentaire("premier");
+        assertThat(writeBehind.offer(commentaire)).isTrue();
+        verify(failing, timeout(1000)).insertAll(anyList());
+        writeBehind.destroy();
+
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        final CommentaireWriteBehind restarted = writeBehind(repository, 10, 1);
+        try {
+            assertThat(inserted(repository)).extracting(Commentaire::getId, Commentaire::getContenu)
+                    .containsExactly(tuple(commentaire.getId(), "premier"));
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    void cancelledCommentIsNotReplayedAfterRestart() throws Exception {
+        final CommentaireRepository failing = mock(CommentaireRepository.class);
+        doThrow(new IllegalStateException("base indisponible")).when(failing).insertAll(anyList());
+        final CommentaireWriteBehind writeBehind = writeBehind(failing, 10, 10);
+        final Commentaire cancelled = commentaire("annulé");
+        final Commentaire kept = commentaire("conservé");
+        assertThat(writeBehind.offer(cancelled)).isTrue();
+        assertThat(writeBehind.offer(kept)).isTrue();
+        assertThat(writeBehind.cancel(cancelled.getId())).isTrue();
+        assertThat(writeBehind.pending()).isEqualTo(2);
+        writeBehind.destroy();
+
+        final CommentaireRepository repository = mock(CommentaireRepository.class);
+        final CommentaireWriteBehind restarted = writeBehind(repository, 10, 10);
+        try {
+            assertThat(inserted(repository)).extracting(Commentaire::getId).containsExactly(kept.getId());
+            verify(repository, timeout(1000)).removeById(cancelled.getId());
+            assertThat(restarted.pending()).isZero();
+            assertThat(restarted.cancel(cancelled.getId())).isFalse();
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    private CommentaireWriteBehind writeBehind(CommentaireRepository repository, int capacity, int batchSize)
+            throws IOException {
+        return writeBehind(repository, capacity, batchSize, Duration.ofHours(1), 10);
+    }
+
+    private CommentaireWriteBehind writeBehind(CommentaireRepository repository, int capacity, int batchSize,
+                                               Duration flushInterval, int maxAttempts) throws IOException {
+        return new CommentaireWriteBehind(repository, objectMapper, capacity, batchSize, flushInterval,
+                directory.resolve("commentaires.journal"), DataSize.ofKilobytes(64), false, maxAttempts,
+                directory.resolve("commentaires.dead-letter.ndjson"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Commentaire> inserted(CommentaireRepository repository) {
+        final ArgumentCaptor<List<Commentaire>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, timeout(1000)).insertAll(captor.capture());
+
+        return captor.getValue();
+    }
+
+    private static Commentaire commentaire(String contenu) {
+        return Commentaire.builder().contenu(contenu).utilisateur(new AuthorRef("1", "auteur")).build();
+    }
+}
@@ -0,0 +1,87 @@
+package fr.iut.blankproject.slowquery;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryListenerTests {
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(2);
+    private final SlowQueryListener listener = new SlowQueryListener(100, false, slowQueryLog,
+            new StaticListableBeanFactory().getBeanProvider(MongoDatabaseFactory.class));
+
+    @Test
+    void recordsOnlyCommandsSlowerThanTheThreshold() {
+        final BsonDocument find = BsonDocument.parse("{ find: 'Article', filter: { titre: 'mongo' }, lsid: {} }");
+        final BsonDocument response = BsonDocument.parse("{ cursor: { firstBatch: [ {}, {}, {} ] }, ok: 1 }");
+
+        listener.commandStarted(new CommandStartedEvent(1, CONNECTION, "blog", "find", find));
+        listener.commandSucceeded(new CommandSucceededEvent(1, CONNECTION, "find", response,
+                TimeUnit.MILLISECONDS.toNanos(5)));
+        listener.commandStarted(new CommandStartedEvent(2, CONNECTION, "blog", "find", find));
+        listener.commandSucceeded(new CommandSucceededEvent(2, CONNECTION, "find", response,
+                TimeUnit.MILLISECONDS.toNanos(250)));
+
+        assertThat(slowQueryLog.findAll()).hasSize(1);
+        final SlowQuery slowQuery = slowQueryLog.findAll().get(0);
+        assertThat(slowQuery.getCollection()).isEqualTo("Article");
+        assertThat(slowQuery.getDurationMillis()).isEqualTo(250);
+        assertThat(slowQuery.getResultSize()).isEqualTo(3);
+        assertThat(slowQuery.getCommand()).contains("\"titre\": \"mongo\"");
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentQueries() {
+        IntStream.range(0, 3).forEach(requestId -> {
+            listener.commandStarted(new CommandStartedEvent(requestId, CONNECTION, "blog", "insert",
+                    BsonDocument.parse("{ insert: 'Commentaire" + requestId + "' }")));
+            listener.commandSucceeded(new CommandSucceededEvent(requestId, CONNECTION, "insert",
+                    BsonDocument.parse("{ n: 1, ok: 1 }"), TimeUnit.SECONDS.toNanos(1)));
+        });
+
+        assertThat(slowQueryLog.findAll())
+                .extracting(SlowQuery::getCollection)
+                .containsExactly("Commentaire2", "Commentaire1");
+        assertThat(slowQueryLog.findAll().get(0).getCommand()).isNull();
+    }
+
+    @Test
+    void copiesOnlyThePartsOfTheCommandNeededByTheExplain() {
+        final BsonDocument update = BsonDocument.parse("{ update: 'Article', ordered: false, lsid: {}, $db: 'blog',"
+                + " updates: [ { q: { _id: 1, version: 0 }, u: { _id: 1, titre: 'contenu' }, upsert: true },"
+                + " { q: { _id: 2 }, u: { _id: 2 } } ] }");
+        final BsonDocument findAndModify = BsonDocument.parse("{ findAndModify: 'Article', query: { _id: 1 },"
+                + " update: { $push: { commentaires: { contenu: 'contenu' } } }, new: true, fields: { version: 1 } }");
+
+        assertThat(SlowQueryListener.explainable("update", update)).isEqualTo(BsonDocument.parse(
+                "{ update: 'Article', updates: [ { q: { _id: 1, version: 0 }, u: { $unset: { _explain: '' } } } ] }"));
+        assertThat(SlowQueryListener.explainable("findAndModify", findAndModify)).isEqualTo(BsonDocument.parse(
+                "{ findAndModify: 'Article', query: { _id: 1 }, fields: { version: 1 }, remove: true }"));
+        assertThat(SlowQueryListener.explainable("delete", BsonDocument.parse(
+                "{ delete: 'Article', deletes: [ { q: { _id: 1 }, limit: 1 } ], writeConcern: { w: 1 } }")))
+                .isEqualTo(BsonDocument.parse("{ delete: 'Article', deletes: [ { q: { _id: 1 }, limit: 1 } ] }"));
+    }
+
+    @Test
+    void aLogWithoutCapacityKeepsNothing() {
+        final SlowQueryLog disabled = new SlowQueryLog(0);
+
+        disabled.add(new SlowQuery());
+
+        assertThat(disabled.findAll()).isEmpty();
+    }
+}
@@ -0,0 +1,63 @@
+package fr.iut.blankproject.statistics;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.ArticleAggregate;
+import fr.iut.blankproject.domain.Commentaire;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArticleStatisticsTests {
+
+    @Test
+    void writesDuringLoadingWinOverLoadedValues() {
+        final ArticleStatistics statistics = new ArticleStatistics();
+        statistics.startLoading();
+        statistics.put(Article.builder().id("1").titre("Nouveau titre").build());
+        statistics.remove("2");
+        statistics.load(new ArticleAggregate("1", "Ancien titre", 4));
+        statistics.load(new ArticleAggregate("2", "Supprimé", 1));
+        statistics.load(new ArticleAggregate("3", "Autre", 2));
+        statistics.finishLoading();
+
+        assertThat(statistics.isReady()).isTrue();
+        assertThat(statistics.countArticle()).isEqualTo(2);
+        assertThat(statistics.countCommentaryByArticle()).containsExactlyInAnyOrder(
+                new ArticleAggregate("1", "Nouveau titre", 0),
+                new ArticleAggregate("3", "Autre", 2));
+    }
+
+    @Test
+    void addedCommentairesReplaceTheCountOfOlderVersions() {
+        final ArticleStatistics statistics = new ArticleStatistics();
+        statistics.startLoading();
+        statistics.finishLoading();
+        statistics.put(Article.builder().id("1").version(0L).titre("Titre")
+                .commentaires(Arrays.asList(new Commentaire(), new Commentaire())).build());
+
+        statistics.addCommentaire("1", 1L, 3);
+        assertThat(statistics.countCommentaryByArticle()).containsExactly(new ArticleAggregate("1", "Titre", 3));
+
+        statistics.addCommentaire("2", 1L, 1);
+        assertThat(statistics.countArticle()).isEqualTo(1);
+    }
+
+    @Test
+    void writesOfAnOlderVersionAreIgnored() {
+        final ArticleStatistics statistics = new ArticleStatistics();
+        statistics.startLoading();
+        statistics.finishLoading();
+        statistics.put(Article.builder().id("1").version(3L).titre("Titre").build());
+
+        statistics.addCommentaire("1", 2L, 5);
+        statistics.put(Article.builder().id("1").version(1L).titre("Ancien titre")
+                .commentaires(Arrays.asList(new Commentaire(), new Commentaire())).build());
+        assertThat(statistics.countCommentaryByArticle()).containsExactly(new ArticleAggregate("1", "Titre", 0));
+
+        statistics.addCommentaire("1", 4L, 1);
+        statistics.put(Article.builder().id("1").version(3L).titre("Titre").build());
+        assertThat(statistics.countCommentaryByArticle()).containsExactly(new ArticleAggregate("1", "Titre", 1));
+    }
+}
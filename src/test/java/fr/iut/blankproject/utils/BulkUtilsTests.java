@@ -0,0 +1,76 @@
+package fr.iut.blankproject.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.BulkItemResult;
+import fr.iut.blankproject.exception.bulk.InvalidBulkContentException;
+import fr.iut.blankproject.service.validation.ArticleValidator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkUtilsTests {
+    private static final String VALID = "{\"titre\":\"%s\",\"utilisateur\":{\"id\":\"u1\",\"pseudo\":\"florian\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readItemsAcceptsJsonArrayAndNdjson() {
+        final String first = String.format(VALID, "a");
+        final String second = String.format(VALID, "b");
+
+        assertThat(titres(read("[" + first + ",\n" + second + "]"))).containsExactly("a", "b");
+        assertThat(titres(read(first + "\n" + second + "\n"))).containsExactly("a", "b");
+    }
+
+    @Test
+    void readItemsRejectsMalformedContent() {
+        final Iterator<JsonNode> items = read(String.format(VALID, "a") + "\n{\"titre\":");
+
+        items.next();
+        assertThatThrownBy(() -> items.forEachRemaining(item -> { })).isInstanceOf(InvalidBulkContentException.class);
+    }
+
+    @Test
+    void saveAllReportsEachItemAndWritesInBatches() {
+        final String content = String.format(VALID, "a") + "\n"
+                + "{\"titre\":\"sans utilisateur\"}\n"
+                + "{\"titre\":\"date invalide\",\"publishedDate\":\"demain\"}\n"
+                + String.format(VALID, "b") + "\n"
+                + String.format(VALID, "c") + "\n";
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        final List<BulkItemResult> results = BulkUtils.saveAll(read(content), Article.class, objectMapper,
+                ArticleValidator::checkArticleToSave, Article::getTitre, batch -> {
+                    batchSizes.add(batch.size());
+                    return batchSizes.size() == 1 ? Map.of(1, "duplicate key") : Collections.emptyMap();
+                }, 2);
+
+        assertThat(batchSizes).containsExactly(2, 1);
+        assertThat(results).extracting(BulkItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(true, false, false, false, true);
+        assertThat(results.get(3).getId()).isEqualTo("b");
+        assertThat(results.get(3).getError()).isEqualTo("duplicate key");
+    }
+
+    private Iterator<JsonNode> read(String content) {
+        return BulkUtils.readItems(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+
+    private List<String> titres(Iterator<JsonNode> items) {
+        final List<String> titres = new ArrayList<>();
+        items.forEachRemaining(item -> titres.add(item.get("titre").asText()));
+
+        return titres;
+    }
+}
@@ -0,0 +1,62 @@
+package fr.iut.blankproject.utils;
+
+import fr.iut.blankproject.domain.CursorPage;
+import fr.iut.blankproject.exception.pagination.InvalidCursorException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilsTests {
+
+    @Test
+    void decodeReturnsTheEncodedId() {
+        final String id = new ObjectId().toHexString();
+
+        assertThat(CursorUtils.decode(CursorUtils.encode(id))).isEqualTo(id);
+    }
+
+    @Test
+    void decodeRejectsCursorsThatAreNotBase64() {
+        assertThatThrownBy(() -> CursorUtils.decode("%%%")).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decodeRejectsIdsThatAreNotObjectIds() {
+        assertThatThrownBy(() -> CursorUtils.decode(CursorUtils.encode("abc")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> CursorUtils.decode(CursorUtils.encode(" ")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> CursorUtils.decode(""))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> CursorUtils.decode(Base64.getUrlEncoder()
+                .encodeToString("5f1d7f0e9c1b2a3d4e5f6a7bzz".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void boundSizeKeepsThePageSizeBetweenOneAndTheMaximum() {
+        assertThat(CursorUtils.boundSize(0)).isEqualTo(1);
+        assertThat(CursorUtils.boundSize(10)).isEqualTo(10);
+        assertThat(CursorUtils.boundSize(1000)).isEqualTo(CursorUtils.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void toPageReturnsACursorOnlyWhenMoreElementsWereRead() {
+        final List<String> ids = List.of(new ObjectId().toHexString(), new ObjectId().toHexString(),
+                new ObjectId().toHexString());
+
+        final CursorPage<String> last = CursorUtils.toPage(ids, 3, Function.identity());
+        final CursorPage<String> first = CursorUtils.toPage(ids, 2, Function.identity());
+
+        assertThat(last.getNext()).isNull();
+        assertThat(first.getContent()).containsExactly(ids.get(0), ids.get(1));
+        assertThat(CursorUtils.decode(first.getNext())).isEqualTo(ids.get(1));
+    }
+}
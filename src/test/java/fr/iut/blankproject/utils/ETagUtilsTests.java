@@ -0,0 +1,47 @@
+package fr.iut.blankproject.utils;
+
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.exception.version.VersionMismatchException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagUtilsTests {
+    private static final Function<Article, String> KEY = article -> article.getId() + ":" + article.getVersion();
+
+    @Test
+    void ofVersionIsQuotedAndDefaultsToZero() {
+        assertThat(ETagUtils.of(7L)).isEqualTo("\"7\"");
+        assertThat(ETagUtils.of((Long) null)).isEqualTo("\"0\"");
+    }
+
+    @Test
+    void ofItemsChangesWithVersionsAndExtras() {
+        final String etag = ETagUtils.of(articles(1L, 2L), KEY, "next");
+
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(ETagUtils.of(articles(1L, 2L), KEY, "next")).isEqualTo(etag);
+        assertThat(ETagUtils.of(articles(1L, 3L), KEY, "next")).isNotEqualTo(etag);
+        assertThat(ETagUtils.of(articles(1L, 2L), KEY, (Object) null)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void parseVersionReadsStrongVersionETags() {
+        assertThat(ETagUtils.parseVersion(ETagUtils.of(12L))).isEqualTo(12L);
+        assertThat(ETagUtils.parseVersion(null)).isNull();
+        assertThat(ETagUtils.parseVersion("*")).isNull();
+        assertThatThrownBy(() -> ETagUtils.parseVersion("W/\"12\"")).isInstanceOf(VersionMismatchException.class);
+        assertThatThrownBy(() -> ETagUtils.parseVersion("\"abc\"")).isInstanceOf(VersionMismatchException.class);
+    }
+
+    private List<Article> articles(Long first, Long second) {
+        return Arrays.asList(
+                Article.builder().id("a").version(first).build(),
+                Article.builder().id("b").version(second).build());
+    }
+}
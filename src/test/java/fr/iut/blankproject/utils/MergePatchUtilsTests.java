@@ -0,0 +1,62 @@
+package fr.iut.blankproject.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.iut.blankproject.domain.Article;
+import fr.iut.blankproject.domain.Categorie;
+import fr.iut.blankproject.exception.article.ArticleSaveException;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MergePatchUtilsTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void toUpdateSetsOnlyTouchedFieldsAndUnsetsNulls() {
+        final Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("titre", "Nouveau titre");
+        patch.put("contenu", null);
+        patch.put("utilisateur", Collections.singletonMap("pseudo", "florian"));
+        patch.put("categories", Arrays.asList(Collections.singletonMap("label", "java")));
+
+        final Document update = MergePatchUtils
+                .toUpdate(patch, Article.class, objectMapper, ArticleSaveException::new)
+                .getUpdateObject();
+
+        final Document set = (Document) update.get("$set");
+        assertThat(set).containsOnlyKeys("titre", "utilisateur.pseudo", "categories");
+        assertThat(set.get("titre")).isEqualTo("Nouveau titre");
+        assertThat(set.get("categories")).isEqualTo(Arrays.asList(new Categorie("java")));
+        assertThat((Document) update.get("$unset")).containsOnlyKeys("contenu");
+    }
+
+    @Test
+    void toUpdateRejectsUnknownFields() {
+        final Map<String, Object> patch = new HashMap<>();
+        patch.put("utilisateur", Collections.singletonMap("password", "secret"));
+
+        assertThatThrownBy(() -> MergePatchUtils.toUpdate(patch, Article.class, objectMapper, ArticleSaveException::new))
+                .isInstanceOf(ArticleSaveException.class)
+                .hasMessageContaining("utilisateur.password");
+    }
+
+    @Test
+    void removesNestedIdDetectsRemovedReference() {
+        assertThat(MergePatchUtils.removesNestedId(
+                Collections.singletonMap("utilisateur", null), "utilisateur", "id")).isTrue();
+        assertThat(MergePatchUtils.removesNestedId(
+                Collections.singletonMap("utilisateur", Collections.singletonMap("id", "")), "utilisateur", "id"))
+                .isTrue();
+        assertThat(MergePatchUtils.removesNestedId(
+                Collections.singletonMap("utilisateur", Collections.singletonMap("pseudo", "x")), "utilisateur", "id"))
+                .isFalse();
+    }
+}